@@ -2,10 +2,8 @@ package com.project.back_end;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.ComponentScan;
 
 @SpringBootApplication
-@ComponentScan("com.project.back_end")
 public class BackEndApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,66 @@
+package com.project.back_end.DTO;
+
+import java.util.Objects;
+
+public final class AuthenticatedPrincipal {
+
+    // Immutable identity of the caller, resolved once per request from the path token
+    // by AuthenticatedPrincipalResolver and handed to controller methods as a parameter.
+
+    // 1. 'role' field:
+    //    - Type: private final String
+    //    - Description:
+    //      - The role the token was validated for, in lower case: "admin", "doctor" or "patient".
+    private final String role;
+
+    // 2. 'email' field:
+    //    - Type: private final String
+    //    - Description:
+    //      - The subject of the token (the email, or the username for admins).
+    private final String email;
+
+    // 3. 'id' field:
+    //    - Type: private final Long
+    //    - Description:
+    //      - The id of the Admin, Doctor or Patient entity the subject belongs to.
+    private final Long id;
+
+    public AuthenticatedPrincipal(String role, String email, Long id) {
+        this.role = role;
+        this.email = email;
+        this.id = id;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean hasRole(String r) {
+        return role.equalsIgnoreCase(r);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AuthenticatedPrincipal p)) return false;
+        return role.equals(p.role) && Objects.equals(email, p.email) && Objects.equals(id, p.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(role, email, id);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedPrincipal{role='" + role + "', id=" + id + '}';
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.back_end.DTO;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Bodies of the doctor availability endpoints (GET /doctor/availability/...).
+// Typed so Jackson resolves their serializers once instead of walking a HashMap per response.
+public final class DoctorAvailabilityResponse {
+
+    private DoctorAvailabilityResponse() {
+    }
+
+    // Free slot labels of one doctor on one date.
+    public record Day(Long doctorId, String date, List<String> available, String message) {
+    }
+
+    // Free slot labels of one doctor per date, in date order.
+    public record Range(Long doctorId, String from, String to, Map<LocalDate, List<String>> availability,
+                        String message) {
+    }
+
+    // Free slot labels of several doctors on one date, by doctor id in request order.
+    public record Doctors(String date, Map<Long, List<String>> availability, String message) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.project.back_end.DTO;
+
+import java.util.List;
+
+public class DoctorDirectoryPage {
+
+    // One page of the doctor directory. `nextCursor` is null on the last page.
+
+    private final List<DoctorSummary> doctors;
+    private final String nextCursor;
+
+    public DoctorDirectoryPage(List<DoctorSummary> doctors, String nextCursor) {
+        this.doctors = doctors;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<DoctorSummary> getDoctors() {
+        return doctors;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.back_end.DTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DoctorSummary {
+
+    // Public view of a doctor for directory listings: the Doctor fields without the password.
+    // Built by a JPQL constructor expression, so listing doctors does not load (or dirty-check) entities;
+    // `availableTimes` is filled in afterwards from one batched query for the whole page.
+
+    private Long id;
+    private String name;
+    private String specialty;
+    private String email;
+    private String phone;
+    private String clinicAddress;
+    private Integer yearsOfExperience;
+    private BigDecimal rating;
+    private List<String> availableTimes = new ArrayList<>();
+
+    public DoctorSummary() {
+    }
+
+    public DoctorSummary(Long id, String name, String specialty, String email, String phone,
+                         String clinicAddress, Integer yearsOfExperience, BigDecimal rating) {
+        this.id = id;
+        this.name = name;
+        this.specialty = specialty;
+        this.email = email;
+        this.phone = phone;
+        this.clinicAddress = clinicAddress;
+        this.yearsOfExperience = yearsOfExperience;
+        this.rating = rating;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getClinicAddress() {
+        return clinicAddress;
+    }
+
+    public Integer getYearsOfExperience() {
+        return yearsOfExperience;
+    }
+
+    public BigDecimal getRating() {
+        return rating;
+    }
+
+    public List<String> getAvailableTimes() {
+        return availableTimes;
+    }
+
+    public void setAvailableTimes(List<String> availableTimes) {
+        this.availableTimes = availableTimes;
+    }
+}
@@ -0,0 +1,6 @@
+package com.project.back_end.DTO;
+
+// One free slot found by DoctorService.findEarliestSlots.
+// appointmentTime is the slot start in ISO format (yyyy-MM-ddTHH:mm), slot its label as configured by the doctor.
+public record EarliestSlot(Long doctorId, String doctorName, String appointmentTime, String slot) {
+}
@@ -0,0 +1,7 @@
+package com.project.back_end.DTO;
+
+import java.util.List;
+
+// Body of GET /doctor/earliest/...: the soonest free slots of a specialty, earliest first.
+public record EarliestSlotsResponse(String specialty, List<EarliestSlot> slots, String message) {
+}
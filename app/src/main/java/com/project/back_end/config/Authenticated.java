@@ -0,0 +1,19 @@
+package com.project.back_end.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks an AuthenticatedPrincipal controller parameter that AuthenticatedPrincipalResolver fills from the path token.
+//  - `role`: the role the token must belong to ("admin", "doctor" or "patient").
+//    When empty, the role is read from the `{user}` path variable (e.g. /doctor/availability/{user}/...).
+//  - `token`: name of the path variable holding the JWT.
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Authenticated {
+
+    String role() default "";
+
+    String token() default "token";
+}
@@ -0,0 +1,66 @@
+package com.project.back_end.config;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.services.CommonService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Collections;
+import java.util.Map;
+
+@Component
+public class AuthenticatedPrincipalResolver implements HandlerMethodArgumentResolver {
+
+    // Resolves `@Authenticated AuthenticatedPrincipal` controller parameters.
+    // - Reads the token (and, if the annotation has no role, the `{user}` role) from the URI template variables.
+    // - Delegates validation and id lookup to CommonService.authenticate, which throws UnauthorizedException on failure.
+    // - Memoizes the principal as a request attribute, so the token is resolved only once per request.
+
+    private static final String ATTRIBUTE_PREFIX = AuthenticatedPrincipal.class.getName() + ".";
+
+    private CommonService commonService;
+
+    public AuthenticatedPrincipalResolver(CommonService commonService) {
+        this.commonService = commonService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(Authenticated.class)
+                && AuthenticatedPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(@NonNull MethodParameter parameter,
+                                  ModelAndViewContainer mavContainer,
+                                  @NonNull NativeWebRequest webRequest,
+                                  WebDataBinderFactory binderFactory) {
+        Authenticated ann = parameter.getParameterAnnotation(Authenticated.class);
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        Map<String, String> vars = uriVariables(request);
+
+        String token = vars.get(ann.token());
+        String role = ann.role().isEmpty() ? vars.get("user") : ann.role();
+
+        String attribute = ATTRIBUTE_PREFIX + role;
+        Object cached = request != null ? request.getAttribute(attribute) : null;
+        if (cached instanceof AuthenticatedPrincipal principal) return principal;
+
+        AuthenticatedPrincipal principal = commonService.authenticate(token, role);
+        if (request != null) request.setAttribute(attribute, principal);
+        return principal;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> uriVariables(HttpServletRequest request) {
+        Object vars = request != null ? request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) : null;
+        return vars instanceof Map ? (Map<String, String>) vars : Collections.emptyMap();
+    }
+}
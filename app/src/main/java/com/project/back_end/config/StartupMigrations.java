@@ -0,0 +1,155 @@
+package com.project.back_end.config;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.SlotTimes;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class StartupMigrations implements ApplicationRunner {
+
+    // 1. **Purpose**
+    // Data fixes for databases that were created by `ddl-auto=update` before the schema moved to the Flyway
+    // migrations in db/migration. Such databases are baselined at V1 and migrated from there; the migrations add the
+    // tables and columns (and seed the id generators), and the rows that predate them are completed here, where the
+    // entity code does the parsing. Fresh databases have nothing to fix.
+    // Each step is idempotent and runs once per start, before the application serves requests.
+
+    // 2. **Doctor Slot Periods**
+    // Doctor.availableAm / availablePm (has_am_slots / has_pm_slots) are derived from the slot strings when a doctor
+    // is saved. Doctors saved before the columns existed (V5) have NULLs there and would never match the AM/PM
+    // filter, so their flags are computed once from doctor_available_times.
+    // The update goes through JDBC, which the second-level cache does not see, so cached doctors are evicted after it.
+
+    // 2b. **Doctor Slots**
+    // The typed DoctorSlot rows are written whenever Doctor.availableTimes is set. Doctors saved before the doctor_slot
+    // table existed (V6) only have the labels, so their slots are derived once, through the entity so the parsing is
+    // the same.
+
+    // 2c. **Name Tokens**
+    // The name search reads doctor_name_token / patient_name_token (V9), which setName keeps up to date.
+    // Rows saved before V9 have no tokens and would never be found, so their tokens are written once, again through
+    // the entity and in chunks.
+
+    private static final int SLOT_BACKFILL_CHUNK = 100;
+
+    private JdbcTemplate jdbcTemplate;
+    private DoctorRepository doctorRepository;
+    private PatientRepository patientRepository;
+    private TransactionTemplate transactionTemplate;
+    private EntityManagerFactory entityManagerFactory;
+
+    public StartupMigrations(JdbcTemplate jdbcTemplate,
+                             DoctorRepository doctorRepository,
+                             PatientRepository patientRepository,
+                             PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfillDoctorSlots();
+        backfillDoctorSlotPeriods();
+        backfillNameTokens();
+    }
+
+    // 3. **backfillDoctorSlotPeriods Method**
+    // Sets has_am_slots / has_pm_slots for doctors where they are still NULL, using the same parsing as the entity.
+
+    void backfillDoctorSlotPeriods() {
+        try {
+            Map<Long, boolean[]> flags = new LinkedHashMap<>();
+            jdbcTemplate.query("""
+                    SELECT d.id, t.available_times
+                    FROM doctor d
+                    LEFT JOIN doctor_available_times t ON t.doctor_id = d.id
+                    WHERE d.has_am_slots IS NULL OR d.has_pm_slots IS NULL
+                    """, rs -> {
+                boolean[] f = flags.computeIfAbsent(rs.getLong(1), id -> new boolean[2]);
+                int minute = SlotTimes.startMinute(rs.getString(2));
+                if (minute >= 0) f[minute < 12 * 60 ? 0 : 1] = true;
+            });
+            if (flags.isEmpty()) return;
+            List<Object[]> updates = new ArrayList<>(flags.size());
+            flags.forEach((id, f) -> updates.add(new Object[]{f[0], f[1], id}));
+            jdbcTemplate.batchUpdate("UPDATE doctor SET has_am_slots = ?, has_pm_slots = ? WHERE id = ?", updates);
+            entityManagerFactory.getCache().evict(Doctor.class);
+            System.out.println("Backfilled AM/PM slot flags of " + updates.size() + " doctors");
+        } catch (DataAccessException e) {
+            System.out.println("Could not backfill doctor slot periods: " + e.getMessage());
+        }
+    }
+
+    // 4. **backfillDoctorSlots Method**
+    // Creates the DoctorSlot rows of doctors that have availableTimes but no slots, one transaction per chunk.
+    // Re-setting availableTimes rebuilds the slots (and the AM/PM flags); the cascade inserts them on commit.
+
+    void backfillDoctorSlots() {
+        try {
+            List<Long> ids = doctorRepository.findIdsWithoutSlots();
+            for (int from = 0; from < ids.size(); from += SLOT_BACKFILL_CHUNK) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + SLOT_BACKFILL_CHUNK));
+                transactionTemplate.executeWithoutResult(s -> {
+                    for (Doctor d : doctorRepository.findAllById(chunk)) {
+                        d.setAvailableTimes(new ArrayList<>(d.getAvailableTimes()));
+                    }
+                });
+            }
+            if (!ids.isEmpty()) System.out.println("Backfilled typed slots of " + ids.size() + " doctors");
+        } catch (RuntimeException e) {
+            System.out.println("Could not backfill doctor slots: " + e.getMessage());
+        }
+    }
+
+    // 5. **backfillNameTokens Method**
+    // Writes the name tokens of doctors and patients that have none, one transaction per chunk.
+    // Re-setting the name fills the token set; the element collection is inserted on commit.
+
+    void backfillNameTokens() {
+        try {
+            List<Long> doctorIds = doctorRepository.findIdsWithoutNameTokens();
+            for (int from = 0; from < doctorIds.size(); from += SLOT_BACKFILL_CHUNK) {
+                List<Long> chunk = doctorIds.subList(from, Math.min(doctorIds.size(), from + SLOT_BACKFILL_CHUNK));
+                transactionTemplate.executeWithoutResult(s -> {
+                    for (Doctor d : doctorRepository.findAllById(chunk)) {
+                        d.setName(d.getName());
+                    }
+                });
+            }
+            List<Long> patientIds = patientRepository.findIdsWithoutNameTokens();
+            for (int from = 0; from < patientIds.size(); from += SLOT_BACKFILL_CHUNK) {
+                List<Long> chunk = patientIds.subList(from, Math.min(patientIds.size(), from + SLOT_BACKFILL_CHUNK));
+                transactionTemplate.executeWithoutResult(s -> {
+                    for (Patient p : patientRepository.findAllById(chunk)) {
+                        p.setName(p.getName());
+                    }
+                });
+            }
+            if (doctorIds.size() + patientIds.size() > 0) {
+                System.out.println("Backfilled name tokens of " + doctorIds.size() + " doctors and "
+                        + patientIds.size() + " patients");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Could not backfill name tokens: " + e.getMessage());
+        }
+    }
+}
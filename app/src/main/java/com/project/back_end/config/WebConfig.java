@@ -1,15 +1,28 @@
 package com.project.back_end.config;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.lang.NonNull; 
 
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final AuthenticatedPrincipalResolver authenticatedPrincipalResolver;
+
+    public WebConfig(AuthenticatedPrincipalResolver authenticatedPrincipalResolver) {
+        this.authenticatedPrincipalResolver = authenticatedPrincipalResolver;
+    }
+
     @Override
     public void addCorsMappings(@NonNull CorsRegistry registry) {
         // Allow CORS for all endpoints
@@ -18,4 +31,18 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE")  // Specify allowed methods
                 .allowedHeaders("*");  // You can restrict headers if needed
     }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        // `application/cbor` request and response bodies, written and read with the same settings and modules as
+        // JSON (dates as ISO strings, ...); replaces Spring's default CBOR converter, which uses its own mapper.
+        // JSON stays the default: CBOR is only chosen when the client asks for it.
+        return new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory()));
+    }
+
+    @Override
+    public void addArgumentResolvers(@NonNull List<HandlerMethodArgumentResolver> resolvers) {
+        // Fills `@Authenticated AuthenticatedPrincipal` parameters from the path token
+        resolvers.add(authenticatedPrincipalResolver);
+    }
 }
@@ -1,14 +1,32 @@
 
 package com.project.back_end.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.config.Authenticated;
 import com.project.back_end.models.Admin;
+import com.project.back_end.services.BulkImportService;
 import com.project.back_end.services.CommonService;
+import com.project.back_end.services.DoctorDirectory;
+import com.project.back_end.services.DoctorAvailabilityIndex;
+import com.project.back_end.services.ImportRecordReader;
+import com.project.back_end.services.PrincipalRegistry;
+import com.project.back_end.services.SecondLevelCacheStats;
+import com.project.back_end.services.VerifiedTokenCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -27,9 +45,30 @@ public class AdminController {
     //    - This promotes cleaner code and separation of concerns between the controller and business logic layer.
 
     private CommonService commonService;
+    private VerifiedTokenCache tokenCache;
+    private PrincipalRegistry principalRegistry;
+    private DoctorAvailabilityIndex availabilityIndex;
+    private BulkImportService bulkImportService;
+    private DoctorDirectory doctorDirectory;
+    private SecondLevelCacheStats secondLevelCacheStats;
+    private ObjectMapper objectMapper;
 
-    public AdminController(CommonService commonService) {
+    public AdminController(CommonService commonService,
+                           VerifiedTokenCache tokenCache,
+                           PrincipalRegistry principalRegistry,
+                           DoctorAvailabilityIndex availabilityIndex,
+                           BulkImportService bulkImportService,
+                           DoctorDirectory doctorDirectory,
+                           SecondLevelCacheStats secondLevelCacheStats,
+                           ObjectMapper objectMapper) {
         this.commonService = commonService;
+        this.tokenCache = tokenCache;
+        this.principalRegistry = principalRegistry;
+        this.availabilityIndex = availabilityIndex;
+        this.bulkImportService = bulkImportService;
+        this.doctorDirectory = doctorDirectory;
+        this.secondLevelCacheStats = secondLevelCacheStats;
+        this.objectMapper = objectMapper;
     }
 
 
@@ -43,5 +82,82 @@ public class AdminController {
     public ResponseEntity<Map<String, String>> adminLogin(@RequestBody Admin admin) {
         return commonService.validateAdmin(admin.getUsername(), admin.getPassword());
     }
-}
 
+    // 4. Define the `cacheStats` Method:
+    //    - Handles HTTP GET requests to `/admin/cacheStats/{token}`.
+    //    - Token must belong to an `"admin"`.
+    //    - Returns hit/miss statistics of the in-memory caches, keyed by cache name.
+    //    - `secondLevel` holds Hibernate's second-level cache regions (doctors, slots) and the query cache.
+
+    @GetMapping("/cacheStats/{token}")
+    public ResponseEntity<Map<String, Object>> cacheStats(@Authenticated(role = "admin") AuthenticatedPrincipal admin) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("verifiedTokens", tokenCache.stats());
+        body.put("principals", principalRegistry.stats());
+        body.put("availability", availabilityIndex.stats());
+        body.put("secondLevel", secondLevelCacheStats.stats());
+        return ResponseEntity.ok(body);
+    }
+
+    // 5. Define the `importPatients` / `importDoctors` Methods:
+    //    - Handle HTTP POST requests to `/admin/import/patients/{token}` and `/admin/import/doctors/{token}`.
+    //    - Token must belong to an `"admin"`.
+    //    - The request body is the raw file: CSV with a header row (`text/csv`) or one JSON object per line
+    //      (`application/x-ndjson`); `?format=csv|ndjson` overrides the Content-Type.
+    //    - The body is read as a stream and the response is NDJSON: one progress line per imported chunk,
+    //      then a final line with `"done": true`, so neither side buffers the whole file.
+    //    - Chunks commit as they go, so the doctor directory is refreshed after a doctor import even if it was aborted.
+
+    @PostMapping("/import/patients/{token}")
+    public void importPatients(@Authenticated(role = "admin") AuthenticatedPrincipal admin,
+                               @RequestParam(required = false) String format,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        streamImport(format, request, response, true);
+    }
+
+    @PostMapping("/import/doctors/{token}")
+    public void importDoctors(@Authenticated(role = "admin") AuthenticatedPrincipal admin,
+                              @RequestParam(required = false) String format,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        streamImport(format, request, response, false);
+    }
+
+    private void streamImport(String format, HttpServletRequest request, HttpServletResponse response,
+                              boolean patients) throws IOException {
+        String f = ImportRecordReader.formatOf(format, request.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if (f == null) {
+            response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            response.setContentType("application/json");
+            objectMapper.writeValue(response.getOutputStream(),
+                    Map.of("message", "Upload text/csv or application/x-ndjson (or pass ?format=csv|ndjson)."));
+            return;
+        }
+
+        Charset charset = request.getCharacterEncoding() != null
+                ? Charset.forName(request.getCharacterEncoding()) : StandardCharsets.UTF_8;
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        try (Reader reader = new InputStreamReader(request.getInputStream(), charset)) {
+            Map<String, Object> result = patients
+                    ? bulkImportService.importPatients(reader, f, line -> writeLine(out, line))
+                    : bulkImportService.importDoctors(reader, f, line -> writeLine(out, line));
+            writeLine(out, result);
+        } catch (RuntimeException e) {
+            // the status line is already sent; report the failure as the last NDJSON line
+            writeLine(out, Map.of("done", true, "message", "Import aborted: " + e.getMessage()));
+        } finally {
+            if (!patients) doctorDirectory.refresh();
+        }
+    }
+
+    private void writeLine(OutputStream out, Map<String, Object> line) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
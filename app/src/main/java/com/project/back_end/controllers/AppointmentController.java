@@ -1,24 +1,22 @@
 package com.project.back_end.controllers;
 
 import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.config.Authenticated;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Patient;
-import com.project.back_end.repo.DoctorRepository;
-import com.project.back_end.repo.PatientRepository;
 import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.CommonService;
-import com.project.back_end.services.TokenService;
 import jakarta.validation.Valid;
 import org.antlr.v4.runtime.Token;
-import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/appointments")
@@ -28,30 +26,26 @@ public class AppointmentController {
     //    - Annotate the class with `@RestController` to define it as a REST API controller.
     //    - Use `@RequestMapping("/appointments")` to set a base path for all appointment-related endpoints.
     //    - This centralizes all routes that deal with booking, updating, retrieving, and canceling appointments.
+    //    - Request and response bodies are JSON, or CBOR when the client sends / accepts `application/cbor` (see WebConfig).
 
 
     // 2. Autowire Dependencies:
     //    - Inject `AppointmentService` for handling the business logic specific to appointments.
-    //    - Inject the general `Service` class, which provides shared functionality like token validation and appointment checks.
+    //    - Inject the general `Service` class, which provides shared functionality like appointment checks.
+    //    - The caller is resolved from the path token by `AuthenticatedPrincipalResolver` and passed in as `@Authenticated AuthenticatedPrincipal`.
 
     private final AppointmentService appointmentService;
     private final CommonService commonService;
-    private final TokenService tokenService;
-    private final DoctorRepository doctorRepository;
-    private final PatientRepository patientRepository;
+    private final int maxBatchSize;
 
     public AppointmentController(
             AppointmentService appointmentService,
             CommonService commonService,
-            TokenService tokenService,
-            DoctorRepository doctorRepository,
-            PatientRepository patientRepository
+            @Value("${appointments.batch.max-items:200}") int maxBatchSize
     ) {
         this.appointmentService = appointmentService;
         this.commonService = commonService;
-        this.tokenService = tokenService;
-        this.doctorRepository = doctorRepository;
-        this.patientRepository = patientRepository;
+        this.maxBatchSize = maxBatchSize;
     }
 
     // 3. Define the `getAppointments` Method:
@@ -62,28 +56,9 @@ public class AppointmentController {
     //    - If the token is invalid or expired, responds with the appropriate message and status code.
 
     @GetMapping("/{date}/{patientName}/{token}")
-    public ResponseEntity<?> getAppointment(@PathVariable String date, @PathVariable String patientName, @PathVariable String token) {
-        String error = commonService.validateToken(token, "doctor"); // null if valid
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("message", error));
-        }
-
-        String email;
-        try {
-            email = tokenService.extractEmail(token);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("message", "Invalid token."));
-        }
-
-        var docOpt = doctorRepository.findByEmailIgnoreCase(email);
-        if (docOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("message", "Doctor not found."));
-        }
-
-        Long doctorId = docOpt.get().getId();
+    public ResponseEntity<?> getAppointment(@PathVariable String date, @PathVariable String patientName,
+                                            @Authenticated(role = "doctor") AuthenticatedPrincipal doctor) {
+        Long doctorId = doctor.getId();
 
         final LocalDate day;
         try {
@@ -98,12 +73,7 @@ public class AppointmentController {
                 || "null".equalsIgnoreCase(patientName)
                 || "-".equals(patientName)) ? null : patientName.trim();
 
-        var appts = appointmentService.getAppointmentsForDoctorOnDate(doctorId, day, nameFilter);
-        List<AppointmentDTO> dto = appts.stream().map(a -> {
-            AppointmentDTO dto2 = new AppointmentDTO();
-            BeanUtils.copyProperties(a, dto2);
-            return dto2;
-        }).toList();
+        List<AppointmentDTO> dto = appointmentService.getAppointmentsForDoctorOnDate(doctorId, day, nameFilter);
 
         return ResponseEntity.ok(dto);
 
@@ -117,21 +87,8 @@ public class AppointmentController {
     //    - Returns success if booked, or appropriate error messages if the doctor ID is invalid or the slot is already taken.
 
     @PostMapping("/appointments/book/{token}")
-    public ResponseEntity<Map<String, String>> bookAppointment(@PathVariable String token,
+    public ResponseEntity<Map<String, String>> bookAppointment(@Authenticated(role = "patient") AuthenticatedPrincipal patient,
                                                                @Valid @RequestBody AppointmentDTO appointment) {
-        // validate token for role "patient"
-        String error = commonService.validateToken(token, "patient"); // null if valid
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", error));
-        }
-
-        // resolve patient from token
-        String email = tokenService.extractEmail(token);
-        Optional<Patient> patientOpt = patientRepository.findByEmailIgnoreCase(email);
-        if (patientOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Patient not found."));
-        }
-
         // basic payload checks
         if (appointment.getDoctorId() == null) {
             return ResponseEntity.badRequest().body(Map.of("message", "Doctor id is required."));
@@ -151,44 +108,60 @@ public class AppointmentController {
         }
 
         // set the owning patient
-        appointment.setPatientId(patientOpt.get().getId());
+        appointment.setPatientId(patient.getId());
 
-        // delegate save to service (returns 1 on success / 0 on failure)
-        Appointment appointment1 = new Appointment();
-        BeanUtils.copyProperties(appointment, appointment1);
-
-        int saved = appointmentService.bookAppointment(appointment1);
+        // delegate save to service (1 = booked, -1 = slot taken meanwhile, 0 = failure)
+        int saved = appointmentService.bookAppointment(appointment);
         if (saved == 1) {
             return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("message", "Appointment booked successfully."));
         }
+        if (saved == -1) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Requested slot is unavailable."));
+        }
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("message", "Failed to book appointment. Please try again."));
     }
 
 
+    // 4b. Define the `bookAppointments` Method:
+    //    - Handles HTTP POST requests that book a list of appointments for the calling patient in one go
+    //      (e.g. recurring weekly visits): one token check, one validation pass, one batched insert.
+    //    - Returns one result per item (index, status, message): 201 when all items were booked, 207 otherwise.
+
+    @PostMapping("/appointments/book/batch/{token}")
+    public ResponseEntity<Map<String, Object>> bookAppointments(@Authenticated(role = "patient") AuthenticatedPrincipal patient,
+                                                                @RequestBody List<@Valid AppointmentDTO> appointments) {
+        if (appointments == null || appointments.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "At least one appointment is required."));
+        }
+        if (appointments.size() > maxBatchSize) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "At most " + maxBatchSize + " appointments can be booked at once."));
+        }
+
+        List<Map<String, Object>> results = appointmentService.bookAppointments(appointments, patient.getId());
+        long booked = results.stream().filter(r -> Integer.valueOf(201).equals(r.get("status"))).count();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("booked", booked);
+        body.put("failed", results.size() - booked);
+        body.put("results", results);
+        return ResponseEntity.status(booked == results.size() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(body);
+    }
+
+
     // 5. Define the `updateAppointment` Method:
     //    - Handles HTTP PUT requests to modify an existing appointment.
     //    - Accepts a validated `Appointment` object and a token as input.
     //    - Validates the token for `"patient"` role.
-    //    - Delegates the update logic to the `AppointmentService`.
+    //    - Delegates the update logic to the `AppointmentService`, which rejects appointments of other patients (403).
     //    - Returns an appropriate success or failure response based on the update result.
 
     @PutMapping("/appointments/{token:.+}")
-    public ResponseEntity<Map<String, String>> updateAppointment(@PathVariable String token,
+    public ResponseEntity<Map<String, String>> updateAppointment(@Authenticated(role = "patient") AuthenticatedPrincipal patient,
                                                                  @Valid @RequestBody Appointment appointment) {
-        // validate token for role "patient"
-        String error = commonService.validateToken(token, "patient");
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", error));
-        }
-
-        // resolve patient (ownership enforcement happens in service)
-        String email = tokenService.extractEmail(token);
-        Optional<Patient> patientOpt = patientRepository.findByEmailIgnoreCase(email);
-        if (patientOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Patient not found."));
-        }
-        return appointmentService.updateAppointment(appointment);
+        // token validated for role "patient"; the service only updates the caller's own appointments
+        return appointmentService.updateAppointment(appointment, patient.getId());
     }
 
 
@@ -200,16 +173,8 @@ public class AppointmentController {
 
     @DeleteMapping("/appointments/{appointmentId}/{token:.+}")
     public ResponseEntity<Map<String, String>> cancelAppointment(@PathVariable Long appointmentId,
-                                                                 @PathVariable String token) {
-        
-        // resolve patient
-        String email = tokenService.extractEmail(token);
-        Optional<Patient> patientOpt = patientRepository.findByEmailIgnoreCase(email);
-        if (patientOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Patient not found."));
-        }
-
-        return appointmentService.cancelAppointment(appointmentId, patientOpt.get().getId());
+                                                                 @Authenticated(role = "patient") AuthenticatedPrincipal patient) {
+        return appointmentService.cancelAppointment(appointmentId, patient.getId());
     }
 
 }
@@ -1,16 +1,38 @@
 package com.project.back_end.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.DTO.DoctorAvailabilityResponse;
+import com.project.back_end.DTO.DoctorDirectoryPage;
+import com.project.back_end.DTO.DoctorSummary;
+import com.project.back_end.DTO.EarliestSlot;
+import com.project.back_end.DTO.EarliestSlotsResponse;
+import com.project.back_end.config.Authenticated;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.ScheduleException;
 import com.project.back_end.services.CommonService;
+import com.project.back_end.services.DoctorDirectory;
 import com.project.back_end.services.DoctorService;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -19,21 +41,45 @@ public class DoctorController {
 
     // 1. Set Up the Controller Class:
     //    - Annotate the class with `@RestController` to define it as a REST controller that serves JSON responses.
+    //    - Clients sending `Accept: application/cbor` get the same bodies as CBOR (see WebConfig); the endpoints that
+    //      write their own bytes (directory list, filter and pages) pick the format themselves (`prefersCbor`).
     //    - Use `@RequestMapping("${api.path}doctor")` to prefix all endpoints with a configurable API path followed by "doctor".
     //    - This class manages doctor-related functionalities such as registration, login, updates, and availability.
 
 
     // 2. Autowire Dependencies:
     //    - Inject `DoctorService` for handling the core logic related to doctors (e.g., CRUD operations, authentication).
-    //    - Inject the shared `Service` class for general-purpose features like token validation and filtering.
+    //    - Inject `DoctorDirectory`, the in-memory snapshot behind the anonymous list and filter endpoints;
+    //      every successful doctor change below refreshes it.
+
+    private static final int MAX_DIRECTORY_PAGE = 200;
+    private static final int DEFAULT_EXCEPTION_WINDOW_DAYS = 90;
+    private static final int MAX_AVAILABILITY_DAYS = 62;
+    private static final int MAX_AVAILABILITY_DOCTORS = 100;
+    private static final int MAX_EARLIEST_DAYS = 42;
+    private static final int MAX_EARLIEST_RESULTS = 50;
+
+    // Conditional GET: the directory and availability endpoints send a weak ETag built from a version (the directory
+    // snapshot, or the requested doctor-days of DoctorAvailabilityIndex) and answer a matching If-None-Match with
+    // 304 before building or serializing the body. Clients may store the responses but must revalidate them;
+    // availability is per caller (token in the path), so only the browser may keep it.
+    // The responses vary by Accept (JSON or CBOR); the weak ETag is shared by both, as they carry the same content.
+    // The ETag decides: WebRequest.checkNotModified only falls back to If-Modified-Since when the request has no
+    // If-None-Match, as Last-Modified has one-second precision and two snapshots built within a second share it.
+    private static final CacheControl DIRECTORY_CACHE = CacheControl.noCache().cachePublic();
+    private static final CacheControl AVAILABILITY_CACHE = CacheControl.noCache().cachePrivate();
 
     private DoctorService doctorService;
-    private CommonService commonService;
+    private DoctorDirectory doctorDirectory;
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
 
 
-    public DoctorController(DoctorService doctorService, CommonService commonService) {
+    public DoctorController(DoctorService doctorService, DoctorDirectory doctorDirectory, ObjectMapper objectMapper) {
         this.doctorService = doctorService;
-        this.commonService = commonService;
+        this.doctorDirectory = doctorDirectory;
+        this.objectMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory()); // same settings and modules as the JSON mapper
     }
 
     // 3. Define the `getDoctorAvailability` Method:
@@ -43,41 +89,177 @@ public class DoctorController {
     //    - If the token is invalid, returns an error response; otherwise, returns the availability status for the doctor.
 
     @GetMapping("/availability/{user}/{doctorId}/{date}/{token}")
-    public ResponseEntity<Map<String, Object>> getDoctorAvailability(@PathVariable String user,
-                                                                     @PathVariable Long doctorId,
-                                                                     @PathVariable String date,
-                                                                     @PathVariable String token) {
-        Map<String, Object> body = new HashMap<>();
-        String error = commonService.validateToken(token, user); // null when valid
-        if (error != null) {
-            body.put("message", error);
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
-        }
+    public ResponseEntity<?> getDoctorAvailability(@PathVariable Long doctorId,
+                                                   @PathVariable String date,
+                                                   @Authenticated AuthenticatedPrincipal caller,
+                                                   WebRequest request) {
         final LocalDate day;
         try {
             day = LocalDate.parse(date); // expects YYYY-MM-DD
         } catch (Exception e) {
-            body.put("message", "Invalid date format. Use YYYY-MM-DD.");
-            return ResponseEntity.badRequest().body(body);
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid date format. Use YYYY-MM-DD."));
+        }
+        if (request.checkNotModified(etag("a", doctorService.getAvailabilityVersion(doctorId, day)))) {
+            return notModified(AVAILABILITY_CACHE);
         }
         List<String> available = doctorService.getDoctorAvailability(doctorId, day);
-        body.put("doctorId", doctorId);
-        body.put("date", date);
-        body.put("available", available);
-        body.put("message", available.isEmpty() ? "No available slots." : "Success");
-        return ResponseEntity.ok(body);
+        return ok(AVAILABILITY_CACHE).body(new DoctorAvailabilityResponse.Day(
+                doctorId, date, available, available.isEmpty() ? "No available slots." : "Success"));
+    }
+
+    // 3b. Define the `getDoctorAvailabilityRange` Method:
+    //    - Handles HTTP GET requests for one doctor's free slots on every date from `from` to `to` (inclusive,
+    //      at most 62 days), so a week or month view is one round trip instead of one call per day.
+    //    - Returns `availability` as a map from date (YYYY-MM-DD) to slot labels; 404 if the doctor does not exist.
+
+    @GetMapping("/availability/{user}/{doctorId}/{from}/{to}/{token}")
+    public ResponseEntity<?> getDoctorAvailabilityRange(@PathVariable Long doctorId,
+                                                        @PathVariable String from,
+                                                        @PathVariable String to,
+                                                        @Authenticated AuthenticatedPrincipal caller,
+                                                        WebRequest request) {
+        final LocalDate start;
+        final LocalDate end;
+        try {
+            start = LocalDate.parse(from);
+            end = LocalDate.parse(to);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid date format. Use YYYY-MM-DD."));
+        }
+        if (end.isBefore(start) || start.plusDays(MAX_AVAILABILITY_DAYS - 1).isBefore(end)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "The range must cover 1 to " + MAX_AVAILABILITY_DAYS + " days."));
+        }
+        if (request.checkNotModified(etag("a", doctorService.getAvailabilityVersion(doctorId, start, end)))) {
+            return notModified(AVAILABILITY_CACHE);
+        }
+        Map<LocalDate, List<String>> available = doctorService.getDoctorAvailability(doctorId, start, end);
+        if (available == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found."));
+        }
+        return ok(AVAILABILITY_CACHE)
+                .body(new DoctorAvailabilityResponse.Range(doctorId, from, to, available, "Success"));
+    }
+
+    // 3c. Define the `getDoctorsAvailability` Method:
+    //    - Handles HTTP GET requests for the free slots of several doctors (`doctorIds=1,2,3`, at most 100) on one date.
+    //    - Returns `availability` as a map from doctor id to slot labels; unknown ids are left out.
+
+    @GetMapping("/availability/{user}/{date}/{token}")
+    public ResponseEntity<?> getDoctorsAvailability(@PathVariable String date,
+                                                    @RequestParam List<Long> doctorIds,
+                                                    @Authenticated AuthenticatedPrincipal caller,
+                                                    WebRequest request) {
+        final LocalDate day;
+        try {
+            day = LocalDate.parse(date);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid date format. Use YYYY-MM-DD."));
+        }
+        LinkedHashSet<Long> ids = new LinkedHashSet<>(doctorIds);
+        ids.remove(null);
+        if (ids.isEmpty() || ids.size() > MAX_AVAILABILITY_DOCTORS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Pass 1 to " + MAX_AVAILABILITY_DOCTORS + " doctorIds."));
+        }
+        if (request.checkNotModified(etag("a", doctorService.getAvailabilityVersion(ids, day)))) {
+            return notModified(AVAILABILITY_CACHE);
+        }
+        return ok(AVAILABILITY_CACHE).body(new DoctorAvailabilityResponse.Doctors(
+                date, doctorService.getDoctorsAvailability(ids, day), "Success"));
+    }
+
+    // 3d. Define the `getEarliestSlots` Method:
+    //    - Handles HTTP GET requests for the soonest free slots among all doctors of a specialty:
+    //      `/earliest/{user}/{speciality}/{token}?days=14&limit=10&perDoctor=1`.
+    //    - Looks `days` days ahead from now (at most 42) and returns at most `limit` slots (at most 50),
+    //      at most `perDoctor` of them per doctor, earliest first.
+
+    @GetMapping("/earliest/{user}/{speciality}/{token}")
+    public ResponseEntity<?> getEarliestSlots(@PathVariable("speciality") String specialty,
+                                              @RequestParam(defaultValue = "14") int days,
+                                              @RequestParam(defaultValue = "10") int limit,
+                                              @RequestParam(defaultValue = "1") int perDoctor,
+                                              @Authenticated AuthenticatedPrincipal caller) {
+        if (days < 1 || days > MAX_EARLIEST_DAYS || limit < 1 || limit > MAX_EARLIEST_RESULTS || perDoctor < 1) {
+            return ResponseEntity.badRequest().body(Map.of("message",
+                    "days must be 1-" + MAX_EARLIEST_DAYS + ", limit 1-" + MAX_EARLIEST_RESULTS + ", perDoctor at least 1."));
+        }
+        List<EarliestSlot> slots =
+                doctorService.findEarliestSlots(specialty.trim(), LocalDateTime.now(), days, limit, perDoctor);
+        return ResponseEntity.ok(new EarliestSlotsResponse(specialty, slots,
+                slots.isEmpty() ? "No available slots." : "Success"));
     }
 
     // 4. Define the `getDoctor` Method:
     //    - Handles HTTP GET requests to retrieve a list of all doctors.
     //    - Returns the list within a response map under the key `"doctors"` with HTTP 200 OK status.
+    //    - The body is the pre-serialized list of the doctor directory snapshot, ordered by name.
+    //    - Conditional: 304 while the snapshot version (ETag) or build time (Last-Modified) still matches.
+    //    - Clients accepting gzip get the snapshot's pre-compressed body (the server's own compression then leaves it alone),
+    //      so both the 200 and the 304 vary by Accept-Encoding as well.
 
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getDoctor() {
-        Map<String, Object> body = new HashMap<>();
-        List<Doctor> doctors = doctorService.getDoctors();
-        body.put("doctors", doctors);
-        return ResponseEntity.ok(body);
+    public ResponseEntity<byte[]> getDoctor(WebRequest request) {
+        if (request.checkNotModified(etag("d", doctorDirectory.version()), doctorDirectory.lastModified())) {
+            return notModified(DIRECTORY_CACHE, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(DIRECTORY_CACHE)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (prefersCbor(request.getHeader(HttpHeaders.ACCEPT))) {
+            return ok.contentType(MediaType.APPLICATION_CBOR).body(doctorDirectory.allCbor());
+        }
+        ok.contentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(doctorDirectory.allJsonGzip());
+        }
+        return ok.body(doctorDirectory.allJson());
+    }
+
+    // 4b. Define the `getDirectory` Method:
+    //    - Handles HTTP GET requests to `/doctor/directory?cursor=...&limit=...`.
+    //    - Returns one page of doctors ordered by name (`limit` defaults to 50, at most 200) and a `nextCursor`
+    //      to pass back for the following page (null on the last page).
+    //    - The page is written with a JsonGenerator straight to the response stream (a CBOR one for CBOR clients).
+    //      The declared StreamingResponseBody type is what makes Spring stream it (with `ResponseEntity<?>` the
+    //      lambda itself was serialized, as `{}`), so error messages are streamed too.
+
+    @GetMapping("/directory")
+    public ResponseEntity<StreamingResponseBody> getDirectory(@RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "50") int limit,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean cbor = prefersCbor(accept);
+        ObjectMapper mapper = cbor ? cborMapper : objectMapper;
+        MediaType type = cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON;
+        if (limit < 1 || limit > MAX_DIRECTORY_PAGE) {
+            return ResponseEntity.badRequest().varyBy(HttpHeaders.ACCEPT).contentType(type)
+                    .body(message(mapper, "limit must be between 1 and " + MAX_DIRECTORY_PAGE + "."));
+        }
+        DoctorDirectoryPage page;
+        try {
+            page = doctorService.getDirectoryPage(cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().varyBy(HttpHeaders.ACCEPT).contentType(type)
+                    .body(message(mapper, "Invalid cursor."));
+        }
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+                gen.writeStartObject();
+                gen.writeArrayFieldStart("doctors");
+                for (DoctorSummary d : page.getDoctors()) {
+                    gen.writeObject(d);
+                }
+                gen.writeEndArray();
+                gen.writeStringField("nextCursor", page.getNextCursor());
+                gen.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).contentType(type).body(body);
+    }
+
+    private static StreamingResponseBody message(ObjectMapper mapper, String message) {
+        return out -> mapper.writeValue(out, Map.of("message", message));
     }
 
     // 5. Define the `saveDoctor` Method:
@@ -87,13 +269,10 @@ public class DoctorController {
     //    - If the doctor already exists, returns a conflict response; otherwise, adds the doctor and returns a success message.
 
     @PostMapping("/save/{token}")
-    public ResponseEntity<Map<String, String>> saveDoctor(@PathVariable String token,
+    public ResponseEntity<Map<String, String>> saveDoctor(@Authenticated(role = "admin") AuthenticatedPrincipal admin,
                                                           @Valid @RequestBody Doctor doctor) {
-        String error = commonService.validateToken(token, "admin");
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", error));
-        }
         int res = doctorService.saveDoctor(doctor); // -1 conflict, 1 success, 0 error
+        if (res == 1) doctorDirectory.refresh();
         return switch (res) {
             case 1 -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("message", "Doctor saved successfully."));
             case -1 -> ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Doctor already exists."));
@@ -121,13 +300,10 @@ public class DoctorController {
     //    - If the doctor exists, updates the record and returns success; otherwise, returns not found or error messages.
 
     @PutMapping("/update/{token}")
-    public ResponseEntity<Map<String, String>> updateDoctor(@PathVariable String token,
+    public ResponseEntity<Map<String, String>> updateDoctor(@Authenticated(role = "admin") AuthenticatedPrincipal admin,
                                                             @Valid @RequestBody Doctor doctor) {
-        String error = commonService.validateToken(token, "admin");
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", error));
-        }
         int res = doctorService.updateDoctor(doctor); // -1 not found, 1 ok, 0 error
+        if (res == 1) doctorDirectory.refresh();
         return switch (res) {
             case 1 -> ResponseEntity.ok(Map.of("message", "Doctor updated successfully."));
             case -1 -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found."));
@@ -142,12 +318,9 @@ public class DoctorController {
 
     @DeleteMapping("/{doctorId}/{token}")
     public ResponseEntity<Map<String, String>> deleteDoctor(@PathVariable Long doctorId,
-                                                            @PathVariable String token) {
-        String error = commonService.validateToken(token, "admin");
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", error));
-        }
+                                                            @Authenticated(role = "admin") AuthenticatedPrincipal admin) {
         int res = doctorService.deleteDoctor(doctorId); // -1 not found, 1 ok, 0 error
+        if (res == 1) doctorDirectory.refresh();
         return switch (res) {
             case 1 -> ResponseEntity.ok(Map.of("message", "Doctor deleted successfully."));
             case -1 -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found."));
@@ -155,20 +328,165 @@ public class DoctorController {
         };
     }
 
+    // 8b. Define the weekly schedule and exception endpoints (doctor token; they act on the caller's own schedule):
+    //    - PUT `/schedule/{token}`: body maps weekdays ("MONDAY" or 1..7) to slot labels, e.g. {"MONDAY": ["09:00-09:30"]};
+    //      weekdays left out have no slots.
+    //    - POST `/exceptions/{token}`: adds a day off (only `date`) or a blocked window (`startTime` and/or `endTime`).
+    //    - GET `/exceptions/{token}?from=&to=`: lists exceptions, by default from today for 90 days.
+    //    - DELETE `/exceptions/{exceptionId}/{token}`: removes one exception.
+
+    @PutMapping("/schedule/{token}")
+    public ResponseEntity<Map<String, String>> updateSchedule(@Authenticated(role = "doctor") AuthenticatedPrincipal doctor,
+                                                              @RequestBody Map<String, List<String>> schedule) {
+        Map<DayOfWeek, List<String>> byDay = new EnumMap<>(DayOfWeek.class);
+        for (Map.Entry<String, List<String>> e : schedule.entrySet()) {
+            DayOfWeek day = parseWeekday(e.getKey());
+            if (day == null) {
+                return ResponseEntity.badRequest().body(Map.of("message", "Unknown weekday: " + e.getKey()));
+            }
+            byDay.put(day, e.getValue() != null ? e.getValue() : List.of());
+        }
+        int res = doctorService.updateWeeklySchedule(doctor.getId(), byDay); // -1 not found, 1 ok, 0 error
+        if (res == 1) doctorDirectory.refresh(); // availableTimes and the AM/PM flags follow the schedule
+        return switch (res) {
+            case 1 -> ResponseEntity.ok(Map.of("message", "Schedule updated successfully."));
+            case -1 -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found."));
+            default -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Failed to update schedule."));
+        };
+    }
+
+    @PostMapping("/exceptions/{token}")
+    public ResponseEntity<Map<String, Object>> addScheduleException(@Authenticated(role = "doctor") AuthenticatedPrincipal doctor,
+                                                                    @Valid @RequestBody ScheduleException exception) {
+        if (exception.getStartTime() != null && exception.getEndTime() != null
+                && !exception.getEndTime().isAfter(exception.getStartTime())) {
+            return ResponseEntity.badRequest().body(Map.of("message", "endTime must be after startTime."));
+        }
+        ScheduleException saved = doctorService.addScheduleException(doctor.getId(), exception);
+        if (saved == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Doctor not found."));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(Map.of("message", "Schedule exception added.", "exception", saved));
+    }
+
+    @GetMapping("/exceptions/{token}")
+    public ResponseEntity<Map<String, Object>> getScheduleExceptions(@Authenticated(role = "doctor") AuthenticatedPrincipal doctor,
+                                                                     @RequestParam(required = false) String from,
+                                                                     @RequestParam(required = false) String to) {
+        final LocalDate start;
+        final LocalDate end;
+        try {
+            start = from != null ? LocalDate.parse(from) : LocalDate.now();
+            end = to != null ? LocalDate.parse(to) : start.plusDays(DEFAULT_EXCEPTION_WINDOW_DAYS);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid date format. Use YYYY-MM-DD."));
+        }
+        return ResponseEntity.ok(Map.of("exceptions", doctorService.getScheduleExceptions(doctor.getId(), start, end)));
+    }
+
+    @DeleteMapping("/exceptions/{exceptionId}/{token}")
+    public ResponseEntity<Map<String, String>> removeScheduleException(@PathVariable Long exceptionId,
+                                                                       @Authenticated(role = "doctor") AuthenticatedPrincipal doctor) {
+        int res = doctorService.removeScheduleException(doctor.getId(), exceptionId);
+        return res == 1
+                ? ResponseEntity.ok(Map.of("message", "Schedule exception removed."))
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Schedule exception not found."));
+    }
+
     // 9. Define the `filter` Method:
     //    - Handles HTTP GET requests to filter doctors based on name, time, and specialty.
     //    - Accepts `name`, `time`, and `speciality` as path variables.
-    //    - Calls the shared `Service` to perform filtering logic and returns matching doctors in the response.
+    //    - Answered from the doctor directory snapshot (same matching as the database filter), without a query.
+    //    - Conditional like `getDoctor`: the result of a filter only changes with the snapshot.
 
     @GetMapping("/filter/{name}/{time}/{speciality}")
-    public ResponseEntity<Map<String, Object>> filter(@PathVariable String name,
-                                                      @PathVariable String time,
-                                                      @PathVariable("speciality") String specialty) {
+    public ResponseEntity<byte[]> filter(@PathVariable String name,
+                                         @PathVariable String time,
+                                         @PathVariable("speciality") String specialty,
+                                         WebRequest request) {
+        if (request.checkNotModified(etag("d", doctorDirectory.version()), doctorDirectory.lastModified())) {
+            return notModified(DIRECTORY_CACHE);
+        }
         String n = normalize(name);
         String t = normalize(time); // "AM"/"PM" expected (or null)
         String s = normalize(specialty);
-        List<Doctor> doctors = commonService.filterDoctor(n, s, t);
-        return ResponseEntity.ok(Map.of("doctors", doctors));
+        if (prefersCbor(request.getHeader(HttpHeaders.ACCEPT))) {
+            return ok(DIRECTORY_CACHE).contentType(MediaType.APPLICATION_CBOR).body(doctorDirectory.filterCbor(n, s, t));
+        }
+        return ok(DIRECTORY_CACHE).contentType(MediaType.APPLICATION_JSON).body(doctorDirectory.filterJson(n, s, t));
+    }
+
+    private DayOfWeek parseWeekday(String v) {
+        if (v == null) return null;
+        String s = v.trim().toUpperCase(Locale.ROOT);
+        try {
+            if (s.length() == 1 && Character.isDigit(s.charAt(0))) return DayOfWeek.of(s.charAt(0) - '0');
+            return DayOfWeek.valueOf(s);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // True when Accept ranks application/cbor above JSON; JSON wins ties (`*/*`, no header, unparsable header).
+    // The most specific range decides each type's quality, as in message-converter negotiation.
+    static boolean prefersCbor(String accept) {
+        if (accept == null || accept.isBlank()) return false;
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return quality(types, MediaType.APPLICATION_CBOR) > quality(types, MediaType.APPLICATION_JSON);
+    }
+
+    private static double quality(List<MediaType> accepted, MediaType type) {
+        double q = 0;
+        int best = -1;
+        for (MediaType range : accepted) {
+            if (!range.includes(type)) continue;
+            int specificity = range.isWildcardType() ? 0 : range.isWildcardSubtype() ? 1 : 2;
+            if (specificity > best) {
+                best = specificity;
+                q = range.getQualityValue();
+            }
+        }
+        return q;
+    }
+
+    // True when Accept-Encoding lists gzip (or *) without q=0.
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] p = part.trim().split(";");
+            String coding = p[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) continue;
+            boolean refused = false;
+            for (int i = 1; i < p.length; i++) {
+                String param = p[i].trim().replace(" ", "");
+                if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?")) refused = true;
+            }
+            return !refused;
+        }
+        return false;
+    }
+
+    private static ResponseEntity.BodyBuilder ok(CacheControl cacheControl) {
+        return ResponseEntity.ok().cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    private static <T> ResponseEntity<T> notModified(CacheControl cacheControl) {
+        return notModified(cacheControl, HttpHeaders.ACCEPT);
+    }
+
+    // A 304 carries the same Vary as the 200 it revalidates.
+    private static <T> ResponseEntity<T> notModified(CacheControl cacheControl, String... varyBy) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).varyBy(varyBy).build();
+    }
+
+    private static String etag(String kind, long version) {
+        return "W/\"" + kind + Long.toHexString(version) + "\"";
     }
 
     private String normalize(String v) {
@@ -1,14 +1,20 @@
 package com.project.back_end.controllers;
 
 import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.config.Authenticated;
 import com.project.back_end.models.Patient;
 import com.project.back_end.services.CommonService;
 import com.project.back_end.services.PatientService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,12 +47,8 @@ public class PatientController {
     //    - If the token is valid, returns patient information; otherwise, returns an appropriate error message.
 
     @GetMapping("/{token}")
-    public ResponseEntity<?> getPatient(@PathVariable String token) {
-        String error = commonService.validateToken(token, "patient"); // null if valid
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", error));
-        }
-        return patientService.getPatientDetails(token); // returns ResponseEntity<PatientDTO>
+    public ResponseEntity<?> getPatient(@Authenticated(role = "patient") AuthenticatedPrincipal patient) {
+        return patientService.getPatientDetails(patient.getId()); // returns ResponseEntity<PatientDTO>
     }
 
     // 4. Define the `createPatient` Method:
@@ -101,16 +103,33 @@ public class PatientController {
     //    - If valid, retrieves the patient's appointment data from `PatientService`; otherwise, returns a validation error.
 
     @GetMapping("/appointments/{user}/{patientId}/{token:.+}")
-    public ResponseEntity<List<AppointmentDTO>> getPatientAppointment(@PathVariable String user,
-                                                                      @PathVariable Long patientId,
-                                                                      @PathVariable String token) {
-        String error = commonService.validateToken(token, user);
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
+    public ResponseEntity<List<AppointmentDTO>> getPatientAppointment(@PathVariable Long patientId,
+                                                                      @Authenticated AuthenticatedPrincipal caller) {
         return patientService.getPatientAppointment(patientId);
     }
 
+    // 6b. Define the `exportPatientAppointments` Method:
+    //    - Handles HTTP GET requests for a patient's full appointment history (long-time patients, audits).
+    //    - Same rows as `getPatientAppointment`, but the JSON array is streamed from a database cursor as it is read
+    //      instead of being built in memory first.
+    //    - Access: a patient may export only their own history, an admin any patient's (audits); anyone else gets 403.
+
+    @GetMapping("/appointments/export/{user}/{patientId}/{token:.+}")
+    public void exportPatientAppointments(@PathVariable Long patientId,
+                                          @Authenticated AuthenticatedPrincipal caller,
+                                          HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        boolean allowed = caller.hasRole("admin")
+                || (caller.hasRole("patient") && patientId != null && patientId.equals(caller.getId()));
+        if (!allowed) {
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            response.getWriter().write("{\"message\":\"You can only export your own appointments.\"}");
+            return;
+        }
+        patientService.exportAppointments(patientId, response.getOutputStream());
+    }
+
     // 7. Define the `filterPatientAppointment` Method:
     //    - Handles HTTP GET requests to filter a patient's appointments based on specific conditions.
     //    - Accepts filtering parameters: `condition`, `name`, and a token.
@@ -120,14 +139,10 @@ public class PatientController {
     @GetMapping("/appointments/filter/{condition}/{name}/{token:.+}")
     public ResponseEntity<List<AppointmentDTO>> filterPatientAppointment(@PathVariable String condition,
                                                                                         @PathVariable String name,
-                                                                                        @PathVariable String token) {
+                                                                                        @Authenticated(role = "patient") AuthenticatedPrincipal patient) {
         String normalizedCondition = normalize(condition);
         String normalizedName = normalize(name);
-        String error = commonService.validateToken(token, "patient");
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
-        return commonService.filterPatient(token, normalizedCondition, normalizedName);
+        return commonService.filterPatient(patient.getId(), normalizedCondition, normalizedName);
     }
 
     private boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
@@ -1,15 +1,15 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.config.Authenticated;
 import com.project.back_end.models.Prescription;
 import com.project.back_end.services.AppointmentService;
-import com.project.back_end.services.CommonService;
 import com.project.back_end.services.PrescriptionService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -24,18 +24,16 @@ public class PrescriptionController {
 
     // 2. Autowire Dependencies:
     //    - Inject `PrescriptionService` to handle logic related to saving and fetching prescriptions.
-    //    - Inject the shared `Service` class for token validation and role-based access control.
+    //    - Token validation and role-based access control are done by `AuthenticatedPrincipalResolver` (`@Authenticated` parameters).
     //    - Inject `AppointmentService` to update appointment status after a prescription is issued.
 
     private PrescriptionService prescriptionService;
-    private CommonService commonService; // token validation
     private AppointmentService appointmentService; // to update appointment status after issuing Rx
 
     private static final int STATUS_AFTER_PRESCRIPTION = 1;
 
-    public PrescriptionController(PrescriptionService prescriptionService, CommonService commonService, AppointmentService appointmentService) {
+    public PrescriptionController(PrescriptionService prescriptionService, AppointmentService appointmentService) {
         this.prescriptionService = prescriptionService;
-        this.commonService = commonService;
         this.appointmentService = appointmentService;
     }
 
@@ -47,15 +45,8 @@ public class PrescriptionController {
     //    - Delegates the saving logic to `PrescriptionService` and returns a response indicating success or failure.
 
     @PostMapping("/save/{token}")
-    public ResponseEntity<Map<String, String>> savePrescription(@PathVariable String token,
+    public ResponseEntity<Map<String, String>> savePrescription(@Authenticated(role = "doctor") AuthenticatedPrincipal doctor,
                                                                 @Valid @RequestBody Prescription prescription) {
-        // Validate token for doctor role
-        String error = commonService.validateToken(token, "doctor"); // null when valid
-        if (error != null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", error));
-        }
-
-
         // Validate payload
         if (prescription == null || prescription.getAppointmentId() == null) {
             return ResponseEntity.badRequest().body(Map.of("message", "appointmentId is required."));
@@ -89,14 +80,7 @@ public class PrescriptionController {
 
     @GetMapping("/{appointmentId}/{token:.+}")
     public ResponseEntity<Map<String, Object>> getPrescription(@PathVariable Long appointmentId,
-                                                               @PathVariable String token) {
-        // Validate token for doctor role
-        String error = commonService.validateToken(token, "doctor");
-        if (error != null) {
-            Map<String, Object> body = new HashMap<>();
-            body.put("message", error);
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
-        }
+                                                               @Authenticated(role = "doctor") AuthenticatedPrincipal doctor) {
         // Delegate to service (returns { prescriptions: [...], message: ... })
         return prescriptionService.getPrescription(appointmentId);
     }
@@ -1,5 +1,6 @@
 package com.project.back_end.controllers;
 
+import com.project.back_end.services.UnauthorizedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -25,4 +26,12 @@ public class ValidationFailed {
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
     }
-}
\ No newline at end of file
+
+    // Raised when an `@Authenticated` principal cannot be resolved from the path token
+    @ExceptionHandler(UnauthorizedException.class)
+    public ResponseEntity<Map<String, String>> handleUnauthorized(UnauthorizedException ex) {
+        Map<String, String> body = new HashMap<>();
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
+    }
+}
@@ -9,6 +9,10 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_appointment_doctor_start",
+        columnNames = {"doctor_id", "start_time"}),
+        indexes = @Index(name = "idx_appointment_patient_status_start", columnList = "patient_id, status, start_time"))
 public class Appointment {
 
     // ---- Status codes ----
@@ -19,16 +23,22 @@ public class Appointment {
     // @Entity annotation:
     //    - Marks the class as a JPA entity, meaning it represents a table in the database.
     //    - Required for persistence frameworks (e.g., Hibernate) to map the class to a database table.
+    //    - The unique key on (doctor_id, start_time) makes the database reject a second booking of the same slot.
+    //      It is also the index of the doctor's day and range queries; (patient_id, status, start_time) serves the
+    //      patient's appointment lists. Both are created by the migrations in db/migration (V2, V8).
 
     // 1. 'id' field:
     //    - Type: private Long
     //    - Description:
     //      - Represents the unique identifier for each appointment.
     //      - The @Id annotation marks it as the primary key.
-    //      - The @GeneratedValue(strategy = GenerationType.IDENTITY) annotation auto-generates the ID value when a new record is inserted into the database.
+    //      - Ids come from the pooled `appointment_seq` generator (a one-row table on MySQL) that hands out blocks of 50,
+    //        so inserts do not need the database-generated key back and Hibernate can send them as JDBC batches.
+    //        Migration V3 seeded it above the AUTO_INCREMENT ids of older databases.
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_seq")
+    @SequenceGenerator(name = "appointment_seq", sequenceName = "appointment_seq", allocationSize = 50)
     private Long id;
 
     // 2. 'doctor' field:
@@ -1,28 +1,58 @@
 package com.project.back_end.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.project.back_end.services.NameTokens;
+import com.project.back_end.services.SlotTimes;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "idx_doctor_name_id", columnList = "name, id"),
+        @Index(name = "idx_doctor_specialty_am", columnList = "specialty, has_am_slots"),
+        @Index(name = "idx_doctor_specialty_pm", columnList = "specialty, has_pm_slots")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_doctor_email", columnNames = "email"))
 public class Doctor {
 
     // @Entity annotation:
     //    - Marks the class as a JPA entity, meaning it represents a table in the database.
     //    - Required for persistence frameworks (e.g., Hibernate) to map the class to a database table.
+    //    - The (name, id) index serves the keyset-paginated doctor directory; the specialty/period indexes serve
+    //      the doctor filter (DoctorSpecifications).
+    //    - Doctors, their availableTimes and slots are kept in the second-level cache (ehcache.xml): they are read on
+    //      nearly every request and change rarely. READ_WRITE: a write through JPA replaces the cached entry on commit.
 
     // 1. 'id' field:
     //    - Type: private Long
     //    - Description:
     //      - Represents the unique identifier for each doctor.
     //      - The @Id annotation marks it as the primary key.
-    //      - The @GeneratedValue(strategy = GenerationType.IDENTITY) annotation auto-generates the ID value when a new record is inserted into the database.
+    //      - Ids come from the pooled `doctor_seq` generator (a one-row table on MySQL) that hands out blocks of 50,
+    //        so inserts do not need the database-generated key back and Hibernate can send them as JDBC batches.
+    //        Migration V3 seeded it above the AUTO_INCREMENT ids of older databases.
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctor_seq")
+    @SequenceGenerator(name = "doctor_seq", sequenceName = "doctor_seq", allocationSize = 50)
     private Long id;
 
     // 2. 'name' field:
@@ -90,14 +120,47 @@ public class Doctor {
     //      - Represents the available times for the doctor in a list of time slots.
     //      - Each time slot is represented as a string (e.g., "09:00-10:00", "10:00-11:00").
     //      - The @ElementCollection annotation ensures that the list of time slots is stored as a separate collection in the database.
+    //      - @BatchSize: when several doctors are loaded without the entity graph, their slots are fetched
+    //        together (one query per 100 doctors) instead of one query per doctor.
 
     @ElementCollection
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(
             name = "doctor_available_times",
             joinColumns = @JoinColumn(name = "doctor_id", nullable = false)
     )
     private List<String> availableTimes;
 
+    // 7b. 'availableAm' / 'availablePm' fields:
+    //    - Type: private Boolean
+    //    - Description:
+    //      - Derived from the slots: the doctor has at least one slot starting before noon / at or after noon.
+    //      - Stored and indexed so the AM/PM doctor filter is a WHERE clause instead of parsing every slot string per request.
+    //      - Recomputed when availableTimes is set and before every insert/update; not part of the JSON.
+
+    @JsonIgnore
+    @Column(name = "has_am_slots")
+    private Boolean availableAm;
+
+    @JsonIgnore
+    @Column(name = "has_pm_slots")
+    private Boolean availablePm;
+
+    // 7c. 'slots' field:
+    //    - Type: private List<DoctorSlot>
+    //    - Description:
+    //      - The weekly schedule: one DoctorSlot per weekday and slot start. setAvailableTimes applies the same labels
+    //        to every weekday; setWeeklySchedule sets different slots per weekday.
+    //      - orphanRemoval deletes the rows of removed slots.
+    //      - Used by the availability index and the AM/PM flags; not part of the JSON.
+
+    @JsonIgnore
+    @OneToMany(mappedBy = "doctor", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    private List<DoctorSlot> slots = new ArrayList<>();
+
     @Min(0)
     @Max(60)
     @Column(name = "years_of_experience")
@@ -113,6 +176,19 @@ public class Doctor {
     @Column(name = "rating", precision = 2, scale = 1)
     private BigDecimal rating;
 
+    // 7d. 'nameTokens' field:
+    //    - Type: private Set<DoctorNameToken>
+    //    - Description:
+    //      - The words of the name, lower-cased and without accents (see NameTokens), one doctor_name_token row each.
+    //      - The name search is a prefix range scan on idx_doctor_name_token instead of a
+    //        `lower(name) LIKE '%term%'` scan of the whole table.
+    //      - Kept in sync by setName (words that stay are left alone); not part of the JSON.
+
+    @JsonIgnore
+    @OneToMany(mappedBy = "doctor", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
+    private Set<DoctorNameToken> nameTokens = new HashSet<>();
+
     // 8. Getters and Setters:
     //    - Standard getter and setter methods are provided for all fields: id, name, specialty, email, password, phone, and availableTimes.
 
@@ -160,14 +236,19 @@ public class Doctor {
 
     public void setName(@NotNull @Size(min = 3, max = 100) String name) {
         this.name = name;
+        for (String token : NameTokens.sync(nameTokens, DoctorNameToken::getToken, name)) {
+            nameTokens.add(new DoctorNameToken(this, token));
+        }
     }
 
     public void setSpecialty(@NotNull @Size(min = 3, max = 50) String specialty) {
         this.specialty = specialty;
     }
 
+    // Stored trimmed and lower-cased: the unique index on email then also rejects duplicates differing only in case,
+    // and lookups compare the column directly.
     public void setEmail(@NotNull @Email String email) {
-        this.email = email;
+        this.email = email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     public void setPassword(@NotNull @Size(min = 6) String password) {
@@ -179,7 +260,91 @@ public class Doctor {
     }
 
     public void setAvailableTimes(List<String> availableTimes) {
+        boolean unchanged = !slots.isEmpty() && this.availableTimes != null && availableTimes != null
+                && new ArrayList<>(this.availableTimes).equals(availableTimes);
         this.availableTimes = availableTimes;
+        if (unchanged) return; // keeps a per-weekday schedule set through setWeeklySchedule
+        Map<Integer, String> byMinute = labelsByMinute(availableTimes);
+        Map<Integer, String> wanted = new HashMap<>(); // key: weekday * MINUTES_PER_DAY + minute
+        for (DayOfWeek day : DayOfWeek.values()) {
+            byMinute.forEach((minute, label) -> wanted.put(day.getValue() * SlotTimes.MINUTES_PER_DAY + minute, label));
+        }
+        rebuildSlots(wanted);
+        refreshSlotPeriods();
+    }
+
+    public List<DoctorSlot> getSlots() {
+        return slots;
+    }
+
+    // Replaces the weekly schedule with per-weekday slot labels (weekdays missing from the map get no slots).
+    // availableTimes becomes the distinct labels of all weekdays, ordered by start time, for display.
+    public void setWeeklySchedule(Map<DayOfWeek, List<String>> schedule) {
+        Map<Integer, String> wanted = new HashMap<>();
+        Map<Integer, String> all = new TreeMap<>();
+        schedule.forEach((day, labels) -> labelsByMinute(labels).forEach((minute, label) -> {
+            wanted.put(day.getValue() * SlotTimes.MINUTES_PER_DAY + minute, label);
+            all.putIfAbsent(minute, label);
+        }));
+        this.availableTimes = new ArrayList<>(all.values());
+        rebuildSlots(wanted);
+        refreshSlotPeriods();
+    }
+
+    // Parsable labels by start minute, ordered; the first label wins when two share a start time.
+    private static Map<Integer, String> labelsByMinute(List<String> labels) {
+        Map<Integer, String> byMinute = new TreeMap<>();
+        if (labels != null) {
+            for (String label : labels) {
+                int minute = SlotTimes.startMinute(label);
+                if (minute >= 0) byMinute.putIfAbsent(minute, label);
+            }
+        }
+        return byMinute;
+    }
+
+    // Brings the typed slots in line with `wanted` (label by weekday * MINUTES_PER_DAY + minute). Existing rows are
+    // kept and updated rather than replaced: Hibernate flushes inserts before orphan deletes, so re-adding an
+    // unchanged slot would trip the (doctor_id, weekday, start_time) key.
+    private void rebuildSlots(Map<Integer, String> wanted) {
+        wanted = new HashMap<>(wanted);
+        Iterator<DoctorSlot> it = slots.iterator();
+        while (it.hasNext()) {
+            DoctorSlot slot = it.next();
+            String label = wanted.remove(slot.getWeekday() * SlotTimes.MINUTES_PER_DAY
+                    + SlotTimes.minuteOfDay(slot.getStartTime()));
+            if (label == null) {
+                it.remove();
+            } else {
+                slot.setLabel(label, SlotTimes.durationMinutes(label, DoctorSlot.DEFAULT_DURATION));
+            }
+        }
+        new TreeMap<>(wanted).forEach((key, label) -> {
+            int minute = key % SlotTimes.MINUTES_PER_DAY;
+            slots.add(new DoctorSlot(this, key / SlotTimes.MINUTES_PER_DAY, LocalTime.of(minute / 60, minute % 60),
+                    SlotTimes.durationMinutes(label, DoctorSlot.DEFAULT_DURATION), label));
+        });
+    }
+
+    public Boolean getAvailableAm() {
+        return availableAm;
+    }
+
+    public Boolean getAvailablePm() {
+        return availablePm;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void refreshSlotPeriods() {
+        boolean am = false;
+        boolean pm = false;
+        for (DoctorSlot slot : slots) {
+            if (slot.getStartTime().isBefore(LocalTime.NOON)) am = true;
+            else pm = true;
+        }
+        availableAm = am;
+        availablePm = pm;
     }
 
     public void setRating(@Min(0) @Max(5) BigDecimal rating) {
@@ -0,0 +1,74 @@
+package com.project.back_end.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Entity
+@Table(name = "doctor_name_token", indexes = @Index(name = "idx_doctor_name_token", columnList = "token, doctor_id"))
+@IdClass(DoctorNameToken.Key.class)
+public class DoctorNameToken {
+
+    // @Entity annotation:
+    //    - One word of a doctor's name, lower-cased and without accents (see NameTokens), keyed by (doctor_id, token).
+    //    - The name search runs `token LIKE 'word%'` on idx_doctor_name_token and reads doctor_id from the same index,
+    //      so finding doctors by name never scans the doctor table.
+    //    - Rows are created and removed through Doctor.setName.
+
+    // 1. 'doctor' field:
+    //    - Type: private Doctor
+    //    - Description:
+    //      - The doctor whose name contains the word; first half of the primary key.
+
+    @Id
+    @JsonIgnore
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false, foreignKey = @ForeignKey(name = "fk_doctor_name_token_doctor"))
+    private Doctor doctor;
+
+    // 2. 'token' field:
+    //    - Type: private String
+    //    - Description:
+    //      - The normalized word, at most NameTokens.MAX_LENGTH characters; second half of the primary key.
+
+    @Id
+    @Column(name = "token", length = 50, nullable = false)
+    private String token;
+
+    public DoctorNameToken() {
+    }
+
+    public DoctorNameToken(Doctor doctor, String token) {
+        this.doctor = doctor;
+        this.token = token;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    // Primary key class for @IdClass: the doctor's id and the token.
+    public static class Key implements Serializable {
+        private Long doctor;
+        private String token;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(doctor, k.doctor) && Objects.equals(token, k.token);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(doctor, token);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.project.back_end.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.LocalTime;
+
+@Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "doctor_slot", uniqueConstraints = @UniqueConstraint(
+        name = "uk_doctor_slot_doctor_weekday_start",
+        columnNames = {"doctor_id", "weekday", "start_time"}))
+public class DoctorSlot {
+
+    // @Entity annotation:
+    //    - One bookable slot of a doctor's weekly schedule, in typed form.
+    //    - Doctor.availableTimes keeps the free-form labels the frontend shows ("09:00-10:00", "9:00 AM", ...);
+    //      these rows are derived from them whenever they are set, so availability and filtering compare
+    //      LocalTime/int values instead of parsing or formatting strings.
+    //    - The unique key on (doctor_id, weekday, start_time) doubles as the lookup index.
+    //    - Second-level cached together with Doctor.slots.
+
+    // 1. 'id' field:
+    //    - Type: private Long
+    //    - Description:
+    //      - Primary key, from the pooled `doctor_slot_seq` generator like the other entities.
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctor_slot_seq")
+    @SequenceGenerator(name = "doctor_slot_seq", sequenceName = "doctor_slot_seq", allocationSize = 50)
+    private Long id;
+
+    // 2. 'doctor' field:
+    //    - Type: private Doctor
+    //    - Description:
+    //      - The doctor owning the slot; rows are created and removed through Doctor.slots.
+
+    @JsonIgnore
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Doctor doctor;
+
+    // 3. 'weekday' field:
+    //    - Type: private int
+    //    - Description:
+    //      - ISO day of week the slot applies to: 1 = Monday .. 7 = Sunday (DayOfWeek.getValue()).
+
+    @Column(nullable = false)
+    private int weekday;
+
+    // 4. 'startTime' / 'durationMinutes' fields:
+    //    - Description:
+    //      - Start of the slot and its length; the length comes from a "start-end" label, otherwise DEFAULT_DURATION.
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    @Column(name = "duration_minutes", nullable = false)
+    private int durationMinutes;
+
+    // 5. 'label' field:
+    //    - Type: private String
+    //    - Description:
+    //      - The availableTimes entry the slot was derived from, returned as-is by the availability endpoint.
+
+    @Column(length = 50)
+    private String label;
+
+    public static final int DEFAULT_DURATION = 60;
+
+    public DoctorSlot() {
+    }
+
+    public DoctorSlot(Doctor doctor, int weekday, LocalTime startTime, int durationMinutes, String label) {
+        this.doctor = doctor;
+        this.weekday = weekday;
+        this.startTime = startTime;
+        this.durationMinutes = durationMinutes;
+        this.label = label;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public int getWeekday() {
+        return weekday;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    // Updates the display label (and the length derived from it) of a slot whose start did not change.
+    public void setLabel(String label, int durationMinutes) {
+        this.label = label;
+        this.durationMinutes = durationMinutes;
+    }
+}
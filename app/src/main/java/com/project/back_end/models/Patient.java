@@ -1,12 +1,22 @@
 package com.project.back_end.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.project.back_end.services.NameTokens;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 
+import org.hibernate.annotations.BatchSize;
+
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_patient_email", columnNames = "email"),
+        @UniqueConstraint(name = "uk_patient_phone", columnNames = "phone")
+})
 public class Patient {
     // @Entity annotation:
     //    - Marks the class as a JPA entity, meaning it represents a table in the database.
@@ -18,10 +28,13 @@ public class Patient {
     //    - Description:
     //      - Represents the unique identifier for each patient.
     //      - The @Id annotation marks it as the primary key.
-    //      - The @GeneratedValue(strategy = GenerationType.IDENTITY) annotation auto-generates the ID value when a new record is inserted into the database.
+    //      - Ids come from the pooled `patient_seq` generator (a one-row table on MySQL) that hands out blocks of 50,
+    //        so inserts do not need the database-generated key back and Hibernate can send them as JDBC batches.
+    //        Migration V3 seeded it above the AUTO_INCREMENT ids of older databases.
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_seq")
+    @SequenceGenerator(name = "patient_seq", sequenceName = "patient_seq", allocationSize = 50)
     private Long id;
 
     // 2. 'name' field:
@@ -37,6 +50,19 @@ public class Patient {
     private String name;
 
 
+    // 2b. 'nameTokens' field:
+    //    - Type: private Set<PatientNameToken>
+    //    - Description:
+    //      - The words of the name, lower-cased and without accents (see NameTokens), one patient_name_token row each.
+    //      - The name search is a prefix range scan on idx_patient_name_token instead of a
+    //        `lower(name) LIKE '%term%'` scan of the whole table.
+    //      - Kept in sync by setName (words that stay are left alone); not part of the JSON.
+
+    @JsonIgnore
+    @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
+    private Set<PatientNameToken> nameTokens = new HashSet<>();
+
     // 3. 'email' field:
     //    - Type: private String
     //    - Description:
@@ -112,7 +138,7 @@ public class Patient {
     public Patient(Long id, String name, String email, String password, String phone, String address, LocalDate dateOfBirth, String emergencyContact, String emergencyContactPhone, String insuranceProvider, Boolean internalFlag) {
         this.id = id;
         this.name = name;
-        this.email = email;
+        setEmail(email);
         this.password = password;
         this.phone = phone;
         this.address = address;
@@ -123,7 +149,7 @@ public class Patient {
         this.internalFlag = internalFlag;
     }
 
-    public long getId() {
+    public Long getId() {
         return id;
     }
 
@@ -174,10 +200,15 @@ public class Patient {
 
     public void setName(@NotNull @Size(min = 3, max = 100) String name) {
         this.name = name;
+        for (String token : NameTokens.sync(nameTokens, PatientNameToken::getToken, name)) {
+            nameTokens.add(new PatientNameToken(this, token));
+        }
     }
 
+    // Stored trimmed and lower-cased: the unique index on email then also rejects duplicates differing only in case,
+    // and lookups compare the column directly.
     public void setEmail(@NotNull @Email String email) {
-        this.email = email;
+        this.email = email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     public void setPassword(@NotNull @Size(min = 6) String password) {
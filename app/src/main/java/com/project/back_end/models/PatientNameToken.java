@@ -0,0 +1,74 @@
+package com.project.back_end.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Entity
+@Table(name = "patient_name_token", indexes = @Index(name = "idx_patient_name_token", columnList = "token, patient_id"))
+@IdClass(PatientNameToken.Key.class)
+public class PatientNameToken {
+
+    // @Entity annotation:
+    //    - One word of a patient's name, lower-cased and without accents (see NameTokens), keyed by (patient_id, token).
+    //    - The name search runs `token LIKE 'word%'` on idx_patient_name_token and reads patient_id from the same index,
+    //      so finding patients by name never scans the patient table.
+    //    - Rows are created and removed through Patient.setName.
+
+    // 1. 'patient' field:
+    //    - Type: private Patient
+    //    - Description:
+    //      - The patient whose name contains the word; first half of the primary key.
+
+    @Id
+    @JsonIgnore
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", nullable = false, foreignKey = @ForeignKey(name = "fk_patient_name_token_patient"))
+    private Patient patient;
+
+    // 2. 'token' field:
+    //    - Type: private String
+    //    - Description:
+    //      - The normalized word, at most NameTokens.MAX_LENGTH characters; second half of the primary key.
+
+    @Id
+    @Column(name = "token", length = 50, nullable = false)
+    private String token;
+
+    public PatientNameToken() {
+    }
+
+    public PatientNameToken(Patient patient, String token) {
+        this.patient = patient;
+        this.token = token;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    // Primary key class for @IdClass: the patient's id and the token.
+    public static class Key implements Serializable {
+        private Long patient;
+        private String token;
+
+        public Key() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(patient, k.patient) && Objects.equals(token, k.token);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(patient, token);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.project.back_end.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Entity
+@Table(name = "schedule_exception", indexes = @Index(
+        name = "idx_schedule_exception_doctor_date",
+        columnList = "doctor_id, exception_date"))
+public class ScheduleException {
+
+    // @Entity annotation:
+    //    - A date on which a doctor's weekly schedule (DoctorSlot rows) does not apply in full:
+    //      a day off or vacation (no times), or a blocked window such as the afternoon of a half day.
+    //    - Slots of that date that overlap the window are left out when the day is materialized.
+    //    - Indexed on (doctor_id, exception_date) so the exceptions of a date range are one index range scan.
+
+    // 1. 'id' field:
+    //    - Type: private Long
+    //    - Description:
+    //      - Primary key, from the pooled `schedule_exception_seq` generator like the other entities.
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "schedule_exception_seq")
+    @SequenceGenerator(name = "schedule_exception_seq", sequenceName = "schedule_exception_seq", allocationSize = 50)
+    private Long id;
+
+    // 2. 'doctor' field:
+    //    - Type: private Doctor
+    //    - Description:
+    //      - The doctor the exception applies to; set from the caller's token, not from the request body.
+
+    @JsonIgnore
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Doctor doctor;
+
+    // 3. 'date' field:
+    //    - Type: private LocalDate
+    //    - Description:
+    //      - The calendar date the exception applies to.
+
+    @NotNull(message = "Date is required")
+    @Column(name = "exception_date", nullable = false)
+    private LocalDate date;
+
+    // 4. 'startTime' / 'endTime' fields:
+    //    - Type: private LocalTime
+    //    - Description:
+    //      - The blocked window [startTime, endTime). Both null: the whole day is off.
+    //      - Only startTime: blocked from then to the end of the day; only endTime: from the start of the day until then.
+
+    @Column(name = "start_time")
+    private LocalTime startTime;
+
+    @Column(name = "end_time")
+    private LocalTime endTime;
+
+    // 5. 'reason' field:
+    //    - Type: private String
+    //    - Description:
+    //      - Free text shown to staff ("Vacation", "Conference", ...); optional.
+
+    @Size(max = 100)
+    @Column(length = 100)
+    private String reason;
+
+    public ScheduleException() {
+    }
+
+    public ScheduleException(Doctor doctor, LocalDate date, LocalTime startTime, LocalTime endTime, String reason) {
+        this.doctor = doctor;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.reason = reason;
+    }
+
+    // 6. 'blocks' method:
+    //    - Whether a slot of `durationMinutes` starting at `startMinute` (minute of day) overlaps the blocked window.
+
+    public boolean blocks(int startMinute, int durationMinutes) {
+        int from = startTime != null ? startTime.getHour() * 60 + startTime.getMinute() : 0;
+        int to = endTime != null ? endTime.getHour() * 60 + endTime.getMinute() : 24 * 60;
+        return startMinute < to && startMinute + Math.max(1, durationMinutes) > from;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public void setDoctor(Doctor doctor) {
+        this.doctor = doctor;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
@@ -2,8 +2,10 @@ package com.project.back_end.repo;
 
 import com.project.back_end.models.Admin;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -32,6 +34,14 @@ public interface AdminRepository extends JpaRepository<Admin, Long> {
     Optional<Admin> findByEmail(String email);
     boolean existsByEmail(String email);
 
+    //    - **findIdsByUsernameOrEmail**:
+    //      - Resolves the ids of admins whose username or email equals the subject (admin tokens carry the username).
+    //      - Used by PrincipalRegistry to map a token subject to an admin id.
+    //      - Return type: List<Long>
+    //      - Parameters: String subject
+    @Query("SELECT a.id FROM Admin a WHERE a.username = :subject OR a.email = :subject ORDER BY a.id")
+    List<Long> findIdsByUsernameOrEmail(String subject);
+
 
     // Example: public Admin findByUsername(String username);
 
@@ -1,14 +1,20 @@
 package com.project.back_end.repo;
 
+import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
@@ -22,37 +28,74 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
     // 2. Custom Query Methods:
 
-    //    - **findByDoctorIdAndAppointmentTimeBetween**:
-    //      - This method retrieves a list of appointments for a specific doctor within a given time range.
-    //      - The doctor’s available times are eagerly fetched to avoid lazy loading.
-    //      - Return type: List<Appointment>
-    //      - Parameters: Long doctorId, LocalDateTime start, LocalDateTime end
-    //      - It uses a LEFT JOIN to fetch the doctor’s available times along with the appointments.
-    @Query("""
-      SELECT distinct a
+    //    - **APPOINTMENT_DTO**:
+    //      - Select clause shared by the read-only appointment listings below: a constructor expression that builds
+    //        AppointmentDTO straight from the joined columns, in one query. No managed entities, proxies or dirty
+    //        checking; the flattened doctor/patient fields are filled from the joins.
+    String APPOINTMENT_DTO = """
+      select new com.project.back_end.DTO.AppointmentDTO(
+             a.status, a.appointmentTime, p.address, p.phone, p.email, p.name, p.id, d.name, d.id, a.id)
       from Appointment a
-      join fetch a.doctor d
-      left join fetch d.availableTimes at
+      join a.doctor d
+      join a.patient p
+      """;
+
+    //    - **findDtosByDoctorIdAndAppointmentTimeBetween**:
+    //      - This method retrieves a list of appointments for a specific doctor within a given time range, as DTOs.
+    //      - Return type: List<AppointmentDTO>
+    //      - Parameters: Long doctorId, LocalDateTime start, LocalDateTime end
+    @Query(APPOINTMENT_DTO + """
       where d.id = :doctorId
         and a.appointmentTime between :start and :end
+      order by a.appointmentTime asc
       """)
-    public List<Appointment> findByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
+    public List<AppointmentDTO> findDtosByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
 
-    //    - **findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween**:
-    //      - This method retrieves appointments for a specific doctor and patient name (ignoring case) within a given time range.
-    //      - It performs a LEFT JOIN to fetch both the doctor and patient details along with the appointment times.
-    //      - Return type: List<Appointment>
-    //      - Parameters: Long doctorId, String patientName, LocalDateTime start, LocalDateTime end
+    //    - **findAppointmentTimesByDoctorId**:
+    //      - Returns only the start times of a doctor's appointments in the half-open window [start, end).
+    //      - Used by DoctorAvailabilityIndex to build the booked-slot bitmap without loading entities.
+    //      - Return type: List<LocalDateTime>
+    //      - Parameters: Long doctorId, LocalDateTime start, LocalDateTime end
     @Query("""
-      select distinct a
+      select a.appointmentTime
       from Appointment a
-      left join fetch a.doctor d
-      left join fetch a.patient p
+      where a.doctor.id = :doctorId
+        and a.appointmentTime >= :start
+        and a.appointmentTime < :end
+      """)
+    public List<LocalDateTime> findAppointmentTimesByDoctorId(Long doctorId, LocalDateTime start, LocalDateTime end);
+
+    //    - **existsByDoctor_IdAndAppointmentTime**:
+    //      - Whether the slot of the doctor at that start time is booked; a lookup on uk_appointment_doctor_start.
+    //      - Used by DoctorAvailabilityIndex to confirm a booked bit before turning a request away.
+    public boolean existsByDoctor_IdAndAppointmentTime(Long doctorId, LocalDateTime appointmentTime);
+
+    //    - **findAppointmentTimesByDoctorIds**:
+    //      - Same as above for many doctors at once: one row per appointment of any of the doctors in [start, end).
+    //      - Used by DoctorAvailabilityIndex to build the booked-slot bitmaps of many doctor-days with one query.
+    //      - Return type: List<Object[]> ({Long doctorId, LocalDateTime appointmentTime})
+    //      - Parameters: Collection<Long> doctorIds, LocalDateTime start, LocalDateTime end
+    @Query("""
+      select a.doctor.id, a.appointmentTime
+      from Appointment a
+      where a.doctor.id in :doctorIds
+        and a.appointmentTime >= :start
+        and a.appointmentTime < :end
+      """)
+    public List<Object[]> findAppointmentTimesByDoctorIds(Collection<Long> doctorIds, LocalDateTime start, LocalDateTime end);
+
+    //    - **findDtosByDoctorIdAndPatientNameTokenAndAppointmentTimeBetween**:
+    //      - This method retrieves appointments for a specific doctor within a given time range whose patient has a name token matching the pattern, as DTOs.
+    //      - The pattern is a word prefix such as `nun%` (see NameTokens.prefixPattern), served by idx_patient_name_token.
+    //      - Return type: List<AppointmentDTO>
+    //      - Parameters: Long doctorId, String tokenPattern, LocalDateTime start, LocalDateTime end
+    @Query(APPOINTMENT_DTO + """
       where d.id = :doctorId
-        and lower(p.name) like lower(concat('%', :patientName, '%'))
         and a.appointmentTime between :start and :end
+        and p.id in (select t.patient.id from PatientNameToken t where t.token like :tokenPattern)
+      order by a.appointmentTime asc
       """)
-    public List<Appointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(Long doctorId, String patientName, LocalDateTime start, LocalDateTime end);
+    public List<AppointmentDTO> findDtosByDoctorIdAndPatientNameTokenAndAppointmentTimeBetween(Long doctorId, String tokenPattern, LocalDateTime start, LocalDateTime end);
 
     //    - **deleteAllByDoctorId**:
     //      - This method deletes all appointments associated with a particular doctor.
@@ -68,48 +111,65 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     @Transactional
     int deleteByIdAndPatient_Id(Long id, Long patientId);
 
-    //    - **findByPatientId**:
-    //      - This method retrieves all appointments for a specific patient.
-    //      - Return type: List<Appointment>
+    //    - **findDtosByPatientId**:
+    //      - This method retrieves all appointments for a specific patient as DTOs, ordered by the appointment time.
+    //      - Return type: List<AppointmentDTO>
+    //      - Parameters: Long patientId
+    @Query(APPOINTMENT_DTO + """
+      where p.id = :patientId
+      order by a.appointmentTime asc
+      """)
+    public List<AppointmentDTO> findDtosByPatientId(Long patientId);
+
+    //    - **streamDtosByPatientId**:
+    //      - Same rows as findDtosByPatientId, read forward-only for the streaming export instead of as a list.
+    //      - The fetch size makes MySQL (useCursorFetch=true) return them from a server-side cursor 500 at a time,
+    //        so neither the driver nor the application holds the whole history. Must be consumed inside a transaction
+    //        and closed.
+    //      - Return type: Stream<AppointmentDTO>
     //      - Parameters: Long patientId
-    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId ORDER BY a.appointmentTime ASC")
-    public List<Appointment> findByPatientId(Long patientId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(APPOINTMENT_DTO + """
+      where p.id = :patientId
+      order by a.appointmentTime asc
+      """)
+    public Stream<AppointmentDTO> streamDtosByPatientId(Long patientId);
 
-    //    - **findByPatient_IdAndStatusOrderByAppointmentTimeAsc**:
-    //      - This method retrieves all appointments for a specific patient with a given status, ordered by the appointment time.
-    //      - Return type: List<Appointment>
+    //    - **findDtosByPatientIdAndStatus**:
+    //      - This method retrieves all appointments for a specific patient with a given status as DTOs, ordered by the appointment time.
+    //      - Served by idx_appointment_patient_status_start (equality on patient and status, ordered by start time).
+    //      - Return type: List<AppointmentDTO>
     //      - Parameters: Long patientId, int status
-    public List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+    @Query(APPOINTMENT_DTO + """
+      where a.patient.id = :patientId
+        and a.status = :status
+      order by a.appointmentTime asc
+      """)
+    public List<AppointmentDTO> findDtosByPatientIdAndStatus(Long patientId, int status);
 
     //    - **filterByDoctorNameAndPatientId**:
-    //      - This method retrieves appointments based on a doctor’s name (using a LIKE query) and the patient’s ID.
-    //      - Return type: List<Appointment>
-    //      - Parameters: String doctorName, Long patientId
-    @Query("""
-      SELECT a
-      from Appointment a
-      join a.doctor d
-      where a.patient.id = :patientId
-        and lower(d.name) like lower(concat('%', :doctorName, '%'))
-    """)
-    public List<Appointment> filterByDoctorNameAndPatientId(String doctorName, Long patientId);
-    public List<Appointment> findByDoctor_NameContainingIgnoreCaseAndPatient_Id(String doctorName, Long patientId);
+    //      - This method retrieves the patient's appointments, as DTOs, with doctors that have a name token matching the pattern.
+    //      - The pattern is a word prefix such as `nun%` (see NameTokens.prefixPattern), served by idx_doctor_name_token.
+    //      - Return type: List<AppointmentDTO>
+    //      - Parameters: String tokenPattern, Long patientId
+    @Query(APPOINTMENT_DTO + """
+      where p.id = :patientId
+        and d.id in (select t.doctor.id from DoctorNameToken t where t.token like :tokenPattern)
+      order by a.appointmentTime asc
+      """)
+    public List<AppointmentDTO> filterByDoctorNameAndPatientId(String tokenPattern, Long patientId);
 
     //    - **filterByDoctorNameAndPatientIdAndStatus**:
-    //      - This method retrieves appointments based on a doctor’s name (using a LIKE query), patient’s ID, and a specific appointment status.
-    //      - Return type: List<Appointment>
-    //      - Parameters: String doctorName, Long patientId, int status
-    @Query("""
-    select a
-    from Appointment a
-    join a.doctor d
-    where a.patient.id = :patientId
-      and a.status = :status
-      and lower(d.name) like lower(concat('%', :doctorName, '%'))
-    order by a.appointmentTime asc
-    """)
-    public List<Appointment> filterByDoctorNameAndPatientIdAndStatus(String doctorName, Long patientId, int status);
-    public List<Appointment> findByDoctor_NameContainingIgnoreCaseAndPatient_IdAndStatusOrderByAppointmentTimeAsc(String doctorName, Long patientId, int status);
+    //      - Same as filterByDoctorNameAndPatientId, restricted to one appointment status.
+    //      - Return type: List<AppointmentDTO>
+    //      - Parameters: String tokenPattern, Long patientId, int status
+    @Query(APPOINTMENT_DTO + """
+      where a.patient.id = :patientId
+        and a.status = :status
+        and d.id in (select t.doctor.id from DoctorNameToken t where t.token like :tokenPattern)
+      order by a.appointmentTime asc
+      """)
+    public List<AppointmentDTO> filterByDoctorNameAndPatientIdAndStatus(String tokenPattern, Long patientId, int status);
 
     //    - **updateStatus**:
     //      - This method updates the status of a specific appointment based on its ID.
@@ -1,21 +1,51 @@
 package com.project.back_end.repo;
 
+import com.project.back_end.DTO.DoctorSummary;
 import com.project.back_end.models.Doctor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, JpaSpecificationExecutor<Doctor> {
     // 1. Extend JpaRepository:
     //    - The repository extends JpaRepository<Doctor, Long>, which gives it basic CRUD functionality.
     //    - This allows the repository to perform operations like save, delete, update, and find without needing to implement these methods manually.
     //    - JpaRepository also includes features like pagination and sorting.
 
-    // Example: public interface DoctorRepository extends JpaRepository<Doctor, Long> {}
+    // Example: public interface DoctorRepository extends JpaRepository<Doctor, Long>, JpaSpecificationExecutor<Doctor> {}
+
+    //    - **findAll** (override):
+    //      - Every caller of findAll reads the availableTimes of each doctor, so the collection is fetched
+    //        in the same query (entity graph) instead of one doctor_available_times query per doctor.
+    //      - The same graph is applied to the specialty finder below.
+    //      - Cacheable: the result (doctor ids) is kept in the query cache and the doctors and their times come from
+    //        the second-level cache, so a repeated directory read does not reach the database. Any write to doctor or
+    //        doctor_available_times through JPA invalidates the cached result.
+    @Override
+    @EntityGraph(attributePaths = "availableTimes")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    public List<Doctor> findAll();
+
+    //    - **findAll(Specification, Sort)** (override):
+    //      - Runs the composed doctor filter (see DoctorSpecifications), fetching availableTimes in the same query.
+    //      - Cacheable per filter combination, like findAll.
+    @Override
+    @EntityGraph(attributePaths = "availableTimes")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    public List<Doctor> findAll(Specification<Doctor> spec, Sort sort);
 
     // 2. Custom Query Methods:
 
@@ -23,38 +53,115 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     //      - This method retrieves a Doctor by their email.
     //      - Return type: Doctor
     //      - Parameters: String email
+    //      - Emails are stored trimmed and lower-cased (Doctor.setEmail), so the case-insensitive variant
+    //        normalizes the argument instead of the column and stays a lookup on uk_doctor_email.
     public Optional<Doctor> findByEmail(String email);
+    @Query("SELECT d FROM Doctor d WHERE d.email = lower(trim(:email))")
     public Optional<Doctor> findByEmailIgnoreCase(String email);
 
     //    - **findByNameLike**:
-    //      - This method retrieves a list of Doctors whose name contains the provided search string (case-sensitive).
-    //      - The `CONCAT('%', :name, '%')` is used to create a pattern for partial matching.
-    //      - Return type: List<Doctor>
-    //      - Parameters: String name
-    @Query("SELECT d FROM Doctor d WHERE d.name LIKE CONCAT('%', :name, '%')")
-    public List<Doctor> findByNameLike(String name);
-
-    public List<Doctor> findByNameContaining(String name);              // %name%
-    public List<Doctor> findByNameContainingOrderByNameAsc(String name);
-
-    //    - **findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase**:
-    //      - This method retrieves a list of Doctors where the name contains the search string (case-insensitive) and the specialty matches exactly (case-insensitive).
-    //      - It combines both fields for a more specific search.
+    //      - This method retrieves the Doctors with a name token matching the given LIKE pattern, ordered by name.
+    //      - The pattern is a lower-cased, accent-free word prefix such as `nun%` (see NameTokens.prefixPattern);
+    //        it runs on idx_doctor_name_token instead of a `%name%` scan of doctor.
+    //      - availableTimes are left lazy (loaded in batches when read).
     //      - Return type: List<Doctor>
-    //      - Parameters: String name, String specialty
-    public List<Doctor> findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(String name, String specialty);
+    //      - Parameters: String tokenPattern
+    @Query("""
+      SELECT d FROM Doctor d
+      WHERE d.id IN (SELECT t.doctor.id FROM DoctorNameToken t WHERE t.token LIKE :tokenPattern)
+      ORDER BY d.name ASC, d.id ASC
+      """)
+    public List<Doctor> findByNameLike(String tokenPattern);
 
     //    - **findBySpecialtyIgnoreCase**:
     //      - This method retrieves a list of Doctors with the specified specialty, ignoring case sensitivity.
     //      - Return type: List<Doctor>
     //      - Parameters: String specialty
+    @EntityGraph(attributePaths = "availableTimes")
     public List<Doctor> findBySpecialtyIgnoreCase(String specialty);
     public List<Doctor> findBySpecialtyIgnoreCaseOrderByNameAsc(String specialty);
 
     boolean existsByEmail(String email);
 
+    //    - **findIdByEmailIgnoreCase**:
+    //      - Resolves only the id of the doctor with the given email (case-insensitive), without loading the entity.
+    //      - Used by PrincipalRegistry to map a token subject to a doctor id.
+    //      - Return type: Optional<Long>
+    //      - Parameters: String email
+    @Query("SELECT d.id FROM Doctor d WHERE d.email = lower(trim(:email))")
+    public Optional<Long> findIdByEmailIgnoreCase(String email);
+
+    //    - **findExistingEmails**:
+    //      - Bulk duplicate check for the import pipeline: returns which of the given emails (lower-cased) are taken.
+    //      - Served by uk_doctor_email.
+    //      - Return type: List<String>
+    //      - Parameters: Collection<String> emails
+    @Query("SELECT d.email FROM Doctor d WHERE d.email IN :emails")
+    public List<String> findExistingEmails(Collection<String> emails);
+
+    //    - **findDirectoryFirstPage / findDirectoryPageAfter**:
+    //      - Keyset pagination for the doctor directory, ordered by (name, id) and backed by idx_doctor_name_id.
+    //      - The "after" variant seeks past the last (name, id) of the previous page instead of using an OFFSET.
+    //      - Rows are projected straight into DoctorSummary; availableTimes come from findAvailableTimesByDoctorIds.
+    //      - Both pages and the times are cacheable (query cache), invalidated by any write to their tables.
+    //      - Return type: List<DoctorSummary>
+    //      - Parameters: String name, Long id (position of the previous page's last row), Limit limit
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+      SELECT new com.project.back_end.DTO.DoctorSummary(
+             d.id, d.name, d.specialty, d.email, d.phone, d.clinicAddress, d.yearsOfExperience, d.rating)
+      FROM Doctor d
+      ORDER BY d.name ASC, d.id ASC
+      """)
+    public List<DoctorSummary> findDirectoryFirstPage(Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+      SELECT new com.project.back_end.DTO.DoctorSummary(
+             d.id, d.name, d.specialty, d.email, d.phone, d.clinicAddress, d.yearsOfExperience, d.rating)
+      FROM Doctor d
+      WHERE d.name > :name OR (d.name = :name AND d.id > :id)
+      ORDER BY d.name ASC, d.id ASC
+      """)
+    public List<DoctorSummary> findDirectoryPageAfter(String name, Long id, Limit limit);
+
+    //    - **findAvailableTimesByDoctorIds**:
+    //      - Loads the availableTimes of many doctors in a single query (one row per doctor and slot).
+    //      - Return type: List<Object[]> ({Long doctorId, String slot})
+    //      - Parameters: Collection<Long> doctorIds
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT d.id, t FROM Doctor d JOIN d.availableTimes t WHERE d.id IN :doctorIds")
+    public List<Object[]> findAvailableTimesByDoctorIds(Collection<Long> doctorIds);
+
+    //    - **findExistingIds**:
+    //      - Which of the given ids belong to a doctor, without loading the entities.
+    //      - Return type: List<Long>
+    //      - Parameters: Collection<Long> ids
+    @Query("SELECT d.id FROM Doctor d WHERE d.id IN :ids")
+    public List<Long> findExistingIds(Collection<Long> ids);
+
+    //    - **findIdAndNameBySpecialty**:
+    //      - Ids and names of the doctors of a specialty (same matching as the doctor filter), without loading entities.
+    //      - Return type: List<Object[]> ({Long id, String name})
+    //      - Parameters: String specialty
+    @Query("SELECT d.id, d.name FROM Doctor d WHERE d.specialty = :specialty ORDER BY d.id")
+    public List<Object[]> findIdAndNameBySpecialty(String specialty);
+
+    //    - **findIdsWithoutSlots**:
+    //      - Ids of doctors that have availableTimes but no DoctorSlot rows yet (saved before the slot table existed).
+    //      - Return type: List<Long>
+    //      - Parameters: none
+    @Query("SELECT d.id FROM Doctor d WHERE d.availableTimes IS NOT EMPTY AND d.slots IS EMPTY ORDER BY d.id")
+    public List<Long> findIdsWithoutSlots();
+
+    //    - **findIdsWithoutNameTokens**:
+    //      - Ids of doctors whose name has no tokens yet (saved before doctor_name_token existed).
+    //      - Return type: List<Long>
+    //      - Parameters: none
+    @Query("SELECT d.id FROM Doctor d WHERE d.nameTokens IS EMPTY ORDER BY d.id")
+    public List<Long> findIdsWithoutNameTokens();
+
     // 3. @Repository annotation:
     //    - The @Repository annotation marks this interface as a Spring Data JPA repository.
     //    - Spring Data JPA automatically implements this repository, providing the necessary CRUD functionality and custom queries defined in the interface.
-
 }
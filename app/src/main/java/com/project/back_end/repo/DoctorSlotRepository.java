@@ -0,0 +1,43 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.DoctorSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DoctorSlotRepository extends JpaRepository<DoctorSlot, Long> {
+
+    // 1. Extend JpaRepository:
+    //    - Typed weekly slots of the doctors (see DoctorSlot); rows are written through Doctor.slots.
+
+    // 2. Custom Query Methods:
+
+    //    - **findScheduleByDoctorId**:
+    //      - Loads the weekly schedule of a doctor without loading the Doctor entity.
+    //      - Served by the (doctor_id, weekday, start_time) unique index.
+    //      - Return type: List<Object[]> ({int weekday, LocalTime startTime, int durationMinutes, String label})
+    //      - Parameters: Long doctorId
+    @Query("""
+      SELECT s.weekday, s.startTime, s.durationMinutes, s.label
+      FROM DoctorSlot s
+      WHERE s.doctor.id = :doctorId
+      ORDER BY s.weekday, s.startTime
+      """)
+    public List<Object[]> findScheduleByDoctorId(Long doctorId);
+
+    //    - **findScheduleByDoctorIds**:
+    //      - The weekly schedules of many doctors in one query; same columns as above plus the doctor id last.
+    //      - Return type: List<Object[]> ({int weekday, LocalTime startTime, int durationMinutes, String label, Long doctorId})
+    //      - Parameters: Collection<Long> doctorIds
+    @Query("""
+      SELECT s.weekday, s.startTime, s.durationMinutes, s.label, s.doctor.id
+      FROM DoctorSlot s
+      WHERE s.doctor.id IN :doctorIds
+      ORDER BY s.doctor.id, s.weekday, s.startTime
+      """)
+    public List<Object[]> findScheduleByDoctorIds(Collection<Long> doctorIds);
+}
@@ -0,0 +1,61 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.DoctorNameToken;
+import com.project.back_end.services.NameTokens;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public final class DoctorSpecifications {
+
+    // Composable predicates for the doctor filter (name, specialty, AM/PM).
+    // Each filter that is absent contributes no predicate, so one query covers every combination and the
+    // database returns only the matching rows.
+    // - name: every word of the search is a prefix of a word of the name, ignoring case and accents. Each word is
+    //   an `id IN (... token LIKE 'word%')` range scan of idx_doctor_name_token (see NameTokens), not a scan of doctor.
+    // - specialty: plain equality, so idx_doctor_specialty_* can be used (MySQL's default collation already
+    //   compares case-insensitively).
+    // - period: the stored has_am_slots / has_pm_slots flags of Doctor.
+
+    private DoctorSpecifications() {
+    }
+
+    public static Specification<Doctor> filter(String name, String specialty, String period) {
+        return Specification.where(nameMatches(name))
+                .and(specialtyIs(specialty))
+                .and(availableIn(period));
+    }
+
+    // A search without any word characters (e.g. "--") matches no doctor.
+    public static Specification<Doctor> nameMatches(String name) {
+        if (name == null || name.isBlank()) return null;
+        List<String> terms = NameTokens.tokens(name);
+        return (root, query, cb) -> {
+            if (terms.isEmpty()) return cb.disjunction();
+            Predicate[] predicates = new Predicate[terms.size()];
+            for (int i = 0; i < predicates.length; i++) {
+                Subquery<Long> ids = query.subquery(Long.class);
+                Root<DoctorNameToken> t = ids.from(DoctorNameToken.class);
+                ids.select(t.get("doctor").get("id")).where(cb.like(t.get("token"), terms.get(i) + "%"));
+                predicates[i] = root.get("id").in(ids);
+            }
+            return cb.and(predicates);
+        };
+    }
+
+    public static Specification<Doctor> specialtyIs(String specialty) {
+        if (specialty == null || specialty.isBlank()) return null;
+        return (root, query, cb) -> cb.equal(root.get("specialty"), specialty.trim());
+    }
+
+    // "AM" selects doctors with a morning slot; any other period selects doctors with an afternoon slot.
+    public static Specification<Doctor> availableIn(String period) {
+        if (period == null || period.isBlank()) return null;
+        String flag = "AM".equalsIgnoreCase(period.trim()) ? "availableAm" : "availablePm";
+        return (root, query, cb) -> cb.isTrue(root.get(flag));
+    }
+}
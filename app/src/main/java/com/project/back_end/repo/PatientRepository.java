@@ -2,8 +2,11 @@ package com.project.back_end.repo;
 
 import com.project.back_end.models.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -21,7 +24,10 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     //      - This method retrieves a Patient by their email address.
     //      - Return type: Patient
     //      - Parameters: String email
+    //      - Emails are stored trimmed and lower-cased (Patient.setEmail), so the case-insensitive variant
+    //        normalizes the argument instead of the column and stays a lookup on uk_patient_email.
     public Optional<Patient> findByEmail(String email);
+    @Query("SELECT p FROM Patient p WHERE p.email = lower(trim(:email))")
     public Optional<Patient> findByEmailIgnoreCase(String email);
 
     //    - **findByEmailOrPhone**:
@@ -34,8 +40,34 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     boolean existsByEmail(String email);
     boolean existsByPhone(String phone);
 
+    //    - **findIdByEmailIgnoreCase**:
+    //      - Resolves only the id of the patient with the given email (case-insensitive), without loading the entity.
+    //      - Used by PrincipalRegistry to map a token subject to a patient id.
+    //      - Return type: Optional<Long>
+    //      - Parameters: String email
+    @Query("SELECT p.id FROM Patient p WHERE p.email = lower(trim(:email))")
+    public Optional<Long> findIdByEmailIgnoreCase(String email);
+
+    //    - **findExistingEmails / findExistingPhones**:
+    //      - Bulk duplicate check for the import pipeline: returns which of the given emails (lower-cased) or phones are taken.
+    //      - One query per import chunk instead of one validatePatient call per row; the IN lists are served by
+    //        uk_patient_email and uk_patient_phone.
+    //      - Return type: List<String>
+    //      - Parameters: Collection<String> emails / phones
+    @Query("SELECT p.email FROM Patient p WHERE p.email IN :emails")
+    public List<String> findExistingEmails(Collection<String> emails);
+
+    @Query("SELECT p.phone FROM Patient p WHERE p.phone IN :phones")
+    public List<String> findExistingPhones(Collection<String> phones);
+
+    //    - **findIdsWithoutNameTokens**:
+    //      - Ids of patients whose name has no tokens yet (saved before patient_name_token existed).
+    //      - Return type: List<Long>
+    //      - Parameters: none
+    @Query("SELECT p.id FROM Patient p WHERE p.nameTokens IS EMPTY ORDER BY p.id")
+    public List<Long> findIdsWithoutNameTokens();
+
     // 3. @Repository annotation:
     //    - The @Repository annotation marks this interface as a Spring Data JPA repository.
     //    - Spring Data JPA automatically implements this repository, providing the necessary CRUD functionality and custom queries defined in the interface.
 }
-
@@ -0,0 +1,58 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.ScheduleException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, Long> {
+
+    // 1. Extend JpaRepository:
+    //    - Date exceptions (days off, blocked windows) to the weekly schedules of the doctors.
+
+    // 2. Custom Query Methods:
+
+    //    - **findByDoctorIdAndDateRange**:
+    //      - All exceptions of a doctor between two dates (inclusive), ordered by date and start.
+    //      - One query for a whole range of doctor-days; served by idx_schedule_exception_doctor_date.
+    //      - Return type: List<ScheduleException>
+    //      - Parameters: Long doctorId, LocalDate from, LocalDate to
+    @Query("""
+      SELECT e FROM ScheduleException e
+      WHERE e.doctor.id = :doctorId
+        AND e.date BETWEEN :from AND :to
+      ORDER BY e.date, e.startTime
+      """)
+    public List<ScheduleException> findByDoctorIdAndDateRange(Long doctorId, LocalDate from, LocalDate to);
+
+    //    - **findByDoctorIdsAndDate**:
+    //      - The exceptions of many doctors on one date, in one query, each with its doctor id.
+    //      - Return type: List<Object[]> ({Long doctorId, ScheduleException exception})
+    //      - Parameters: Collection<Long> doctorIds, LocalDate date
+    @Query("SELECT e.doctor.id, e FROM ScheduleException e WHERE e.doctor.id IN :doctorIds AND e.date = :date")
+    public List<Object[]> findByDoctorIdsAndDate(Collection<Long> doctorIds, LocalDate date);
+
+    //    - **findByIdAndDoctorId**:
+    //      - An exception only if it belongs to the given doctor (doctors can only remove their own).
+    //      - Return type: Optional<ScheduleException>
+    //      - Parameters: Long id, Long doctorId
+    @Query("SELECT e FROM ScheduleException e WHERE e.id = :id AND e.doctor.id = :doctorId")
+    public Optional<ScheduleException> findByIdAndDoctorId(Long id, Long doctorId);
+
+    //    - **deleteAllByDoctorId**:
+    //      - Deletes all exceptions of a doctor (before the doctor itself is deleted).
+    //      - Return type: void
+    //      - Parameters: Long doctorId
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM ScheduleException e WHERE e.doctor.id = :doctorId")
+    public void deleteAllByDoctorId(Long doctorId);
+}
@@ -0,0 +1,63 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import org.hibernate.Hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class AppointmentMapper {
+
+    // Plain-code mapping between Appointment and AppointmentDTO (replaces BeanUtils.copyProperties).
+    // The DTO's flattened doctor/patient fields come from the associations, which copyProperties left empty.
+    // Ids are read from the proxies (no load); names and contact fields only from associations that are already
+    // initialized, so mapping never triggers a lazy load. Read-only listings do not go through here: they select
+    // AppointmentDTO directly (AppointmentRepository.APPOINTMENT_DTO).
+
+    private AppointmentMapper() {
+    }
+
+    public static AppointmentDTO toDto(Appointment a) {
+        if (a == null) return null;
+        Doctor d = a.getDoctor();
+        Patient p = a.getPatient();
+        boolean doctorLoaded = d != null && Hibernate.isInitialized(d);
+        boolean patientLoaded = p != null && Hibernate.isInitialized(p);
+        return new AppointmentDTO(
+                a.getStatus(),
+                a.getAppointmentTime(),
+                patientLoaded ? p.getAddress() : null,
+                patientLoaded ? p.getPhone() : null,
+                patientLoaded ? p.getEmail() : null,
+                patientLoaded ? p.getName() : null,
+                p != null ? id(p.getId()) : 0L,
+                doctorLoaded ? d.getName() : null,
+                d != null ? id(d.getId()) : 0L,
+                id(a.getId()));
+    }
+
+    public static List<AppointmentDTO> toDtos(List<Appointment> appointments) {
+        List<AppointmentDTO> out = new ArrayList<>(appointments.size());
+        for (Appointment a : appointments) {
+            out.add(toDto(a));
+        }
+        return out;
+    }
+
+    // New (unsaved) appointment for a booking request; doctor and patient are usually getReferenceById proxies.
+    public static Appointment toEntity(AppointmentDTO dto, Doctor doctor, Patient patient) {
+        Appointment a = new Appointment();
+        a.setDoctor(doctor);
+        a.setPatient(patient);
+        a.setAppointmentTime(dto.getAppointmentTime());
+        a.setStatus(dto.getStatus());
+        return a;
+    }
+
+    private static long id(Long id) {
+        return id != null ? id : 0L;
+    }
+}
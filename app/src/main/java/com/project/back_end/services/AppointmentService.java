@@ -1,20 +1,25 @@
 package com.project.back_end.services;
 
+import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class AppointmentService {
@@ -33,20 +38,21 @@ public class AppointmentService {
     private DoctorRepository doctorRepository;
     private CommonService commonService; // shared role/token logic
     private TokenService tokenService;     // token utilities
+    private DoctorAvailabilityIndex availabilityIndex; // booked-slot bitsets, kept in sync after commit
 
-    public AppointmentService() {
-    }
-
+    // Single constructor, so Spring injects the dependencies (a second no-arg constructor left them null).
     public AppointmentService(AppointmentRepository appointmentRepository,
                               PatientRepository patientRepository,
                               DoctorRepository doctorRepository,
                               CommonService commonService,
-                              TokenService tokenService) {
+                              TokenService tokenService,
+                              DoctorAvailabilityIndex availabilityIndex) {
         this.appointmentRepository = appointmentRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
         this.commonService = commonService;
         this.tokenService = tokenService;
+        this.availabilityIndex = availabilityIndex;
     }
 
 
@@ -56,30 +62,155 @@ public class AppointmentService {
 
     // 4. **Book Appointment Method**:
     //    - Responsible for saving the new appointment to the database.
-    //    - If the save operation fails, it returns `0`; otherwise, it returns `1`.
+    //    - Returns `1` when booked, `-1` when the slot is taken (or no longer offered), `0` when the save fails.
+    //    - The slot is first reserved in the availability index under the doctor's lock stripe, so concurrent requests
+    //      for the same slot are turned away in memory instead of racing each other to the database.
+    //    - The insert is flushed immediately in its own short transaction (no surrounding @Transactional), so a
+    //      unique-key violation on (doctor_id, start_time) surfaces here and is reported as a conflict; the index then
+    //      re-reads that doctor-day, since its bits missed the booking.
     //    - Instruction: Ensure that the method handles any exceptions and returns an appropriate result code.
-    @Transactional
     public int bookAppointment(Appointment appointment) {
+        if (appointment == null || appointment.getDoctor() == null || appointment.getDoctor().getId() == null
+                || appointment.getAppointmentTime() == null) {
+            return 0;
+        }
+        Long doctorId = appointment.getDoctor().getId();
+        LocalDateTime time = appointment.getAppointmentTime();
+
+        if (availabilityIndex.tryReserve(doctorId, time) != 1) {
+            return -1;
+        }
         try {
-            Appointment saved = appointmentRepository.save(appointment);
-            return (saved != null && saved.getId() != null) ? 1 : 0;
+            Appointment saved = appointmentRepository.saveAndFlush(appointment);
+            if (saved.getId() != null) {
+                availabilityIndex.confirm(doctorId, time);
+                return 1;
+            }
+            availabilityIndex.release(doctorId, time);
+            return 0;
+        } catch (DataIntegrityViolationException dive) {
+            // another instance (or an evicted day) booked the slot first
+            availabilityIndex.reloadBooked(doctorId, time);
+            return -1;
         } catch (DataAccessException dae) {
-            System.out.println("DB error while booking appointment" + dae);;
+            availabilityIndex.release(doctorId, time);
+            System.out.println("DB error while booking appointment" + dae);
             return 0;
         } catch (Exception e) {
+            availabilityIndex.release(doctorId, time);
             System.out.println("Unexpected error while booking appointment" + e);
             return 0;
         }
     }
 
+    // 4b. **Book Appointment From DTO**:
+    //    - Builds the entity from the ids in the request; `getReferenceById` returns proxies, so no doctor or
+    //      patient rows are loaded just to set the foreign keys.
+    public int bookAppointment(AppointmentDTO request) {
+        return bookAppointment(AppointmentMapper.toEntity(request,
+                doctorRepository.getReferenceById(request.getDoctorId()),
+                patientRepository.getReferenceById(request.getPatientId())));
+    }
+
+    // 4c. **Batch Booking Method**:
+    //    - Books several appointments for one patient (e.g. a series of weekly visits) and returns one result per item,
+    //      in request order: `index`, `status` (HTTP code of that item) and `message`.
+    //    - Pass 1 reserves every slot in the availability index (memory only, one query per cold doctor-day);
+    //      items that fail validation or reservation are answered right away.
+    //    - Pass 2 inserts all reserved items with a single `saveAllAndFlush`, which Hibernate sends as JDBC batches
+    //      (`hibernate.jdbc.batch_size`, `order_inserts`).
+    //    - If the batch hits the unique key (a slot booked by another instance), it rolls back as a whole and the
+    //      reserved items are retried one by one, so only the conflicting items fail.
+    public List<Map<String, Object>> bookAppointments(List<AppointmentDTO> requests, Long patientId) {
+        List<Map<String, Object>> results = new ArrayList<>(requests.size());
+        List<Appointment> pending = new ArrayList<>();
+        List<Integer> pendingIndexes = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            AppointmentDTO request = requests.get(i);
+            results.add(null);
+            if (request == null || request.getDoctorId() == null || request.getAppointmentTime() == null) {
+                results.set(i, batchResult(i, HttpStatus.BAD_REQUEST, "Doctor id and appointment time are required."));
+                continue;
+            }
+            int reserved = availabilityIndex.tryReserve(request.getDoctorId(), request.getAppointmentTime());
+            if (reserved == -1) {
+                results.set(i, batchResult(i, HttpStatus.NOT_FOUND, "Doctor not found."));
+                continue;
+            }
+            if (reserved == 0) {
+                results.set(i, batchResult(i, HttpStatus.CONFLICT, "Requested slot is unavailable."));
+                continue;
+            }
+            pending.add(AppointmentMapper.toEntity(request,
+                    doctorRepository.getReferenceById(request.getDoctorId()),
+                    patientRepository.getReferenceById(patientId)));
+            pendingIndexes.add(i);
+        }
+
+        if (!pending.isEmpty()) {
+            try {
+                appointmentRepository.saveAllAndFlush(pending);
+                for (int k = 0; k < pending.size(); k++) {
+                    Appointment a = pending.get(k);
+                    availabilityIndex.confirm(a.getDoctor().getId(), a.getAppointmentTime());
+                    results.set(pendingIndexes.get(k), batchResult(pendingIndexes.get(k),
+                            HttpStatus.CREATED, "Appointment booked successfully."));
+                }
+            } catch (DataIntegrityViolationException dive) {
+                // some slot was taken behind the index's back: fall back to row-by-row inserts
+                for (int k = 0; k < pending.size(); k++) {
+                    results.set(pendingIndexes.get(k), insertReserved(pendingIndexes.get(k), pending.get(k)));
+                }
+            } catch (Exception e) {
+                System.out.println("Error while batch booking appointments" + e);
+                for (int k = 0; k < pending.size(); k++) {
+                    Appointment a = pending.get(k);
+                    availabilityIndex.release(a.getDoctor().getId(), a.getAppointmentTime());
+                    results.set(pendingIndexes.get(k), batchResult(pendingIndexes.get(k),
+                            HttpStatus.INTERNAL_SERVER_ERROR, "Failed to book appointment. Please try again."));
+                }
+            }
+        }
+        return results;
+    }
+
+    // Inserts one already reserved appointment (batch fallback path).
+    private Map<String, Object> insertReserved(int index, Appointment reserved) {
+        // fresh instance: the rolled-back batch may already have assigned an id to the original
+        Appointment appointment = new Appointment(reserved.getDoctor(), reserved.getPatient(),
+                reserved.getAppointmentTime(), reserved.getStatus());
+        try {
+            appointmentRepository.saveAndFlush(appointment);
+            availabilityIndex.confirm(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+            return batchResult(index, HttpStatus.CREATED, "Appointment booked successfully.");
+        } catch (DataIntegrityViolationException dive) {
+            availabilityIndex.reloadBooked(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+            return batchResult(index, HttpStatus.CONFLICT, "Requested slot is unavailable.");
+        } catch (Exception e) {
+            availabilityIndex.release(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+            return batchResult(index, HttpStatus.INTERNAL_SERVER_ERROR, "Failed to book appointment. Please try again.");
+        }
+    }
+
+    private Map<String, Object> batchResult(int index, HttpStatus status, String message) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("index", index);
+        r.put("status", status.value());
+        r.put("message", message);
+        return r;
+    }
+
     // 5. **Update Appointment Method**:
     //    - This method is used to update an existing appointment based on its ID.
     //    - It validates whether the patient ID matches, checks if the appointment is available for updating, and ensures that the doctor is available at the specified time.
+    //    - `patientId` is the authenticated caller: appointments of other patients are rejected with 403, and the
+    //      appointment stays with its patient whatever the request body says.
     //    - If the update is successful, it saves the appointment; otherwise, it returns an appropriate error message.
     //    - Instruction: Ensure proper validation and error handling is included for appointment updates.
 
     @Transactional
-    public ResponseEntity<Map<String, String>> updateAppointment(Appointment appointment) {
+    public ResponseEntity<Map<String, String>> updateAppointment(Appointment appointment, Long patientId) {
         Map<String, String> resp = new HashMap<>();
 
         // 1) Basic payload checks
@@ -98,28 +229,44 @@ public class AppointmentService {
         // 3) Validate requested update (ownership, time policy, doctor availability, etc.)
         // Assume validateAppointment returns a non-empty error message when invalid, otherwise null/empty
 
-        Long appointmentId = appointment.getId();
+        var existing = existingOpt.get();
+        if (existing.getPatient() == null || !Objects.equals(existing.getPatient().getId(), patientId)) {
+            resp.put("message", "You can only update your own appointment.");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(resp);
+        }
+        Long previousDoctorId = existing.getDoctor() != null ? existing.getDoctor().getId() : null;
+        LocalDateTime previousTime = existing.getAppointmentTime();
+
+        Long doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : previousDoctorId;
         LocalDateTime requestedTime = appointment.getAppointmentTime();
 
-        int validation = commonService.validateAppointment(appointmentId, requestedTime);
-        if (validation == 0) {
-            resp.put("message", "Requested slot is unavailable.");
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(resp); // 409 is appropriate
+        // Keeping the current slot needs no availability check (it is booked by this very appointment)
+        boolean slotChanged = !Objects.equals(doctorId, previousDoctorId)
+                || !Objects.equals(requestedTime, previousTime);
+        // The new slot is reserved up front, and becomes booked when the transaction commits (handed back otherwise)
+        if (slotChanged) {
+            int validation = availabilityIndex.tryReserve(doctorId, requestedTime);
+            if (validation != 1) {
+                resp.put("message", "Requested slot is unavailable.");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(resp); // 409 is appropriate
+            }
+            availabilityIndex.confirmOnCommit(doctorId, requestedTime);
         }
 
         // If your service returns boolean instead:
         // if (!service.validateAppointment(appointment)) { resp.put("message","Invalid appointment update."); return ResponseEntity.badRequest().body(resp); }
 
         // 4) Merge allowed fields & save
-        var existing = existingOpt.get();
         existing.setAppointmentTime(appointment.getAppointmentTime());
         existing.setDoctor(appointment.getDoctor());
-        existing.setPatient(appointment.getPatient());
         existing.setStatus(appointment.getStatus());
         existing.setNotes(appointment.getNotes());
 
         try {
             appointmentRepository.save(existing);
+            if (slotChanged) {
+                availabilityIndex.markReleasedAfterCommit(previousDoctorId, previousTime);
+            }
             resp.put("message", "Appointment updated successfully.");
             return ResponseEntity.ok(resp);
         } catch (Exception e) {
@@ -135,9 +282,15 @@ public class AppointmentService {
     public ResponseEntity<Map<String, String>> cancelAppointment(Long appointmentId, Long patientId) {
         Map<String, String> resp = new HashMap<>();
         try {
+            // Remember the slot so the availability index can free it after the delete
+            var slot = appointmentRepository.findById(appointmentId).orElse(null);
+
             // Try to delete only if this appointment belongs to the patient
             int rows = appointmentRepository.deleteByIdAndPatient_Id(appointmentId, patientId);
             if (rows > 0) {
+                if (slot != null && slot.getDoctor() != null) {
+                    availabilityIndex.markReleased(slot.getDoctor().getId(), slot.getAppointmentTime());
+                }
                 resp.put("message", "Appointment cancelled successfully.");
                 return ResponseEntity.ok(resp);
             }
@@ -163,7 +316,7 @@ public class AppointmentService {
     //    - Instruction: Ensure the correct use of transaction boundaries, especially when querying the database for appointments.
 
     @Transactional
-    public List<Appointment> getAppointmentsForDoctorOnDate(
+    public List<AppointmentDTO> getAppointmentsForDoctorOnDate(
             Long doctorId, LocalDate date, String patientName) {
 
         LocalDateTime start = date.atStartOfDay();
@@ -173,12 +326,18 @@ public class AppointmentService {
                 && !patientName.isBlank()
                 && !"null".equalsIgnoreCase(patientName);
 
-        return hasName
-                ? appointmentRepository
-                .findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-                        doctorId, patientName.trim(), start, end)
-                : appointmentRepository
-                .findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
+        if (!hasName) {
+            return appointmentRepository.findDtosByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
+        }
+        // the most selective word goes to the patient name index, the others are checked on the (few) rows it returns
+        List<String> terms = NameTokens.tokens(patientName);
+        if (terms.isEmpty()) return List.of();
+        return appointmentRepository
+                .findDtosByDoctorIdAndPatientNameTokenAndAppointmentTimeBetween(
+                        doctorId, NameTokens.prefixPattern(terms), start, end)
+                .stream()
+                .filter(a -> NameTokens.matches(a.getPatientName(), terms))
+                .toList();
     }
 
     // 8. **Change Status Method**:
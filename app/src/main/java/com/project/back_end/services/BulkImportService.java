@@ -0,0 +1,351 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Service
+public class BulkImportService {
+
+    // 1. **Purpose**
+    // Creates patients or doctors from a CSV or NDJSON upload (clinic onboarding) without one HTTP call,
+    // one validatePatient check and one insert transaction per row.
+
+    // 2. **Pipeline**
+    // - ImportRecordReader pulls records off the stream one at a time; only the current chunk is held in memory.
+    // - Per chunk: bean validation, then one bulk query per key (emails, phones) for duplicates against the
+    //   database, plus a chunk-local set for duplicates inside the chunk. Earlier chunks are already committed,
+    //   so duplicates across chunks are caught by the database query and no file-wide set is needed.
+    // - The accepted rows of a chunk are written in one transaction with saveAll (JDBC batched thanks to the pooled ids).
+    //   If that transaction fails (a concurrent insert of the same email or phone hits uk_patient_email,
+    //   uk_patient_phone or uk_doctor_email), the chunk is retried row by row.
+    // - After every chunk a progress snapshot is handed to the caller (the controller streams it as NDJSON).
+
+    // 3. **Duplicate Rules**
+    // Same as the single-row endpoints: patients are unique by email and by phone, doctors by email.
+
+    private PatientRepository patientRepository;
+    private DoctorRepository doctorRepository;
+    private TokenService tokenService;
+    private TransactionTemplate transactionTemplate;
+    private Validator validator;
+    private ObjectMapper objectMapper;
+    private int chunkSize;
+    private int maxErrorsPerChunk;
+
+    public BulkImportService(PatientRepository patientRepository,
+                             DoctorRepository doctorRepository,
+                             TokenService tokenService,
+                             PlatformTransactionManager transactionManager,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${import.chunk-size:500}") int chunkSize,
+                             @Value("${import.max-errors-per-chunk:20}") int maxErrorsPerChunk) {
+        this.patientRepository = patientRepository;
+        this.doctorRepository = doctorRepository;
+        this.tokenService = tokenService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxErrorsPerChunk = maxErrorsPerChunk;
+    }
+
+    // 4. **importPatients / importDoctors Methods**
+    // Read the whole upload, call `progress` after each chunk and return the final totals.
+    // `format` is ImportRecordReader.CSV or ImportRecordReader.NDJSON.
+
+    public Map<String, Object> importPatients(Reader reader, String format, Consumer<Map<String, Object>> progress) {
+        return run(open(reader, format), new PatientImport(), progress);
+    }
+
+    public Map<String, Object> importDoctors(Reader reader, String format, Consumer<Map<String, Object>> progress) {
+        return run(open(reader, format), new DoctorImport(), progress);
+    }
+
+    // ============================= pipeline =============================
+
+    private <T> Map<String, Object> run(ImportRecordReader records, EntityImport<T> kind,
+                                        Consumer<Map<String, Object>> progress) {
+        Totals totals = new Totals();
+        try (records) {
+            List<ImportRecordReader.Record> chunk = new ArrayList<>(chunkSize);
+            while (records.hasNext()) {
+                chunk.add(records.next());
+                if (chunk.size() == chunkSize) {
+                    progress.accept(processChunk(chunk, kind, totals));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) progress.accept(processChunk(chunk, kind, totals));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Object> done = totals.snapshot();
+        done.put("done", true);
+        return done;
+    }
+
+    private <T> Map<String, Object> processChunk(List<ImportRecordReader.Record> chunk, EntityImport<T> kind,
+                                                 Totals totals) {
+        totals.chunks++;
+        List<Map<String, Object>> errors = new ArrayList<>();
+
+        // 1) parse + validate
+        List<ImportRecordReader.Record> valid = new ArrayList<>(chunk.size());
+        List<T> entities = new ArrayList<>(chunk.size());
+        for (ImportRecordReader.Record r : chunk) {
+            totals.processed++;
+            String problem = r.getError();
+            T entity = null;
+            if (problem == null) {
+                try {
+                    entity = kind.build(r);
+                    problem = firstViolation(entity);
+                } catch (RuntimeException e) {
+                    problem = "Unreadable value: " + e.getMessage();
+                }
+            }
+            if (problem != null) {
+                totals.invalid++;
+                addError(errors, r, problem);
+                continue;
+            }
+            valid.add(r);
+            entities.add(entity);
+        }
+
+        // 2) duplicates: one query per key for the whole chunk
+        Set<String> takenEmails = lookup(entities, kind::email, kind::existingEmails);
+        Set<String> takenPhones = lookup(entities, kind::phone, kind::existingPhones);
+        List<ImportRecordReader.Record> acceptedRecords = new ArrayList<>(entities.size());
+        List<T> accepted = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            T e = entities.get(i);
+            String email = kind.email(e);
+            String phone = kind.phone(e);
+            if (email != null && takenEmails.contains(email)) {
+                totals.duplicates++;
+                addError(errors, valid.get(i), "Duplicate email.");
+            } else if (phone != null && takenPhones.contains(phone)) {
+                totals.duplicates++;
+                addError(errors, valid.get(i), "Duplicate phone.");
+            } else {
+                if (email != null) takenEmails.add(email);
+                if (phone != null) takenPhones.add(phone);
+                acceptedRecords.add(valid.get(i));
+                accepted.add(e);
+            }
+        }
+
+        // 3) write: one batched transaction, row by row only if it fails
+        if (!accepted.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(s -> save(kind, accepted));
+                totals.imported += accepted.size();
+            } catch (RuntimeException batchFailure) {
+                for (ImportRecordReader.Record r : acceptedRecords) {
+                    try {
+                        T fresh = kind.build(r); // the failed batch may have assigned ids to the originals
+                        transactionTemplate.executeWithoutResult(s -> save(kind, List.of(fresh)));
+                        totals.imported++;
+                    } catch (RuntimeException rowFailure) {
+                        totals.failed++;
+                        addError(errors, r, "Could not be saved (already exists or invalid for the database).");
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> snapshot = totals.snapshot();
+        if (!errors.isEmpty()) snapshot.put("errors", errors);
+        return snapshot;
+    }
+
+    // Saves inside the chunk's transaction; cached "not found" results for the new accounts are dropped once it
+    // has committed, so a login racing the import cannot cache the miss again.
+    private <T> void save(EntityImport<T> kind, List<T> entities) {
+        kind.saveAll(entities);
+        for (T e : entities) tokenService.invalidatePrincipalAfterCommit(kind.role(), kind.email(e));
+    }
+
+    private <T> Set<String> lookup(List<T> entities, Function<T, String> key,
+                                   Function<Collection<String>, List<String>> existing) {
+        Set<String> keys = new HashSet<>();
+        for (T e : entities) {
+            String k = key.apply(e);
+            if (k != null) keys.add(k);
+        }
+        if (keys.isEmpty()) return new HashSet<>();
+        return new HashSet<>(existing.apply(keys));
+    }
+
+    private String firstViolation(Object entity) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (violations.isEmpty()) return null;
+        ConstraintViolation<Object> v = violations.iterator().next();
+        return v.getPropertyPath() + ": " + v.getMessage();
+    }
+
+    private void addError(List<Map<String, Object>> errors, ImportRecordReader.Record r, String message) {
+        if (errors.size() >= maxErrorsPerChunk) return; // counts stay exact, samples are capped
+        Map<String, Object> e = new LinkedHashMap<>();
+        e.put("line", r.getLine());
+        e.put("message", message);
+        errors.add(e);
+    }
+
+    private ImportRecordReader open(Reader reader, String format) {
+        return ImportRecordReader.NDJSON.equals(format)
+                ? ImportRecordReader.ndjson(reader, objectMapper)
+                : ImportRecordReader.csv(reader);
+    }
+
+    private static List<String> slots(String joined) {
+        if (joined == null) return new ArrayList<>();
+        List<String> out = new ArrayList<>();
+        for (String s : joined.split("[;|]")) {
+            if (!s.isBlank()) out.add(s.trim());
+        }
+        return out;
+    }
+
+    // ============================= entity kinds =============================
+
+    private interface EntityImport<T> {
+        String role();
+
+        T build(ImportRecordReader.Record r);
+
+        String email(T entity); // dedupe key, already trimmed and lower-cased by the entity
+
+        String phone(T entity); // null when phones are not unique for this kind
+
+        List<String> existingEmails(Collection<String> emails);
+
+        List<String> existingPhones(Collection<String> phones);
+
+        void saveAll(List<T> entities);
+    }
+
+    private class PatientImport implements EntityImport<Patient> {
+        public String role() {
+            return "patient";
+        }
+
+        public Patient build(ImportRecordReader.Record r) {
+            Patient p = new Patient();
+            p.setName(r.get("name"));
+            p.setEmail(r.get("email"));
+            p.setPassword(r.get("password"));
+            p.setPhone(r.get("phone"));
+            p.setAddress(r.get("address"));
+            String dob = r.get("dateofbirth", "dob");
+            if (dob != null) p.setDateOfBirth(LocalDate.parse(dob));
+            p.setEmergencyContact(r.get("emergencycontact", "emergencycontactname"));
+            p.setEmergencyContactPhone(r.get("emergencycontactphone"));
+            p.setInsuranceProvider(r.get("insuranceprovider"));
+            return p;
+        }
+
+        public String email(Patient p) {
+            return p.getEmail();
+        }
+
+        public String phone(Patient p) {
+            return p.getPhone();
+        }
+
+        public List<String> existingEmails(Collection<String> emails) {
+            return patientRepository.findExistingEmails(emails);
+        }
+
+        public List<String> existingPhones(Collection<String> phones) {
+            return patientRepository.findExistingPhones(phones);
+        }
+
+        public void saveAll(List<Patient> patients) {
+            patientRepository.saveAll(patients);
+        }
+    }
+
+    private class DoctorImport implements EntityImport<Doctor> {
+        public String role() {
+            return "doctor";
+        }
+
+        public Doctor build(ImportRecordReader.Record r) {
+            Doctor d = new Doctor();
+            d.setName(r.get("name"));
+            d.setSpecialty(r.get("specialty", "speciality"));
+            d.setEmail(r.get("email"));
+            d.setPassword(r.get("password"));
+            d.setPhone(r.get("phone"));
+            d.setAvailableTimes(slots(r.get("availabletimes", "slots")));
+            d.setClinicAddress(r.get("clinicaddress"));
+            String years = r.get("yearsofexperience");
+            if (years != null) d.setYearsOfExperience(Integer.valueOf(years));
+            String rating = r.get("rating");
+            if (rating != null) d.setRating(new BigDecimal(rating));
+            return d;
+        }
+
+        public String email(Doctor d) {
+            return d.getEmail();
+        }
+
+        public String phone(Doctor d) {
+            return null;
+        }
+
+        public List<String> existingEmails(Collection<String> emails) {
+            return doctorRepository.findExistingEmails(emails);
+        }
+
+        public List<String> existingPhones(Collection<String> phones) {
+            return List.of();
+        }
+
+        public void saveAll(List<Doctor> doctors) {
+            doctorRepository.saveAll(doctors);
+        }
+    }
+
+    // Running totals of one import; only numbers, so memory does not grow with the file.
+    private static final class Totals {
+        private long chunks;
+        private long processed;
+        private long imported;
+        private long duplicates;
+        private long invalid;
+        private long failed;
+
+        private Map<String, Object> snapshot() {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("chunks", chunks);
+            s.put("processed", processed);
+            s.put("imported", imported);
+            s.put("duplicates", duplicates);
+            s.put("invalid", invalid);
+            s.put("failed", failed);
+            return s;
+        }
+    }
+}
@@ -1,20 +1,18 @@
 package com.project.back_end.services;
 
 import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AuthenticatedPrincipal;
 import com.project.back_end.models.Admin;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AdminRepository;
-import com.project.back_end.repo.DoctorRepository;
 import com.project.back_end.repo.PatientRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 @Service
@@ -29,24 +27,24 @@ public class CommonService {
 
     private TokenService tokenService;
     private AdminRepository adminRepository;
-    private DoctorRepository doctorRepository;
     private PatientRepository patientRepository;
     private DoctorService doctorService;
     private PatientService patientService;
+    private DoctorAvailabilityIndex availabilityIndex;
 
 
     public CommonService(TokenService tokenService,
                          AdminRepository adminRepository,
-                         DoctorRepository doctorRepository,
                          PatientRepository patientRepository,
                          DoctorService doctorService,
-                         PatientService patientService) {
+                         PatientService patientService,
+                         DoctorAvailabilityIndex availabilityIndex) {
         this.tokenService = tokenService;
         this.adminRepository = adminRepository;
-        this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
         this.doctorService = doctorService;
         this.patientService = patientService;
+        this.availabilityIndex = availabilityIndex;
     }
 
     // 3. **validateToken Method**
@@ -54,21 +52,14 @@ public class CommonService {
     // If the token is invalid or expired, it returns a 401 Unauthorized response with an appropriate error message. This ensures security by preventing
     // unauthorized access to protected resources.
 
-    @Transactional(readOnly = true)
+    // Token checks are answered by TokenService's caches, so no transaction (and no pooled connection) is opened here;
+    // the registry's repository lookups run in their own read-only transactions on a cache miss.
+
     public String validateToken(String token, String role) {
         if (token == null || token.isBlank()) return "Missing token.";
         if (role == null || role.isBlank()) return "Missing role.";
 
 
-        // If TokenService exposes validateToken, use it first
-        try {
-        //noinspection ConstantConditions
-            if (tokenService.validateToken(token, role)) return null;
-        } catch (Throwable ignored) {
-        // fall through to subject-based validation below
-        }
-
-
         String subject;
         try {
             subject = tokenService.extractEmail(token); // for admins we also store username in subject
@@ -80,18 +71,28 @@ public class CommonService {
 
         switch (role.toLowerCase(Locale.ROOT)) {
             case "admin":
-                if (existsAdminByUsernameOrEmail(subject)) return null;
-                break;
             case "doctor":
-                if (existsDoctorByEmail(subject)) return null;
-                break;
             case "patient":
-                if (existsPatientByEmail(subject)) return null;
-                break;
+                return tokenService.validateToken(token, role) ? null : "Unauthorized or user not found.";
             default:
                 return "Unknown role.";
         }
-        return "Unauthorized or user not found.";
+    }
+
+    // 3b. **authenticate Method**
+    // Resolves the caller behind a token into an immutable AuthenticatedPrincipal (role, subject and entity id).
+    // - Applies the same checks and messages as `validateToken`.
+    // - Throws UnauthorizedException (rendered as 401) instead of returning an error string.
+    // Used by AuthenticatedPrincipalResolver so controllers receive the caller as a parameter.
+
+    public AuthenticatedPrincipal authenticate(String token, String role) {
+        String error = validateToken(token, role);
+        if (error != null) throw new UnauthorizedException(error);
+        String r = role.toLowerCase(Locale.ROOT);
+        String subject = tokenService.extractEmail(token);
+        Long id = tokenService.resolvePrincipalId(r, subject);
+        if (id == null) throw new UnauthorizedException("Unauthorized or user not found.");
+        return new AuthenticatedPrincipal(r, subject, id);
     }
 
     // 4. **validateAdmin Method**
@@ -135,39 +136,13 @@ public class CommonService {
 
     // 5. **filterDoctor Method**
     // This method provides filtering functionality for doctors based on name, specialty, and available time slots.
-    // - It supports various combinations of the three filters.
+    // - It supports any combination of the three filters; blank filters are ignored.
     // - If none of the filters are provided, it returns all available doctors.
+    // - The combination is built into a single database query by DoctorService.searchDoctors.
     // This flexible filtering mechanism allows the frontend or consumers of the API to search and narrow down doctors based on user criteria.
 
-    @Transactional(readOnly = true)
     public List<Doctor> filterDoctor(String name, String specialty, String period) {
-        boolean hasName = notBlank(name);
-        boolean hasSpec = notBlank(specialty);
-        boolean hasPeriod = notBlank(period);
-
-
-        if (hasName && hasSpec && hasPeriod) {
-            return doctorService.filterDoctorsByNameSpecilityandTime(name, specialty, period);
-        }
-        if (hasSpec && hasPeriod) {
-            return doctorService.filterDoctorByTimeAndSpecility(period, specialty);
-        }
-        if (hasName && hasSpec) {
-            return doctorService.filterDoctorByNameAndSpecility(name, specialty);
-        }
-        if (hasName && hasPeriod) {
-            return doctorService.filterDoctorByNameAndTime(name, period);
-        }
-        if (hasSpec) {
-            return doctorService.filterDoctorBySpecility(specialty);
-        }
-        if (hasPeriod) {
-            return doctorService.filterDoctorsByTime(period);
-        }
-        if (hasName) {
-            return doctorService.findDoctorByName(name);
-        }
-        return doctorService.getDoctors();
+        return doctorService.searchDoctors(name, specialty, period);
     }
 
     // 6. **validateAppointment Method**
@@ -180,22 +155,11 @@ public class CommonService {
     // - If the doctor doesn’t exist, it returns -1.
     // This logic prevents overlapping or invalid appointment bookings.
 
-    @Transactional(readOnly = true)
-    public int validateAppointment(Long doctorId, LocalDateTime requestedTime) {
-        if (doctorId == null) return -1;
-        if (requestedTime == null) return 0;
+    // The check is answered by `DoctorAvailabilityIndex` (slot template and booked bitset of the doctor-day),
+    // so it compares minute ordinals instead of formatted strings.
 
-
-        var docOpt = doctorRepository.findById(doctorId);
-        if (docOpt.isEmpty()) return -1;
-
-
-        LocalDate date = requestedTime.toLocalDate();
-        List<String> available = doctorService.getDoctorAvailability(doctorId, date); // formatted slots e.g. "09:30 AM"
-
-
-        String want = requestedTime.toLocalTime().format(DateTimeFormatter.ofPattern("hh:mm a"));
-        return available.contains(want) ? 1 : 0;
+    public int validateAppointment(Long doctorId, LocalDateTime requestedTime) {
+        return availabilityIndex.check(doctorId, requestedTime);
     }
 
     // 7. **validatePatient Method**
@@ -257,26 +221,17 @@ public class CommonService {
 
     // 9. **filterPatient Method**
     // This method filters a patient's appointment history based on condition and doctor name.
-    // - It extracts the email from the JWT token to identify the patient.
+    // - The patient is identified by the id of the authenticated principal.
     // - Depending on which filters (condition, doctor name) are provided, it delegates the filtering logic to PatientService.
     // - If no filters are provided, it retrieves all appointments for the patient.
     // This flexible method supports patient-specific querying and enhances user experience on the client side.
 
     @Transactional(readOnly = true)
-    public ResponseEntity<List<AppointmentDTO>> filterPatient(String token, String condition, String doctorName) {
+    public ResponseEntity<List<AppointmentDTO>> filterPatient(Long patientId, String condition, String doctorName) {
         try {
-            if (!notBlank(token)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of());
-            }
-            String email = tokenService.extractEmail(token);
-            if (!notBlank(email)) {
+            if (patientId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of());
             }
-            Optional<Patient> opt = patientRepository.findByEmailIgnoreCase(email);
-            if (opt.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of());
-            }
-            Long patientId = opt.get().getId();
 
 
             boolean hasCond = notBlank(condition);
@@ -303,26 +258,4 @@ public class CommonService {
     private boolean notBlank(String s) {
         return s != null && !s.trim().isEmpty();
     }
-
-    private boolean existsAdminByUsernameOrEmail(String subject) {
-        try { if (adminRepository.existsByUsername(subject)) return true; } catch (Throwable ignored) {}
-        try { if (adminRepository.findByUsername(subject).isPresent()) return true; } catch (Throwable ignored) {}
-        try { if (adminRepository.existsByEmail(subject)) return true; } catch (Throwable ignored) {}
-        try { return adminRepository.findByEmail(subject).isPresent(); } catch (Throwable ignored) {}
-        return false;
-    }
-
-
-    private boolean existsDoctorByEmail(String email) {
-        try { if (doctorRepository.existsByEmail(email)) return true; } catch (Throwable ignored) {}
-        try { return doctorRepository.findByEmailIgnoreCase(email).isPresent(); } catch (Throwable ignored) {}
-        return false;
-    }
-
-
-    private boolean existsPatientByEmail(String email) {
-        try { if (patientRepository.existsByEmail(email)) return true; } catch (Throwable ignored) {}
-        try { return patientRepository.findByEmailIgnoreCase(email).isPresent(); } catch (Throwable ignored) {}
-        return false;
-    }
 }
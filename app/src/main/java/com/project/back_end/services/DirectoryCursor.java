@@ -0,0 +1,45 @@
+package com.project.back_end.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public final class DirectoryCursor {
+
+    // Opaque keyset cursor for the doctor directory: the (name, id) of the last row of a page,
+    // encoded as URL-safe Base64 of "id:name". The next page starts strictly after that position in
+    // ORDER BY name, id, so paging costs an index seek instead of an OFFSET scan and never skips or repeats rows.
+
+    private final String name;
+    private final long id;
+
+    public DirectoryCursor(String name, long id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = id + ":" + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a blank cursor (first page); throws IllegalArgumentException for a malformed one.
+    public static DirectoryCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        int colon = raw.indexOf(':');
+        if (colon <= 0) throw new IllegalArgumentException("Malformed cursor.");
+        try {
+            return new DirectoryCursor(raw.substring(colon + 1), Long.parseLong(raw.substring(0, colon)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor.");
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.ScheduleException;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorSlotRepository;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+@Component
+public class DoctorAvailabilityIndex {
+
+    // 1. **Purpose**
+    // Schedule engine and availability index used by DoctorService.getDoctorAvailability and CommonService.validateAppointment.
+    // Without it every call loads the doctor, fetch-joins the day's appointments and compares formatted strings.
+
+    // 2. **Layout**
+    // - Slot ordinal = minute of day of the slot start (0..1439), so every doctor-day is a fixed-width bitset.
+    // - Template (per doctor): the weekly schedule, i.e. per ISO weekday the slot starts, lengths and labels,
+    //   built from the doctor's DoctorSlot rows with one query.
+    // - Day (per doctor and date): the concrete slots of that date, i.e. the weekday's template minus the slots
+    //   overlapping a ScheduleException (day off, blocked window), plus a bitset of booked starts.
+    // - A slot is free when its bit is set in the day's configured bitset and clear in its booked and reserved bitsets,
+    //   an O(1) check. `booked` mirrors the appointment rows; `reserved` holds this instance's bookings in flight.
+
+    // 3. **Lifecycle**
+    // - Templates and days are materialized lazily on first use. A range of missing days (`availableSlots(id, from, to)`),
+    //   or one date for many doctors (`availableSlots(ids, date)`), is materialized with one exception query and one
+    //   appointment query for all of it, not one per doctor-day.
+    // - Bookings, cancellations and updates flip single bits after their transaction commits.
+    // - A schedule change, doctor update or delete drops the doctor's template and days;
+    //   adding or removing an exception drops that one day.
+    // - The number of cached doctor-days is bounded; past days are dropped first.
+
+    // 3a. **Versions**
+    // - Every materialized day carries a version taken from one increasing clock (seeded with the start time, so
+    //   versions do not repeat across restarts). Flipping a booked bit gives the day a new version, and a dropped
+    //   day gets a new one when it is materialized again.
+    // - `version` folds the versions of the requested doctor-days into one value, used as the ETag of the
+    //   availability endpoints. Read it before the slots: a change in between then only costs a needless reload.
+
+    // 3b. **Slot Reservation**
+    // - `tryReserve` atomically checks and sets the slot's reserved bit before the appointment row is written,
+    //   so of two concurrent requests for the same slot only one proceeds to the database; the other gets a 409 at once.
+    //   The reservation becomes a booked bit once the insert commits (`confirm`), or is handed back (`release`).
+    // - A booked bit can be stale: the appointment was cancelled on another instance, or the day was loaded while a
+    //   cancel was still uncommitted. So a booked bit is only trusted after the database confirms the row
+    //   (one indexed lookup, on conflicts only); a bit without a row is cleared and the slot is reserved as usual.
+    // - Day bitsets are guarded by lock stripes chosen by doctor id: bookings of different doctors do not contend,
+    //   and there is no global lock.
+    // - The unique key (doctor_id, start_time) on the appointment table remains the final guarantee
+    //   (several application instances, evicted bitsets). When an insert hits it, `reloadBooked` re-reads the
+    //   day's appointments instead of pinning the bit.
+
+    private DoctorRepository doctorRepository;
+    private DoctorSlotRepository doctorSlotRepository;
+    private AppointmentRepository appointmentRepository;
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+    private int maxDays;
+
+    private final Map<Long, Template> templates = new ConcurrentHashMap<>();
+    private final Map<DayKey, Day> days = new ConcurrentHashMap<>();
+    private static final int CLAIMED = 1;
+    private static final int TAKEN = 0;
+    private static final int BOOKED = 2;
+
+    private final ReentrantLock[] stripes;
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+
+    private final LongAdder dayHits = new LongAdder();
+    private final LongAdder dayLoads = new LongAdder();
+    private final LongAdder dayQueries = new LongAdder();
+    private final LongAdder templateLoads = new LongAdder();
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder staleBits = new LongAdder();
+
+    public DoctorAvailabilityIndex(DoctorRepository doctorRepository,
+                                   DoctorSlotRepository doctorSlotRepository,
+                                   AppointmentRepository appointmentRepository,
+                                   ScheduleExceptionRepository scheduleExceptionRepository,
+                                   @Value("${availability.index.max-days:50000}") int maxDays,
+                                   @Value("${availability.index.lock-stripes:64}") int lockStripes) {
+        this.doctorRepository = doctorRepository;
+        this.doctorSlotRepository = doctorSlotRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.scheduleExceptionRepository = scheduleExceptionRepository;
+        this.maxDays = maxDays;
+        this.stripes = new ReentrantLock[Math.max(1, lockStripes)];
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantLock();
+    }
+
+    // 4. **availableSlots Method**
+    // Returns the slot labels of the doctor on the date that are not booked, ordered by start time.
+    // Returns null when the doctor does not exist.
+
+    public List<String> availableSlots(Long doctorId, LocalDate date) {
+        Template t = template(doctorId);
+        if (t == null) return null;
+        return free(doctorId, day(doctorId, t, date));
+    }
+
+    // 4b. **availableSlots Method (range)**
+    // Same for every date from `from` to `to` (inclusive), in date order. Days not cached yet are materialized together,
+    // so a cold 30-day window costs two queries instead of 30 day loads. Returns null when the doctor does not exist.
+
+    public Map<LocalDate, List<String>> availableSlots(Long doctorId, LocalDate from, LocalDate to) {
+        Template t = template(doctorId);
+        if (t == null) return null;
+        loadDays(doctorId, t, from, to);
+        Map<LocalDate, List<String>> out = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            out.put(date, free(doctorId, day(doctorId, t, date)));
+        }
+        return out;
+    }
+
+    // 4c. **availableSlots Method (many doctors)**
+    // Free slot labels of several doctors on one date, by doctor id in the given order; unknown ids are left out.
+    // Missing templates are loaded with one slot query and missing days with one exception and one appointment query,
+    // however many doctors are asked for.
+
+    public Map<Long, List<String>> availableSlots(Collection<Long> doctorIds, LocalDate date) {
+        Map<Long, List<String>> out = new LinkedHashMap<>();
+        days(doctorIds, date).forEach((id, d) -> out.put(id, free(id, d)));
+        return out;
+    }
+
+    // 4d. **version Methods**
+    // Version of the same doctor-days as the matching availableSlots call (materializing them the same way);
+    // any change to one of them, or to which doctors exist, gives a different value. -1 when the doctor does not exist.
+
+    public long version(Long doctorId, LocalDate date) {
+        Template t = template(doctorId);
+        if (t == null) return -1;
+        return day(doctorId, t, date).version;
+    }
+
+    public long version(Long doctorId, LocalDate from, LocalDate to) {
+        Template t = template(doctorId);
+        if (t == null) return -1;
+        long v = 17;
+        for (Day d : new TreeMap<>(loadDays(doctorId, t, from, to)).values()) {
+            v = 31 * v + d.version;
+        }
+        return v;
+    }
+
+    public long version(Collection<Long> doctorIds, LocalDate date) {
+        long v = 17;
+        for (Map.Entry<Long, Day> e : days(doctorIds, date).entrySet()) {
+            v = 31 * (31 * v + e.getKey()) + e.getValue().version;
+        }
+        return v;
+    }
+
+    // Days of several doctors on one date, by doctor id in the given order; unknown ids are left out.
+    private Map<Long, Day> days(Collection<Long> doctorIds, LocalDate date) {
+        Map<Long, Template> loaded = templates(doctorIds);
+        int weekday = date.getDayOfWeek().getValue();
+        Set<Long> cold = new HashSet<>();
+        for (Map.Entry<Long, Template> e : loaded.entrySet()) {
+            if (e.getValue().minutes[weekday].length > 0 && !days.containsKey(new DayKey(e.getKey(), date))) {
+                cold.add(e.getKey());
+            }
+        }
+        Map<Long, List<ScheduleException>> exceptions = new HashMap<>();
+        Map<Long, BitSet> booked = new HashMap<>();
+        if (!cold.isEmpty()) {
+            dayQueries.increment();
+            for (Object[] row : scheduleExceptionRepository.findByDoctorIdsAndDate(cold, date)) {
+                exceptions.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((ScheduleException) row[1]);
+            }
+            for (Object[] row : appointmentRepository.findAppointmentTimesByDoctorIds(
+                    cold, date.atStartOfDay(), date.plusDays(1).atStartOfDay())) {
+                booked.computeIfAbsent((Long) row[0], k -> new BitSet(SlotTimes.MINUTES_PER_DAY))
+                        .set(SlotTimes.minuteOfDay(((LocalDateTime) row[1]).toLocalTime()));
+            }
+            if (days.size() + cold.size() > maxDays) evictDays();
+        }
+        Map<Long, Day> out = new LinkedHashMap<>();
+        for (Long id : doctorIds) {
+            Template t = loaded.get(id);
+            if (t == null || out.containsKey(id)) continue;
+            Day d = cold.contains(id)
+                    ? store(id, t, date, exceptions.getOrDefault(id, List.of()),
+                            booked.getOrDefault(id, new BitSet(SlotTimes.MINUTES_PER_DAY)))
+                    : day(id, t, date); // cached, or no slots that weekday (no query)
+            out.put(id, d);
+        }
+        return out;
+    }
+
+    // 5. **check Method**
+    // Validates a requested start time: 1 = a slot of that date and free, 0 = not a slot or already booked,
+    // -1 = doctor not found.
+
+    public int check(Long doctorId, LocalDateTime time) {
+        if (doctorId == null) return -1;
+        if (time == null) return 0;
+        Template t = template(doctorId);
+        if (t == null) return -1;
+        int minute = SlotTimes.minuteOfDay(time.toLocalTime());
+        if (!t.hasSlot(time.getDayOfWeek().getValue(), minute)) return 0; // no day load for a non-slot
+        Day d = day(doctorId, t, time.toLocalDate());
+        if (!d.configured.get(minute)) return 0;
+        ReentrantLock lock = stripe(doctorId);
+        lock.lock();
+        try {
+            if (d.reserved.get(minute)) return 0;
+            if (!d.booked.get(minute)) return 1;
+        } finally {
+            lock.unlock();
+        }
+        return confirmBooked(doctorId, d, minute, time) ? 0 : 1;
+    }
+
+    // 5b. **tryReserve Method**
+    // Atomically claims a slot: 1 = reserved by this caller, 0 = not a slot or already taken, -1 = doctor not found.
+    // A reserved slot must be confirmed after a successful insert (`confirm`, `confirmOnCommit`), or handed back
+    // with `release`.
+
+    public int tryReserve(Long doctorId, LocalDateTime time) {
+        if (doctorId == null) return -1;
+        if (time == null) return 0;
+        Template t = template(doctorId);
+        if (t == null) return -1;
+        int minute = SlotTimes.minuteOfDay(time.toLocalTime());
+        if (!t.hasSlot(time.getDayOfWeek().getValue(), minute)) return 0;
+        Day d = day(doctorId, t, time.toLocalDate()); // cold days are loaded outside the lock
+        if (!d.configured.get(minute)) return 0;
+        int claim = claim(doctorId, d, minute);
+        if (claim == BOOKED && !confirmBooked(doctorId, d, minute, time)) {
+            claim = claim(doctorId, d, minute); // the bit was stale and is cleared now
+        }
+        if (claim != CLAIMED) {
+            conflicts.increment();
+            return 0;
+        }
+        reservations.increment();
+        return 1;
+    }
+
+    // Turns this caller's reservation into a booking once its appointment row is committed.
+    public void confirm(Long doctorId, LocalDateTime time) {
+        update(doctorId, time, d -> {
+            int minute = SlotTimes.minuteOfDay(time.toLocalTime());
+            d.reserved.clear(minute);
+            d.booked.set(minute);
+        });
+    }
+
+    // Hands a reservation back (the insert failed or was not attempted).
+    public void release(Long doctorId, LocalDateTime time) {
+        update(doctorId, time, d -> d.reserved.clear(SlotTimes.minuteOfDay(time.toLocalTime())));
+    }
+
+    // Confirms a reservation when the surrounding transaction commits, hands it back otherwise.
+    public void confirmOnCommit(Long doctorId, LocalDateTime time) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            confirm(doctorId, time);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) confirm(doctorId, time);
+                else release(doctorId, time);
+            }
+        });
+    }
+
+    // 5c. **reloadBooked Method**
+    // After an insert hit the unique key: hands back the caller's reservation and re-reads the booked bits of that
+    // doctor-day from the database, so the index agrees with the rows instead of trusting one bit.
+
+    public void reloadBooked(Long doctorId, LocalDateTime time) {
+        if (doctorId == null || time == null || !days.containsKey(new DayKey(doctorId, time.toLocalDate()))) return;
+        LocalDate date = time.toLocalDate();
+        List<LocalDateTime> taken = appointmentRepository.findAppointmentTimesByDoctorId(
+                doctorId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        update(doctorId, time, d -> {
+            d.reserved.clear(SlotTimes.minuteOfDay(time.toLocalTime()));
+            d.booked.clear();
+            for (LocalDateTime at : taken) d.booked.set(SlotTimes.minuteOfDay(at.toLocalTime()));
+        });
+    }
+
+    // 6. **Incremental Updates**
+    // Called by AppointmentService once the surrounding transaction has committed.
+    // Days that are not loaded yet are left alone; they are read from the database when first needed.
+
+    public void markBooked(Long doctorId, LocalDateTime time) {
+        setBit(doctorId, time, true);
+    }
+
+    public void markReleased(Long doctorId, LocalDateTime time) {
+        setBit(doctorId, time, false);
+    }
+
+    public void markBookedAfterCommit(Long doctorId, LocalDateTime time) {
+        afterCommit(() -> markBooked(doctorId, time));
+    }
+
+    public void markReleasedAfterCommit(Long doctorId, LocalDateTime time) {
+        afterCommit(() -> markReleased(doctorId, time));
+    }
+
+    // 7. **invalidateDoctor / invalidateDay Methods**
+    // invalidateDoctor drops the template and all cached days of a doctor (schedule changed, or the doctor was deleted);
+    // invalidateDay drops one materialized day (an exception of that date was added or removed).
+    // The *AfterCommit variants wait for the surrounding transaction, so a concurrent reload cannot cache the old state.
+
+    public void invalidateDoctor(Long doctorId) {
+        if (doctorId == null) return;
+        templates.remove(doctorId);
+        days.keySet().removeIf(k -> k.doctorId.equals(doctorId));
+    }
+
+    public void invalidateDay(Long doctorId, LocalDate date) {
+        if (doctorId == null || date == null) return;
+        days.remove(new DayKey(doctorId, date));
+    }
+
+    public void invalidateDoctorAfterCommit(Long doctorId) {
+        afterCommit(() -> invalidateDoctor(doctorId));
+    }
+
+    public void invalidateDayAfterCommit(Long doctorId, LocalDate date) {
+        afterCommit(() -> invalidateDay(doctorId, date));
+    }
+
+    public void clear() {
+        templates.clear();
+        days.clear();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("doctors", templates.size());
+        s.put("days", days.size());
+        s.put("maxDays", maxDays);
+        s.put("dayHits", dayHits.sum());
+        s.put("dayLoads", dayLoads.sum());
+        s.put("dayQueries", dayQueries.sum());
+        s.put("templateLoads", templateLoads.sum());
+        s.put("reservations", reservations.sum());
+        s.put("conflicts", conflicts.sum());
+        s.put("staleBits", staleBits.sum());
+        s.put("lockStripes", stripes.length);
+        return s;
+    }
+
+    // ============================= helpers =============================
+
+    private Template template(Long doctorId) {
+        Template t = templates.get(doctorId);
+        if (t != null) return t;
+        List<Object[]> rows = doctorSlotRepository.findScheduleByDoctorId(doctorId);
+        if (rows.isEmpty() && !doctorRepository.existsById(doctorId)) return null;
+        templateLoads.increment();
+        t = Template.of(rows);
+        Template prev = templates.putIfAbsent(doctorId, t);
+        return prev != null ? prev : t;
+    }
+
+    // Templates of many doctors: cached ones as they are, the others with one slot query (plus one existence
+    // query for ids without any slot rows). Unknown ids are left out.
+    private Map<Long, Template> templates(Collection<Long> doctorIds) {
+        Map<Long, Template> out = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : doctorIds) {
+            if (id == null) continue;
+            Template t = templates.get(id);
+            if (t != null) out.put(id, t);
+            else missing.add(id);
+        }
+        if (missing.isEmpty()) return out;
+        Map<Long, List<Object[]>> rows = new HashMap<>();
+        for (Object[] row : doctorSlotRepository.findScheduleByDoctorIds(missing)) {
+            rows.computeIfAbsent((Long) row[4], k -> new ArrayList<>()).add(row);
+        }
+        Set<Long> withoutSlots = new HashSet<>(missing);
+        withoutSlots.removeAll(rows.keySet());
+        Set<Long> existing = withoutSlots.isEmpty()
+                ? Set.of()
+                : new HashSet<>(doctorRepository.findExistingIds(withoutSlots));
+        for (Long id : missing) {
+            List<Object[]> r = rows.get(id);
+            if (r == null && !existing.contains(id)) continue;
+            templateLoads.increment();
+            Template t = Template.of(r != null ? r : List.of());
+            Template prev = templates.putIfAbsent(id, t);
+            out.put(id, prev != null ? prev : t);
+        }
+        return out;
+    }
+
+    private Day day(Long doctorId, Template t, LocalDate date) {
+        Day d = days.get(new DayKey(doctorId, date));
+        if (d != null) {
+            dayHits.increment();
+            return d;
+        }
+        return loadDays(doctorId, t, date, date).get(date);
+    }
+
+    // Materializes the days of [from, to] that are not cached: one exception query and one appointment query
+    // for the span of the missing days (none at all when their weekdays have no slots). Returns the days by date.
+    private Map<LocalDate, Day> loadDays(Long doctorId, Template t, LocalDate from, LocalDate to) {
+        Map<LocalDate, Day> out = new HashMap<>();
+        List<LocalDate> missing = new ArrayList<>();
+        boolean anySlots = false;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            Day d = days.get(new DayKey(doctorId, date));
+            if (d != null) {
+                out.put(date, d);
+            } else {
+                missing.add(date);
+                anySlots |= t.minutes[date.getDayOfWeek().getValue()].length > 0;
+            }
+        }
+        if (missing.isEmpty()) return out;
+
+        LocalDate first = missing.get(0);
+        LocalDate last = missing.get(missing.size() - 1);
+        Map<LocalDate, List<ScheduleException>> exceptions = new HashMap<>();
+        Map<LocalDate, BitSet> booked = new HashMap<>();
+        if (anySlots) {
+            dayQueries.increment();
+            for (ScheduleException e : scheduleExceptionRepository.findByDoctorIdAndDateRange(doctorId, first, last)) {
+                exceptions.computeIfAbsent(e.getDate(), k -> new ArrayList<>()).add(e);
+            }
+            for (LocalDateTime at : appointmentRepository.findAppointmentTimesByDoctorId(
+                    doctorId, first.atStartOfDay(), last.plusDays(1).atStartOfDay())) {
+                booked.computeIfAbsent(at.toLocalDate(), k -> new BitSet(SlotTimes.MINUTES_PER_DAY))
+                        .set(SlotTimes.minuteOfDay(at.toLocalTime()));
+            }
+        }
+        if (days.size() + missing.size() > maxDays) evictDays();
+        for (LocalDate date : missing) {
+            out.put(date, store(doctorId, t, date, exceptions.getOrDefault(date, List.of()),
+                    booked.getOrDefault(date, new BitSet(SlotTimes.MINUTES_PER_DAY))));
+        }
+        return out;
+    }
+
+    private Day store(Long doctorId, Template t, LocalDate date, List<ScheduleException> exceptions, BitSet booked) {
+        dayLoads.increment();
+        Day d = Day.of(t, date, exceptions, booked, clock.incrementAndGet());
+        Day prev = days.putIfAbsent(new DayKey(doctorId, date), d);
+        return prev != null ? prev : d;
+    }
+
+    private List<String> free(Long doctorId, Day d) {
+        List<String> free = new ArrayList<>(d.minutes.length);
+        if (d.minutes.length == 0) return free;
+        ReentrantLock lock = stripe(doctorId);
+        lock.lock();
+        try {
+            for (int i = 0; i < d.minutes.length; i++) {
+                if (!d.booked.get(d.minutes[i]) && !d.reserved.get(d.minutes[i])) free.add(d.labels[i]);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return free;
+    }
+
+    private void setBit(Long doctorId, LocalDateTime time, boolean value) {
+        if (doctorId == null || time == null) return;
+        Day d = days.get(new DayKey(doctorId, time.toLocalDate()));
+        if (d == null) return;
+        ReentrantLock lock = stripe(doctorId);
+        lock.lock();
+        try {
+            int minute = SlotTimes.minuteOfDay(time.toLocalTime());
+            if (d.booked.get(minute) == value) return;
+            d.booked.set(minute, value);
+            d.version = clock.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies a change to the cached day of `time` under the doctor's lock stripe and gives it a new version.
+    private void update(Long doctorId, LocalDateTime time, Consumer<Day> change) {
+        if (doctorId == null || time == null) return;
+        Day d = days.get(new DayKey(doctorId, time.toLocalDate()));
+        if (d == null) return;
+        ReentrantLock lock = stripe(doctorId);
+        lock.lock();
+        try {
+            change.accept(d);
+            d.version = clock.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sets the reserved bit of a free slot: CLAIMED, or TAKEN (reserved by another caller), or BOOKED (booked bit set).
+    private int claim(Long doctorId, Day d, int minute) {
+        ReentrantLock lock = stripe(doctorId);
+        lock.lock();
+        try {
+            if (d.reserved.get(minute)) return TAKEN;
+            if (d.booked.get(minute)) return BOOKED;
+            d.reserved.set(minute);
+            d.version = clock.incrementAndGet();
+            return CLAIMED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Whether a booked bit is backed by an appointment row; a bit without one is cleared. Queries outside the lock.
+    private boolean confirmBooked(Long doctorId, Day d, int minute, LocalDateTime time) {
+        if (appointmentRepository.existsByDoctor_IdAndAppointmentTime(doctorId, time)) return true;
+        ReentrantLock lock = stripe(doctorId);
+        lock.lock();
+        try {
+            if (d.booked.get(minute)) {
+                d.booked.clear(minute);
+                d.version = clock.incrementAndGet();
+                staleBits.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return false;
+    }
+
+    private ReentrantLock stripe(Long doctorId) {
+        return stripes[Math.floorMod(Long.hashCode(doctorId), stripes.length)];
+    }
+
+    private void evictDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(k -> k.date.isBefore(today));
+        if (days.size() >= maxDays) days.clear();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    // Weekly schedule of a doctor, indexed by ISO weekday (1..7, index 0 unused): start minutes sorted ascending
+    // with the matching lengths and labels, and a bitset per weekday for O(1) lookups.
+    private static final class Template {
+        private final int[][] minutes = new int[8][];
+        private final int[][] durations = new int[8][];
+        private final String[][] labels = new String[8][];
+        private final BitSet[] configured = new BitSet[8];
+
+        private boolean hasSlot(int weekday, int minute) {
+            return configured[weekday].get(minute);
+        }
+
+        // rows: {weekday, startTime, durationMinutes, label}, ordered by weekday and start time
+        private static Template of(List<Object[]> rows) {
+            Template t = new Template();
+            List<List<Object[]>> byDay = new ArrayList<>(8);
+            for (int d = 0; d < 8; d++) byDay.add(new ArrayList<>());
+            for (Object[] row : rows) {
+                int weekday = ((Number) row[0]).intValue();
+                if (weekday >= 1 && weekday <= 7) byDay.get(weekday).add(row);
+            }
+            for (int d = 0; d < 8; d++) {
+                List<Object[]> day = byDay.get(d);
+                t.minutes[d] = new int[day.size()];
+                t.durations[d] = new int[day.size()];
+                t.labels[d] = new String[day.size()];
+                t.configured[d] = new BitSet(SlotTimes.MINUTES_PER_DAY);
+                for (int i = 0; i < day.size(); i++) {
+                    LocalTime start = (LocalTime) day.get(i)[1];
+                    String label = (String) day.get(i)[3];
+                    int minute = SlotTimes.minuteOfDay(start);
+                    t.minutes[d][i] = minute;
+                    t.durations[d][i] = ((Number) day.get(i)[2]).intValue();
+                    t.labels[d][i] = label != null ? label : start.toString();
+                    t.configured[d].set(minute);
+                }
+            }
+            return t;
+        }
+    }
+
+    // Concrete slots of one doctor-day (the weekday's template minus the slots blocked by exceptions)
+    // and the bitsets of booked and reserved starts; those and `version` are changed under the doctor's lock stripe.
+    private static final class Day {
+        private final int[] minutes;
+        private final String[] labels;
+        private final BitSet configured;
+        private final BitSet booked;
+        private final BitSet reserved = new BitSet(SlotTimes.MINUTES_PER_DAY);
+        private volatile long version;
+
+        private Day(int[] minutes, String[] labels, BitSet configured, BitSet booked, long version) {
+            this.minutes = minutes;
+            this.labels = labels;
+            this.configured = configured;
+            this.booked = booked;
+            this.version = version;
+        }
+
+        private static Day of(Template t, LocalDate date, List<ScheduleException> exceptions, BitSet booked,
+                              long version) {
+            int weekday = date.getDayOfWeek().getValue();
+            int[] m = t.minutes[weekday];
+            if (exceptions.isEmpty()) {
+                return new Day(m, t.labels[weekday], t.configured[weekday], booked, version); // shared, never mutated
+            }
+            int[] minutes = new int[m.length];
+            String[] labels = new String[m.length];
+            BitSet configured = new BitSet(SlotTimes.MINUTES_PER_DAY);
+            int n = 0;
+            for (int i = 0; i < m.length; i++) {
+                if (blocked(exceptions, m[i], t.durations[weekday][i])) continue;
+                minutes[n] = m[i];
+                labels[n] = t.labels[weekday][i];
+                configured.set(m[i]);
+                n++;
+            }
+            return new Day(Arrays.copyOf(minutes, n), Arrays.copyOf(labels, n), configured, booked, version);
+        }
+
+        private static boolean blocked(List<ScheduleException> exceptions, int minute, int duration) {
+            for (ScheduleException e : exceptions) {
+                if (e.blocks(minute, duration)) return true;
+            }
+            return false;
+        }
+    }
+}
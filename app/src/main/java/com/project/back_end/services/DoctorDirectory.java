@@ -0,0 +1,272 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorSpecifications;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class DoctorDirectory {
+
+    // 1. **Purpose**
+    // In-memory snapshot of every doctor behind the anonymous `GET /doctor` and `/doctor/filter/...` endpoints.
+    // Readers take the current snapshot and never lock or touch JPA; the unfiltered list is a ready-made byte array.
+
+    // 2. **Layout**
+    // - Doctors are kept in (name, id) order as their serialized JSON, one byte array per doctor, plus the
+    //   `{"doctors":[...]}` body of the whole list, as is, gzipped (compressing ~500 KB for 2k doctors costs
+    //   milliseconds, so it is done once per snapshot instead of once per response) and as CBOR.
+    // - CBOR bodies are transcoded token by token from the JSON ones, so both carry exactly the same content;
+    //   decimals stay decimals (BigDecimal), as when a Doctor is written by the CBOR message converter.
+    // - Indexes map to positions in that order: specialty (lower-cased, like MySQL's case-insensitive equality),
+    //   name tokens (see NameTokens, sorted so a search word selects a range of tokens), and AM/PM availability.
+    // - A filter intersects the position sets of its parts and joins the selected doctors' bytes, so its result
+    //   is the same as DoctorSpecifications.filter, in the same order.
+
+    // 3. **Refresh**
+    // - The snapshot is immutable and replaced as a whole (copy-on-write): `refresh` reads every doctor again,
+    //   builds a new snapshot and swaps it in. It is called after a doctor change through DoctorController
+    //   (save, update, delete, schedule) or a doctor import has committed.
+    // - Rebuilds run one at a time, and a rebuild is skipped when one that started after the caller's change has
+    //   already been swapped in, so a burst of changes costs few rebuilds and the last one always wins.
+    // - The first snapshot is built by the first reader. A failed rebuild drops the snapshot, so the next reader
+    //   builds it again instead of keeping stale data.
+    // - Changes made outside this application instance are not seen until its next refresh.
+
+    // 3b. **Versions**
+    // Each snapshot gets a version from an increasing counter seeded with the clock, so it does not repeat across
+    // restarts, and the time it was built. The endpoints send them as ETag / Last-Modified and answer a matching
+    // conditional request with 304 before looking at the snapshot's bytes.
+
+    private static final byte[] OPEN = "{\"doctors\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CLOSE = "]}".getBytes(StandardCharsets.UTF_8);
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final CBORFactory CBOR = new CBORFactory();
+
+    private DoctorRepository doctorRepository;
+    private ObjectWriter doctorWriter;
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong changes = new AtomicLong();
+    private final Object rebuildLock = new Object();
+    private long builtAfter = -1;
+    private long lastVersion;
+
+    public DoctorDirectory(DoctorRepository doctorRepository,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager) {
+        this.doctorRepository = doctorRepository;
+        this.doctorWriter = objectMapper.writerFor(Doctor.class); // serializer resolved once, not per doctor
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // 3c. **version / lastModified Methods**
+    // Version and build time (epoch millis) of the current snapshot; both change with every rebuild.
+
+    public long version() {
+        return snapshot().version;
+    }
+
+    public long lastModified() {
+        return snapshot().builtAt;
+    }
+
+    // 4. **allJson Method**
+    // `{"doctors":[...]}` with every doctor.
+
+    public byte[] allJson() {
+        return snapshot().all;
+    }
+
+    // 4b. **allJsonGzip Method**
+    // The same body gzipped, for clients that accept gzip.
+
+    public byte[] allJsonGzip() {
+        return snapshot().allGzip;
+    }
+
+    // 4c. **allCbor Method**
+    // The same body as CBOR, for clients that ask for `application/cbor`.
+
+    public byte[] allCbor() {
+        return snapshot().allCbor;
+    }
+
+    // 5. **filterJson Method**
+    // `{"doctors":[...]}` with the doctors matching name, specialty and period; null or blank filters are ignored.
+
+    public byte[] filterJson(String name, String specialty, String period) {
+        Snapshot s = snapshot();
+        BitSet selected = new BitSet(s.rows.length);
+        selected.set(0, s.rows.length);
+        if (specialty != null && !specialty.isBlank()) {
+            BitSet bySpecialty = s.bySpecialty.get(specialty.trim().toLowerCase(Locale.ROOT));
+            if (bySpecialty == null) return s.join(new BitSet());
+            selected.and(bySpecialty);
+        }
+        if (period != null && !period.isBlank()) {
+            selected.and("AM".equalsIgnoreCase(period.trim()) ? s.am : s.pm);
+        }
+        if (name != null && !name.isBlank()) {
+            List<String> terms = NameTokens.tokens(name);
+            if (terms.isEmpty()) selected.clear();
+            for (String term : terms) {
+                BitSet byTerm = new BitSet(s.rows.length);
+                for (BitSet positions : s.byToken.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                    byTerm.or(positions);
+                }
+                selected.and(byTerm);
+            }
+        }
+        return s.join(selected);
+    }
+
+    // 5b. **filterCbor Method**
+    // The result of `filterJson` as CBOR.
+
+    public byte[] filterCbor(String name, String specialty, String period) {
+        return toCbor(filterJson(name, specialty, period));
+    }
+
+    // 6. **refresh Method**
+    // Rebuilds the snapshot from the database; call it once the doctor change has been committed.
+
+    public void refresh() {
+        long change = changes.incrementAndGet();
+        synchronized (rebuildLock) {
+            if (builtAfter >= change) return;
+            long upTo = changes.get();
+            try {
+                current.set(transactionTemplate.execute(tx -> build(doctorRepository.findAll(
+                        DoctorSpecifications.filter(null, null, null), Sort.by("name", "id")))));
+                builtAfter = upTo;
+            } catch (RuntimeException e) {
+                current.set(null);
+                System.out.println("Could not rebuild the doctor directory: " + e.getMessage());
+            }
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = current.get();
+        if (s == null) {
+            refresh();
+            s = current.get();
+            if (s == null) throw new IllegalStateException("The doctor directory could not be loaded.");
+        }
+        return s;
+    }
+
+    private Snapshot build(List<Doctor> doctors) {
+        byte[][] rows = new byte[doctors.size()][];
+        Map<String, BitSet> bySpecialty = new HashMap<>();
+        NavigableMap<String, BitSet> byToken = new TreeMap<>();
+        BitSet am = new BitSet(rows.length);
+        BitSet pm = new BitSet(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            Doctor d = doctors.get(i);
+            try {
+                rows[i] = doctorWriter.writeValueAsBytes(d);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize doctor " + d.getId(), e);
+            }
+            if (d.getSpecialty() != null) {
+                bySpecialty.computeIfAbsent(d.getSpecialty().trim().toLowerCase(Locale.ROOT), k -> new BitSet()).set(i);
+            }
+            for (String token : NameTokens.tokens(d.getName())) {
+                byToken.computeIfAbsent(token, k -> new BitSet()).set(i);
+            }
+            if (Boolean.TRUE.equals(d.getAvailableAm())) am.set(i);
+            if (Boolean.TRUE.equals(d.getAvailablePm())) pm.set(i);
+        }
+        BitSet everyone = new BitSet(rows.length);
+        everyone.set(0, rows.length);
+        long now = System.currentTimeMillis();
+        lastVersion = Math.max(lastVersion + 1, now); // only called under rebuildLock
+        return new Snapshot(rows, bySpecialty, byToken, am, pm, everyone, lastVersion, now);
+    }
+
+    static byte[] toCbor(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser p = JSON.createParser(json); JsonGenerator gen = CBOR.createGenerator(out)) {
+            while (p.nextToken() != null) {
+                gen.copyCurrentEventExact(p);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // ============================= snapshot =============================
+
+    // Never modified after construction; the BitSets are only read (filterJson works on copies).
+    private static final class Snapshot {
+        private final byte[][] rows;
+        private final Map<String, BitSet> bySpecialty;
+        private final NavigableMap<String, BitSet> byToken;
+        private final BitSet am;
+        private final BitSet pm;
+        private final byte[] all;
+        private final byte[] allGzip;
+        private final byte[] allCbor;
+        private final long version;
+        private final long builtAt;
+
+        private Snapshot(byte[][] rows, Map<String, BitSet> bySpecialty, NavigableMap<String, BitSet> byToken,
+                         BitSet am, BitSet pm, BitSet everyone, long version, long builtAt) {
+            this.rows = rows;
+            this.bySpecialty = bySpecialty;
+            this.byToken = byToken;
+            this.am = am;
+            this.pm = pm;
+            this.all = join(everyone);
+            this.allGzip = gzip(all);
+            this.allCbor = toCbor(all);
+            this.version = version;
+            this.builtAt = builtAt;
+        }
+
+        private static byte[] gzip(byte[] data) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 8);
+            try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+                gz.write(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+
+        private byte[] join(BitSet selected) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes(OPEN);
+            for (int i = selected.nextSetBit(0), n = 0; i >= 0; i = selected.nextSetBit(i + 1), n++) {
+                if (n > 0) out.write(',');
+                out.writeBytes(rows[i]);
+            }
+            out.writeBytes(CLOSE);
+            return out.toByteArray();
+        }
+    }
+}
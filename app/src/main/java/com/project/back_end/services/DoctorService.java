@@ -1,20 +1,26 @@
 package com.project.back_end.services;
 
-import com.project.back_end.models.Appointment;
+import com.project.back_end.DTO.DoctorDirectoryPage;
+import com.project.back_end.DTO.DoctorSummary;
+import com.project.back_end.DTO.EarliestSlot;
 import com.project.back_end.models.Doctor;
+import com.project.back_end.models.ScheduleException;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorSpecifications;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 public class DoctorService {
@@ -32,17 +38,23 @@ public class DoctorService {
     private DoctorRepository doctorRepository;
     private AppointmentRepository appointmentRepository;
     private TokenService tokenService;
+    private DoctorAvailabilityIndex availabilityIndex;
+    private ScheduleExceptionRepository scheduleExceptionRepository;
 
     public DoctorService(DoctorRepository doctorRepository,
                          AppointmentRepository appointmentRepository,
-                         TokenService tokenService) {
+                         TokenService tokenService,
+                         DoctorAvailabilityIndex availabilityIndex,
+                         ScheduleExceptionRepository scheduleExceptionRepository) {
         this.doctorRepository = doctorRepository;
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        this.availabilityIndex = availabilityIndex;
+        this.scheduleExceptionRepository = scheduleExceptionRepository;
     }
 
     // 3. **Add @Transactional Annotation for Methods that Modify or Fetch Database Data**:
-    //    - Methods like `getDoctorAvailability`, `getDoctors`, `findDoctorByName`, `filterDoctorsBy*` should be annotated with `@Transactional`.
+    //    - Methods like `getDoctorAvailability`, `getDoctors`, `findDoctorByName`, `searchDoctors` should be annotated with `@Transactional`.
     //    - The `@Transactional` annotation ensures that database operations are consistent and wrapped in a single transaction.
     //    - Instruction: Add the `@Transactional` annotation above the methods that perform database operations or queries.
 
@@ -51,38 +63,94 @@ public class DoctorService {
     //    - The method fetches all appointments for the doctor on the given date and calculates the availability by comparing against booked slots.
     //    - Instruction: Ensure that the time slots are properly formatted and the available slots are correctly filtered.
 
-    @Transactional(readOnly = true)
+    //    - Served from `DoctorAvailabilityIndex`: slot templates and booked-slot bitsets are cached per doctor and doctor-day,
+    //      so no transaction is opened here and a warm call does not touch the database.
+
     public List<String> getDoctorAvailability(Long doctorId, LocalDate date) {
-        Doctor doctor = doctorRepository.findById(doctorId).orElse(null);
-        if (doctor == null) return Collections.emptyList();
+        List<String> free = availabilityIndex.availableSlots(doctorId, date);
+        return free != null ? free : Collections.emptyList();
+    }
+
+    // 4b. **getDoctorAvailability Method (range)**:
+    //    - Free slots of a doctor for every date from `from` to `to` (inclusive), keyed by date in order.
+    //    - Days not cached yet are materialized together by the index (one exception and one appointment query).
+    //    - Returns null when the doctor does not exist.
 
-        // Day window [start, end)
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.plusDays(1).atStartOfDay();
+    public Map<LocalDate, List<String>> getDoctorAvailability(Long doctorId, LocalDate from, LocalDate to) {
+        return availabilityIndex.availableSlots(doctorId, from, to);
+    }
 
+    // 4c. **getDoctorsAvailability Method**:
+    //    - Free slots of several doctors on one date, keyed by doctor id in request order; unknown ids are left out.
+    //    - Cold templates and days of all the doctors are loaded together (one slot, exception and appointment query).
 
-        // Appointments booked that day for this doctor
-        List<Appointment> dayAppointments =
-                appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
+    public Map<Long, List<String>> getDoctorsAvailability(Collection<Long> doctorIds, LocalDate date) {
+        return availabilityIndex.availableSlots(doctorIds, date);
+    }
 
+    // 4c2. **getAvailabilityVersion Methods**:
+    //    - Version of the doctor-days behind the matching getDoctorAvailability / getDoctorsAvailability call,
+    //      used as their ETag; it changes whenever one of those days changes. Read it before the slots.
 
-        // Collect booked LocalTime values
-        Set<LocalTime> bookedTimes = dayAppointments.stream()
-                .map(Appointment::getAppointmentTime)
-                .filter(Objects::nonNull)
-                .map(LocalDateTime::toLocalTime)
-                .collect(Collectors.toSet());
+    public long getAvailabilityVersion(Long doctorId, LocalDate date) {
+        return availabilityIndex.version(doctorId, date);
+    }
 
+    public long getAvailabilityVersion(Long doctorId, LocalDate from, LocalDate to) {
+        return availabilityIndex.version(doctorId, from, to);
+    }
 
-        // Doctor's configured available time-of-day slots
-        List<String> slots = safeAvailableTimes(doctor);
+    public long getAvailabilityVersion(Collection<Long> doctorIds, LocalDate date) {
+        return availabilityIndex.version(doctorIds, date);
+    }
 
+    // 4d. **updateWeeklySchedule Method**:
+    //    - Replaces a doctor's weekly schedule with the given slot labels per weekday (weekdays left out are days off).
+    //    - availableTimes becomes the distinct labels of the week; the doctor's cached days are dropped.
+    //    - Returns `1` on success, `-1` if the doctor does not exist, `0` on errors.
 
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("hh:mm a");
-        return slots.stream()
-                .filter(t -> !bookedTimes.contains(t))
-                .sorted()
-                .collect(Collectors.toList());
+    @Transactional
+    public int updateWeeklySchedule(Long doctorId, Map<DayOfWeek, List<String>> schedule) {
+        try {
+            Optional<Doctor> opt = doctorRepository.findById(doctorId);
+            if (opt.isEmpty()) return -1;
+            opt.get().setWeeklySchedule(schedule);
+            doctorRepository.flush();
+            availabilityIndex.invalidateDoctorAfterCommit(doctorId);
+            return 1;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    // 4e. **Schedule Exceptions**:
+    //    - addScheduleException: stores a day off or blocked window for the doctor; returns the saved exception,
+    //      or null if the doctor does not exist.
+    //    - removeScheduleException: deletes one of the doctor's exceptions; `1` removed, `-1` not found.
+    //    - getScheduleExceptions: the doctor's exceptions between two dates.
+    //    - Only the affected day is dropped from the availability index, once the change is committed.
+
+    @Transactional
+    public ScheduleException addScheduleException(Long doctorId, ScheduleException exception) {
+        if (!doctorRepository.existsById(doctorId)) return null;
+        exception.setDoctor(doctorRepository.getReferenceById(doctorId));
+        ScheduleException saved = scheduleExceptionRepository.save(exception);
+        availabilityIndex.invalidateDayAfterCommit(doctorId, saved.getDate());
+        return saved;
+    }
+
+    @Transactional
+    public int removeScheduleException(Long doctorId, Long exceptionId) {
+        Optional<ScheduleException> opt = scheduleExceptionRepository.findByIdAndDoctorId(exceptionId, doctorId);
+        if (opt.isEmpty()) return -1;
+        scheduleExceptionRepository.delete(opt.get());
+        availabilityIndex.invalidateDayAfterCommit(doctorId, opt.get().getDate());
+        return 1;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScheduleException> getScheduleExceptions(Long doctorId, LocalDate from, LocalDate to) {
+        return scheduleExceptionRepository.findByDoctorIdAndDateRange(doctorId, from, to);
     }
 
     // 5. **saveDoctor Method**:
@@ -97,6 +165,7 @@ public class DoctorService {
             boolean exists = doctorRepository.findByEmailIgnoreCase(doctor.getEmail()).isPresent();
             if (exists) return -1;
             Doctor saved = doctorRepository.save(doctor);
+            tokenService.invalidatePrincipalAfterCommit("doctor", doctor.getEmail()); // drop a cached "not found"
             return (saved != null && saved.getId() != null) ? 1 : 0;
         } catch (Exception e) {
             return 0;
@@ -114,6 +183,7 @@ public class DoctorService {
             Optional<Doctor> opt = doctorRepository.findById(updated.getId());
             if (opt.isEmpty()) return -1;
             Doctor d = opt.get();
+            String previousEmail = d.getEmail();
 
             // copy safe/updatable fields (adjust to your model)
             d.setName(updated.getName());
@@ -123,6 +193,10 @@ public class DoctorService {
             d.setSpecialty(updated.getSpecialty()); // or setSpecialization
             d.setAvailableTimes(safeAvailableTimes(updated));
             Doctor saved = doctorRepository.save(d);
+            // tokens issued for the old email must not keep their cached "doctor" role
+            tokenService.invalidatePrincipalAfterCommit("doctor", previousEmail);
+            tokenService.invalidatePrincipalAfterCommit("doctor", d.getEmail());
+            availabilityIndex.invalidateDoctorAfterCommit(d.getId());
             return (saved != null) ? 1 : 0;
         } catch (Exception e) {
             return 0;
@@ -135,10 +209,39 @@ public class DoctorService {
 
     @Transactional(readOnly = true)
     public List<Doctor> getDoctors() {
-        List<Doctor> list = doctorRepository.findAll();
-        // Eagerly touch collections to avoid LazyInitialization outside tx
-        list.forEach(d -> { List<String> at = safeAvailableTimes(d); at.size(); });
-        return list;
+        // findAll fetches availableTimes in the same query (entity graph), so no per-doctor loads
+        return doctorRepository.findAll();
+    }
+
+    // 7b. **getDirectoryPage Method**:
+    //    - Returns one page of the doctor directory in (name, id) order, starting after the given cursor.
+    //    - Two queries per page whatever its size: the keyset-seeked page projection, and the availableTimes of
+    //      exactly those doctors. One extra row is requested to know whether a next page exists.
+    //    - Throws IllegalArgumentException for a malformed cursor.
+
+    @Transactional(readOnly = true)
+    public DoctorDirectoryPage getDirectoryPage(String cursor, int limit) {
+        DirectoryCursor after = DirectoryCursor.decode(cursor);
+        Limit fetch = Limit.of(limit + 1);
+        List<DoctorSummary> rows = after == null
+                ? doctorRepository.findDirectoryFirstPage(fetch)
+                : doctorRepository.findDirectoryPageAfter(after.getName(), after.getId(), fetch);
+
+        boolean hasMore = rows.size() > limit;
+        List<DoctorSummary> page = hasMore ? rows.subList(0, limit) : rows;
+        if (!page.isEmpty()) {
+            Map<Long, DoctorSummary> byId = new HashMap<>();
+            for (DoctorSummary d : page) byId.put(d.getId(), d);
+            for (Object[] row : doctorRepository.findAvailableTimesByDoctorIds(byId.keySet())) {
+                byId.get((Long) row[0]).getAvailableTimes().add((String) row[1]);
+            }
+        }
+        String next = null;
+        if (hasMore) {
+            DoctorSummary last = page.get(page.size() - 1);
+            next = new DirectoryCursor(last.getName(), last.getId()).encode();
+        }
+        return new DoctorDirectoryPage(page, next);
     }
 
     // 8. **deleteDoctor Method**:
@@ -160,7 +263,10 @@ public class DoctorService {
                 // Fallback to custom name if used in your repo
                 try { appointmentRepository.deleteAllByDoctorId(doctorId); } catch (Throwable ignore) {}
             }
+            scheduleExceptionRepository.deleteAllByDoctorId(doctorId);
             doctorRepository.deleteById(doctorId);
+            tokenService.invalidatePrincipalAfterCommit("doctor", opt.get().getEmail());
+            availabilityIndex.invalidateDoctorAfterCommit(doctorId);
             return 1;
         } catch (Exception e) {
             return 0;
@@ -197,107 +303,108 @@ public class DoctorService {
         }
 
     // 10. **findDoctorByName Method**:
-    //    - Finds doctors based on partial name matching and returns the list of doctors with their available times.
+    //    - Finds doctors whose name has a word starting with each word of the search (case and accents ignored),
+    //      ordered by name, and returns them with their available times.
     //    - This method is annotated with `@Transactional` to ensure that the database query and data retrieval are properly managed within a transaction.
     //    - Instruction: Ensure that available times are eagerly loaded for the doctors.
 
     // ---- 10) findDoctorByName ----
     @Transactional(readOnly = true)
     public List<Doctor> findDoctorByName(String name) {
-        List<Doctor> docs = doctorRepository.findByNameContaining(name);
-        // eager touch availableTimes
-        docs.forEach(d -> { List<String> at = safeAvailableTimes(d); at.size(); });
-        return docs;
-    }
-
-    // 11. **filterDoctorsByNameSpecilityandTime Method**:
-    //    - Filters doctors based on their name, specialty, and availability during a specific time (AM/PM).
-    //    - The method fetches doctors matching the name and specialty criteria, then filters them based on their availability during the specified time period.
-    //    - Instruction: Ensure proper filtering based on both the name and specialty as well as the specified time period.
-
-    @Transactional(readOnly = true)
-    public List<Doctor> filterDoctorsByNameSpecilityandTime(String name, String specialty, String period) {
-        List<Doctor> base = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
-        return filterDoctorByTime(base, period);
-    }
-
-    // 12. **filterDoctorByTime Method**:
-    //    - Filters a list of doctors based on whether their available times match the specified time period (AM/PM).
-    //    - This method processes a list of doctors and their available times to return those that fit the time criteria.
-    //    - Instruction: Ensure that the time filtering logic correctly handles both AM and PM time slots and edge cases.
-
-    @Transactional(readOnly = true)
-    public List<Doctor> filterDoctorByTime(List<Doctor> doctors, String period) {
-        if (doctors == null || doctors.isEmpty()) return Collections.emptyList();
-        boolean wantAM = isAM(period);
-        return doctors.stream()
-                .filter(d -> safeAvailableTimes(d).stream().anyMatch(t -> matchesPeriod(LocalTime.parse(t), wantAM)))
-                .peek(d -> { List<String> at = safeAvailableTimes(d); at.size(); })
-                .collect(Collectors.toList());
+        // token-index lookup per search word; availableTimes come with the doctors (entity graph on findAll)
+        return doctorRepository.findAll(DoctorSpecifications.nameMatches(name), Sort.by("name", "id"));
     }
 
-    // 13. **filterDoctorByNameAndTime Method**:
-    //    - Filters doctors based on their name and the specified time period (AM/PM).
-    //    - Fetches doctors based on partial name matching and filters the results to include only those available during the specified time period.
-    //    - Instruction: Ensure that the method correctly filters doctors based on the given name and time of day (AM/PM).
-    @Transactional(readOnly = true)
-    public List<Doctor> filterDoctorByNameAndTime(String name, String period) {
-        List<Doctor> base = doctorRepository.findByNameContaining(name);
-        return filterDoctorByTime(base, period);
-    }
+    // 11. **searchDoctors Method**:
+    //    - Filters doctors by any combination of name (partial, case-insensitive), specialty and time period (AM/PM);
+    //      blank filters are ignored, so no filter at all lists every doctor.
+    //    - One query built from DoctorSpecifications: the database applies all filters (the period through the
+    //      indexed has_am_slots / has_pm_slots columns) and availableTimes are fetched in the same query.
+    //    - Replaces the former per-combination filter methods, which loaded whole specialties (or every doctor)
+    //      and parsed each slot string in memory.
 
-    // 14. **filterDoctorByNameAndSpecility Method**:
-    //    - Filters doctors by name and specialty.
-    //    - It ensures that the resulting list of doctors matches both the name (case-insensitive) and the specified specialty.
-    //    - Instruction: Ensure that both name and specialty are considered when filtering doctors.
     @Transactional(readOnly = true)
-    public List<Doctor> filterDoctorByNameAndSpecility(String name, String specialty) {
-        List<Doctor> base = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
-        base.forEach(d -> { List<String> at = safeAvailableTimes(d); at.size(); });
-        return base;
+    public List<Doctor> searchDoctors(String name, String specialty, String period) {
+        return doctorRepository.findAll(DoctorSpecifications.filter(name, specialty, period),
+                Sort.by("name", "id"));
     }
 
-    // 15. **filterDoctorByTimeAndSpecility Method**:
-    //    - Filters doctors based on their specialty and availability during a specific time period (AM/PM).
-    //    - Fetches doctors based on the specified specialty and filters them based on their available time slots for AM/PM.
-    //    - Instruction: Ensure the time filtering is accurately applied based on the given specialty and time period (AM/PM).
-
-    @Transactional(readOnly = true)
-    public List<Doctor> filterDoctorByTimeAndSpecility(String period, String specialty) {
-        List<Doctor> base = doctorRepository.findBySpecialtyIgnoreCase(specialty);
-        return filterDoctorByTime(base, period);
-    }
-
-    // 16. **filterDoctorBySpecility Method**:
-    //    - Filters doctors based on their specialty.
-    //    - This method fetches all doctors matching the specified specialty and returns them.
-    //    - Instruction: Make sure the filtering logic works for case-insensitive specialty matching.
-
-    @Transactional(readOnly = true)
-    public List<Doctor> filterDoctorBySpecility(String specialty) {
-        List<Doctor> base = doctorRepository.findBySpecialtyIgnoreCase(specialty);
-        base.forEach(d -> { List<String> at = safeAvailableTimes(d); at.size(); });
-        return base;
-    }
-
-    // 17. **filterDoctorsByTime Method**:
-    //    - Filters all doctors based on their availability during a specific time period (AM/PM).
-    //    - The method checks all doctors' available times and returns those available during the specified time period.
-    //    - Instruction: Ensure proper filtering logic to handle AM/PM time periods.
-
-    @Transactional(readOnly = true)
-    public List<Doctor> filterDoctorsByTime(String period) {
-        List<Doctor> all = doctorRepository.findAll();
-        return filterDoctorByTime(all, period);
-    }
-
-    private boolean isAM(String period) {
-        return period != null && period.trim().equalsIgnoreCase("AM");
+    // 12. **findEarliestSlots Method**:
+    //    - "Who in <specialty> can see me soonest?": the earliest free slots at or after `from` among all doctors of the
+    //      specialty, within `horizonDays` days, at most `limit` slots and at most `perDoctor` per doctor.
+    //    - One cursor per doctor walks its free slots in time order; a priority queue keyed by each cursor's next slot
+    //      repeatedly takes the earliest one, so the walk stops as soon as `limit` slots are found.
+    //    - Free slots come from DoctorAvailabilityIndex one date at a time for all doctors together (cold dates cost a
+    //      fixed number of queries, not one per doctor), so the work is bounded by horizonDays batches whatever
+    //      the number of doctors.
+    //    - Returns a list of EarliestSlot {doctorId, doctorName, appointmentTime, slot}, earliest first (ties by doctor id).
+
+    public List<EarliestSlot> findEarliestSlots(String specialty, LocalDateTime from,
+                                                       int horizonDays, int limit, int perDoctor) {
+        List<EarliestSlot> out = new ArrayList<>();
+        Map<Long, String> names = new LinkedHashMap<>();
+        for (Object[] row : doctorRepository.findIdAndNameBySpecialty(specialty)) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+        if (names.isEmpty() || limit <= 0) return out;
+
+        LocalDate lastDay = from.toLocalDate().plusDays(horizonDays - 1L);
+        Map<LocalDate, Map<Long, List<String>>> byDate = new HashMap<>();
+        Function<LocalDate, Map<Long, List<String>>> freeOn =
+                date -> byDate.computeIfAbsent(date, d -> availabilityIndex.availableSlots(names.keySet(), d));
+
+        PriorityQueue<SlotCursor> queue = new PriorityQueue<>(
+                Comparator.comparing((SlotCursor c) -> c.next).thenComparing(c -> c.doctorId));
+        for (Long id : names.keySet()) {
+            SlotCursor c = new SlotCursor(id, from.toLocalDate());
+            if (c.advance(from, lastDay, freeOn)) queue.add(c);
+        }
+        while (!queue.isEmpty() && out.size() < limit) {
+            SlotCursor c = queue.poll();
+            out.add(new EarliestSlot(c.doctorId, names.get(c.doctorId), c.next.toString(), c.label));
+            if (++c.taken < perDoctor && c.advance(from, lastDay, freeOn)) queue.add(c);
+        }
+        return out;
     }
 
+    // Walks one doctor's free slots in time order, a date at a time; `next`/`label` hold the current slot.
+    private static final class SlotCursor {
+        private final Long doctorId;
+        private LocalDate date;
+        private List<String> free;
+        private int pos;
+        private LocalDateTime next;
+        private String label;
+        private int taken;
+
+        private SlotCursor(Long doctorId, LocalDate firstDay) {
+            this.doctorId = doctorId;
+            this.date = firstDay;
+        }
 
-    private boolean matchesPeriod(LocalTime t, boolean wantAM) {
-        return wantAM ? t.getHour() < 12 : t.getHour() >= 12;
+        // Moves to the next free slot at or after `from`; false once the horizon is exhausted.
+        private boolean advance(LocalDateTime from, LocalDate lastDay,
+                                Function<LocalDate, Map<Long, List<String>>> freeOn) {
+            while (true) {
+                if (free == null) {
+                    if (date.isAfter(lastDay)) return false;
+                    free = freeOn.apply(date).getOrDefault(doctorId, List.of());
+                    pos = 0;
+                }
+                while (pos < free.size()) {
+                    String l = free.get(pos++);
+                    int minute = SlotTimes.startMinute(l);
+                    if (minute < 0) continue;
+                    LocalDateTime at = date.atStartOfDay().plusMinutes(minute);
+                    if (at.isBefore(from)) continue;
+                    next = at;
+                    label = l;
+                    return true;
+                }
+                free = null;
+                date = date.plusDays(1);
+            }
+        }
     }
 
     @SuppressWarnings("unchecked")
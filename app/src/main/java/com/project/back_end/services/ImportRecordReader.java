@@ -0,0 +1,248 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+public class ImportRecordReader implements Iterator<ImportRecordReader.Record>, Closeable {
+
+    // 1. **Purpose**
+    // Pulls one record at a time out of an upload, so BulkImportService never holds more than one chunk in memory.
+    // Two formats are understood:
+    // - CSV: the first line holds the column names; fields may be quoted ("a, b"), quotes are doubled inside quotes,
+    //   and a quoted field may span several lines. A logical row is capped at MAX_ROW_CHARS: a quote that is not
+    //   closed within it (or before the end of input) makes its first line an "Unterminated quoted field." record,
+    //   and reading resumes on the next line, so one stray quote neither swallows nor buffers the rest of the file.
+    // - NDJSON: one JSON object per line; nested values are kept as their JSON text, arrays of strings are joined with ';'.
+    // Column names are lower-cased and stripped of '_' and ' ', so "Available Times" and "available_times" both match.
+    // A UTF-8 byte order mark at the start of the upload (Excel's CSV export writes one) is skipped.
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+    static final int MAX_ROW_CHARS = 64 * 1024;
+    private static final char BOM = '\uFEFF';
+
+    private final BufferedReader in;
+    private final String format;
+    private final ObjectMapper objectMapper;
+    private String[] header;
+    private long line;
+    private Record next;
+    private String rowError;
+
+    private ImportRecordReader(Reader reader, String format, ObjectMapper objectMapper) {
+        this.in = reader instanceof BufferedReader br ? br : new BufferedReader(reader, 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    public static ImportRecordReader csv(Reader reader) {
+        return new ImportRecordReader(reader, CSV, null);
+    }
+
+    public static ImportRecordReader ndjson(Reader reader, ObjectMapper objectMapper) {
+        return new ImportRecordReader(reader, NDJSON, objectMapper);
+    }
+
+    // Maps a Content-Type or an explicit `format` parameter to one of the two formats; null when neither applies.
+    public static String formatOf(String explicit, String contentType) {
+        String f = explicit != null && !explicit.isBlank() ? explicit : contentType;
+        if (f == null) return null;
+        f = f.toLowerCase(Locale.ROOT);
+        if (f.contains("csv")) return CSV;
+        if (f.contains("ndjson") || f.contains("jsonl") || f.contains("json-seq") || f.contains("json")) return NDJSON;
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) next = read();
+        return next != null;
+    }
+
+    @Override
+    public Record next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Record r = next;
+        next = null;
+        return r;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ============================= parsing =============================
+
+    private Record read() {
+        try {
+            return CSV.equals(format) ? readCsv() : readJson();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Record readCsv() throws IOException {
+        if (header == null) {
+            List<String> names = readCsvRow();
+            if (names == null) return null;
+            header = names.stream().map(ImportRecordReader::normalize).toArray(String[]::new);
+            if (rowError != null) return new Record(line, new HashMap<>(), rowError + " (header)");
+        }
+        while (true) {
+            long startLine = line + 1;
+            List<String> fields = readCsvRow();
+            if (fields == null) return null;
+            if (rowError != null) return new Record(startLine, new HashMap<>(), rowError);
+            if (fields.size() == 1 && fields.get(0).isBlank()) continue; // empty line
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.length && i < fields.size(); i++) {
+                values.put(header[i], fields.get(i).trim());
+            }
+            return new Record(startLine, values);
+        }
+    }
+
+    // Reads one logical CSV row, following quoted fields across line breaks; null at end of input.
+    // When a quote is still open after MAX_ROW_CHARS or at the end of input, the reader goes back to the line after
+    // the row's first one (mark/reset, so at most MAX_ROW_CHARS are buffered) and sets `rowError`.
+    private List<String> readCsvRow() throws IOException {
+        rowError = null;
+        String l = readLine();
+        if (l == null) return null;
+        long firstLine = line;
+        long read = l.length();
+        boolean marked = false;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < l.length(); i++) {
+                char c = l.charAt(i);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i + 1 < l.length() && l.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) break;
+            if (!marked) {
+                in.mark(MAX_ROW_CHARS + 1);
+                marked = true;
+            }
+            l = readLine();
+            if (l != null) read += l.length() + 2; // counts the line break as \r\n, so the mark stays valid
+            if (l == null || read > MAX_ROW_CHARS) {
+                rowError = "Unterminated quoted field.";
+                try {
+                    in.reset();
+                    line = firstLine;
+                } catch (IOException markLost) {
+                    // a single line longer than the cap: carry on after it
+                }
+                return List.of();
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Record readJson() throws IOException {
+        String l;
+        while ((l = readLine()) != null) {
+            if (l.isBlank()) continue;
+            Map<String, String> values = new HashMap<>();
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(l);
+            } catch (IOException e) {
+                return new Record(line, values, "Malformed JSON.");
+            }
+            if (node == null || !node.isObject()) return new Record(line, values, "Expected a JSON object.");
+            node.fields().forEachRemaining(e -> values.put(normalize(e.getKey()), text(e.getValue())));
+            return new Record(line, values);
+        }
+        return null;
+    }
+
+    // Next physical line, counted; the byte order mark is dropped from the first one.
+    private String readLine() throws IOException {
+        String l = in.readLine();
+        if (l == null) return null;
+        if (line++ == 0 && !l.isEmpty() && l.charAt(0) == BOM) l = l.substring(1);
+        return l;
+    }
+
+    private static String text(JsonNode v) {
+        if (v == null || v.isNull()) return null;
+        if (v.isValueNode()) return v.asText();
+        if (v.isArray()) {
+            StringJoiner j = new StringJoiner(";");
+            v.forEach(e -> j.add(e.isValueNode() ? e.asText() : e.toString()));
+            return j.toString();
+        }
+        return v.toString();
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT).replace("_", "").replace(" ", "");
+    }
+
+    // ============================= record =============================
+
+    // One input record: its (first) line number, the values by normalized column name, and a parse error if any.
+    public static final class Record {
+        private final long line;
+        private final Map<String, String> values;
+        private final String error;
+
+        private Record(long line, Map<String, String> values) {
+            this(line, values, null);
+        }
+
+        private Record(long line, Map<String, String> values, String error) {
+            this.line = line;
+            this.values = values;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        // Value of the first of the given columns that is present and not blank.
+        public String get(String... columns) {
+            for (String c : columns) {
+                String v = values.get(c);
+                if (v != null && !v.isBlank()) return v.trim();
+            }
+            return null;
+        }
+    }
+}
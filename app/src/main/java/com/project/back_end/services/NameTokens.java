@@ -0,0 +1,69 @@
+package com.project.back_end.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+public final class NameTokens {
+
+    // Tokenizer behind the doctor/patient name search.
+    // A name is split into words, each lower-cased and stripped of accents ("José-María Núñez" -> jose, maria, nunez).
+    // The words are stored per person (doctor_name_token / patient_name_token) with an index on the token, so a
+    // search term becomes an index range scan `token LIKE 'nun%'` instead of `lower(name) LIKE '%nun%'` over every row.
+    // Matching is by word prefix: "nun" and "maria" find the name above, "unez" does not.
+
+    public static final int MAX_LENGTH = 50;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private NameTokens() {
+    }
+
+    // Distinct tokens of a name (or of a search string), in order of appearance; empty for null or blank input.
+    public static List<String> tokens(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        Set<String> out = new LinkedHashSet<>();
+        for (String t : SEPARATORS.split(folded)) {
+            if (t.isEmpty()) continue;
+            out.add(t.length() > MAX_LENGTH ? t.substring(0, MAX_LENGTH) : t);
+        }
+        return new ArrayList<>(out);
+    }
+
+    // Removes the stored tokens that are not part of the (new) name and returns the words still missing,
+    // so the tokens that stay are neither deleted nor re-inserted.
+    public static <T> List<String> sync(Collection<T> stored, Function<T, String> token, String name) {
+        List<String> wanted = tokens(name);
+        stored.removeIf(t -> !wanted.contains(token.apply(t)));
+        List<String> missing = new ArrayList<>(wanted);
+        for (T t : stored) {
+            missing.remove(token.apply(t));
+        }
+        return missing;
+    }
+
+    // The LIKE pattern for the most selective (longest) search term, or null when the search has no terms.
+    // Queries run with it against the token index; the other terms are checked with `matches` on the results.
+    public static String prefixPattern(List<String> terms) {
+        return terms.stream().max(Comparator.comparingInt(String::length)).map(t -> t + "%").orElse(null);
+    }
+
+    // Whether every search term is a prefix of some token of the name.
+    public static boolean matches(String name, List<String> terms) {
+        List<String> tokens = tokens(name);
+        for (String term : terms) {
+            if (tokens.stream().noneMatch(t -> t.startsWith(term))) return false;
+        }
+        return true;
+    }
+}
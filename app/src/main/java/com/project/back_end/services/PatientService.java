@@ -1,5 +1,9 @@
 package com.project.back_end.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.util.BeanUtil;
 import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
@@ -14,12 +18,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.*;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class PatientService {
@@ -36,14 +43,19 @@ public class PatientService {
     private PatientRepository patientRepository;
     private AppointmentRepository appointmentRepository;
     private TokenService tokenService;
+    private ObjectWriter exportWriter;
 
     public PatientService(
             PatientRepository patientRepository,
             AppointmentRepository appointmentRepository,
-            TokenService tokenService) {
+            TokenService tokenService,
+            ObjectMapper objectMapper) {
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
+        // one flush per EXPORT_FLUSH_ROWS rows instead of one per row
+        this.exportWriter = objectMapper.writerFor(AppointmentDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
 
@@ -58,6 +70,7 @@ public class PatientService {
             // Ensure insert
             try { patient.setId(null); } catch (Throwable ignored) {}
             Patient saved = patientRepository.save(patient);
+            tokenService.invalidatePrincipalAfterCommit("patient", patient.getEmail()); // drop a cached "not found"
             return (saved != null && getId(saved) != null) ? 1 : 0;
         } catch (Exception e) {
             return 0;
@@ -66,7 +79,7 @@ public class PatientService {
 
     // 4. **getPatientAppointment Method**:
     //    - Retrieves a list of appointments for a specific patient, based on their ID.
-    //    - The appointments are then converted into `AppointmentDTO` objects for easier consumption by the API client.
+    //    - The appointments are read straight into `AppointmentDTO` objects (constructor-expression query), without loading entities.
     //    - This method is marked as `@Transactional` to ensure database consistency during the transaction.
     //    - Instruction: Ensure that appointment data is properly converted into DTOs and the method handles errors gracefully.
 
@@ -76,17 +89,42 @@ public class PatientService {
             if (patientId == null) {
                 return ResponseEntity.badRequest().body(List.of());
             }
-            List<Appointment> list = appointmentRepository
-                    .findByPatientId(patientId);
-            List<AppointmentDTO> dto = list.stream()
-                    .map(this::toDto)
-                    .collect(Collectors.toList());
+            List<AppointmentDTO> dto = appointmentRepository.findDtosByPatientId(patientId);
             return ResponseEntity.ok(dto);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(List.of());
         }
     }
 
+    // 4b. **exportAppointments Method**:
+    //    - Writes all appointments of a patient to `out` as a JSON array (same rows and fields as getPatientAppointment)
+    //      and returns the number of rows.
+    //    - Rows come from a forward-only stream (streamDtosByPatientId) and go straight to Jackson's streaming generator,
+    //      so memory stays constant however long the history is. The opening bracket is flushed before the first row
+    //      is read, then the output is flushed every EXPORT_FLUSH_ROWS rows.
+    //    - `out` is left open. An error half-way leaves the array unterminated, so the client cannot mistake a
+    //      truncated export for a complete one.
+
+    private static final int EXPORT_FLUSH_ROWS = 500;
+
+    @Transactional(readOnly = true)
+    public int exportAppointments(Long patientId, OutputStream out) throws IOException {
+        int rows = 0;
+        try (Stream<AppointmentDTO> stream = appointmentRepository.streamDtosByPatientId(patientId);
+             JsonGenerator gen = exportWriter.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.writeStartArray();
+            gen.flush();
+            Iterator<AppointmentDTO> it = stream.iterator();
+            while (it.hasNext()) {
+                exportWriter.writeValue(gen, it.next());
+                if (++rows % EXPORT_FLUSH_ROWS == 0) gen.flush();
+            }
+            gen.writeEndArray();
+        }
+        return rows;
+    }
+
     // 5. **filterByCondition Method**:
     //    - Filters appointments for a patient based on the condition (e.g., "past" or "future").
     //    - Retrieves appointments with a specific status (0 for future, 1 for past) for the patient.
@@ -100,9 +138,7 @@ public class PatientService {
             if (patientId == null || status == null) {
                 return ResponseEntity.badRequest().body(List.of());
             }
-            List<Appointment> list = appointmentRepository
-                    .findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, status);
-            List<AppointmentDTO> dto = list.stream().map(this::toDto).collect(Collectors.toList());
+            List<AppointmentDTO> dto = appointmentRepository.findDtosByPatientIdAndStatus(patientId, status);
             return ResponseEntity.ok(dto);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(List.of());
@@ -111,7 +147,7 @@ public class PatientService {
 
     // 6. **filterByDoctor Method**:
     //    - Filters appointments for a patient based on the doctor's name.
-    //    - It retrieves appointments where the doctor’s name matches the given value, and the patient ID matches the provided ID.
+    //    - It retrieves appointments where every word of the given value starts a word of the doctor's name, and the patient ID matches the provided ID.
     //    - Instruction: Ensure that the method correctly filters by doctor's name and patient ID and handles any errors or invalid cases.
 
     @Transactional(readOnly = true)
@@ -120,9 +156,15 @@ public class PatientService {
             if (patientId == null || doctorName == null || doctorName.isBlank()) {
                 return ResponseEntity.badRequest().body(List.of());
             }
-            List<Appointment> list = appointmentRepository
-                    .findByDoctor_NameContainingIgnoreCaseAndPatient_Id(doctorName, patientId);
-            List<AppointmentDTO> dto = list.stream().map(this::toDto).collect(Collectors.toList());
+            List<String> terms = NameTokens.tokens(doctorName);
+            if (terms.isEmpty()) {
+                return ResponseEntity.ok(List.of());
+            }
+            List<AppointmentDTO> dto = appointmentRepository
+                    .filterByDoctorNameAndPatientId(NameTokens.prefixPattern(terms), patientId)
+                    .stream()
+                    .filter(a -> NameTokens.matches(a.getDoctorName(), terms))
+                    .collect(Collectors.toList());
             return ResponseEntity.ok(dto);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(List.of());
@@ -142,9 +184,15 @@ public class PatientService {
             if (patientId == null || status == null || doctorName == null || doctorName.isBlank()) {
                 return ResponseEntity.badRequest().body(List.of());
             }
-            List<Appointment> list = appointmentRepository
-                    .findByDoctor_NameContainingIgnoreCaseAndPatient_IdAndStatusOrderByAppointmentTimeAsc(doctorName, patientId, status);
-            List<AppointmentDTO> dto = list.stream().map(this::toDto).collect(Collectors.toList());
+            List<String> terms = NameTokens.tokens(doctorName);
+            if (terms.isEmpty()) {
+                return ResponseEntity.ok(List.of());
+            }
+            List<AppointmentDTO> dto = appointmentRepository
+                    .filterByDoctorNameAndPatientIdAndStatus(NameTokens.prefixPattern(terms), patientId, status)
+                    .stream()
+                    .filter(a -> NameTokens.matches(a.getDoctorName(), terms))
+                    .collect(Collectors.toList());
             return ResponseEntity.ok(dto);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(List.of());
@@ -152,22 +200,17 @@ public class PatientService {
     }
 
     // 8. **getPatientDetails Method**:
-    //    - Retrieves patient details using the `tokenService` to extract the patient's email from the provided token.
-    //    - Once the email is extracted, it fetches the corresponding patient from the `patientRepository`.
+    //    - Retrieves patient details for the patient id of the authenticated caller (resolved once from the token).
+    //    - It fetches the corresponding patient from the `patientRepository` by primary key.
     //    - It returns the patient's information in the response body.
-    //    - Instruction: Make sure that the token extraction process works correctly and patient details are fetched properly based on the extracted email.
 
     @Transactional(readOnly = true)
-    public ResponseEntity<Patient> getPatientDetails(String token) {
+    public ResponseEntity<Patient> getPatientDetails(Long patientId) {
         try {
-            if (token == null || token.isBlank()) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
-            String email = tokenService.extractEmail(token);
-            if (email == null || email.isBlank()) {
+            if (patientId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
-            Optional<Patient> opt = patientRepository.findByEmailIgnoreCase(email);
+            Optional<Patient> opt = patientRepository.findById(patientId);
             if (opt.isEmpty()) return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             Patient p = opt.get();
             return ResponseEntity.ok(toDto(p));
@@ -192,13 +235,6 @@ public class PatientService {
         return null;
     }
 
-    private AppointmentDTO toDto(Appointment a) {
-        if (a == null) return null;
-        AppointmentDTO dto = new AppointmentDTO();
-        BeanUtils.copyProperties(a, dto);
-        return dto;
-    }
-
     private Patient toDto(Patient p) {
         if (p == null) return null;
         Patient dto = new Patient();
@@ -0,0 +1,156 @@
+package com.project.back_end.services;
+
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class PrincipalRegistry {
+
+    // 1. **Purpose**
+    // Maps a token subject and role (admin, doctor, patient) to the id of the matching entity.
+    // Token validation used to fire several exists/find queries per request to answer "does this user exist?";
+    // the registry answers it from memory and runs a single id-only query on a miss.
+
+    // 2. **Positive and Negative Entries**
+    // - A found id is kept for `positiveTtl` (writes through DoctorService/PatientService invalidate it earlier).
+    // - A "not found" result is kept only for `negativeTtl`, so a freshly registered user is never locked out for long.
+
+    // 3. **Invalidation**
+    // `invalidate(role, subject)` is called (through TokenService.invalidatePrincipal) whenever a doctor is saved,
+    // updated or deleted, or a patient is created.
+
+    private static final Long NOT_FOUND = -1L;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private AdminRepository adminRepository;
+    private DoctorRepository doctorRepository;
+    private PatientRepository patientRepository;
+    private long positiveTtlMillis;
+    private long negativeTtlMillis;
+    private int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PrincipalRegistry(AdminRepository adminRepository,
+                             DoctorRepository doctorRepository,
+                             PatientRepository patientRepository,
+                             @Value("${auth.principal-cache.positive-ttl-seconds:600}") long positiveTtlSeconds,
+                             @Value("${auth.principal-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                             @Value("${auth.principal-cache.max-entries:20000}") int maxEntries) {
+        this.adminRepository = adminRepository;
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+        this.positiveTtlMillis = positiveTtlSeconds * 1000;
+        this.negativeTtlMillis = negativeTtlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    // 4. **resolve Method**
+    // Returns the entity id for the subject in the given role, or null if no such user exists (or the role is unknown).
+
+    public Long resolve(String role, String subject) {
+        if (role == null || subject == null || subject.isBlank()) return null;
+        String r = role.toLowerCase(Locale.ROOT);
+        String key = key(r, subject);
+        long now = System.currentTimeMillis();
+
+        Entry e = entries.get(key);
+        if (e != null && e.expiresAt > now) {
+            if (NOT_FOUND.equals(e.id)) {
+                negativeHits.increment();
+                return null;
+            }
+            hits.increment();
+            return e.id;
+        }
+
+        misses.increment();
+        Long id = load(r, subject);
+        if (id == null && !isKnownRole(r)) return null;
+        if (entries.size() >= maxEntries) purge(now);
+        entries.put(key, new Entry(id == null ? NOT_FOUND : id,
+                now + (id == null ? negativeTtlMillis : positiveTtlMillis)));
+        return id;
+    }
+
+    public boolean exists(String role, String subject) {
+        return resolve(role, subject) != null;
+    }
+
+    // 5. **invalidate Method**
+    // Forgets the cached answer for a subject so the next lookup reads the database again.
+
+    public void invalidate(String role, String subject) {
+        if (role == null || subject == null) return;
+        entries.remove(key(role.toLowerCase(Locale.ROOT), subject));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("size", entries.size());
+        s.put("maxEntries", maxEntries);
+        s.put("hits", hits.sum());
+        s.put("negativeHits", negativeHits.sum());
+        s.put("misses", misses.sum());
+        return s;
+    }
+
+    // ============================= helpers =============================
+
+    private Long load(String role, String subject) {
+        switch (role) {
+            case "admin": {
+                List<Long> ids = adminRepository.findIdsByUsernameOrEmail(subject);
+                return ids.isEmpty() ? null : ids.get(0);
+            }
+            case "doctor":
+                return doctorRepository.findIdByEmailIgnoreCase(subject).orElse(null);
+            case "patient":
+                return patientRepository.findIdByEmailIgnoreCase(subject).orElse(null);
+            default:
+                return null;
+        }
+    }
+
+    private boolean isKnownRole(String role) {
+        return "admin".equals(role) || "doctor".equals(role) || "patient".equals(role);
+    }
+
+    // Admin usernames are case-sensitive; emails are matched case-insensitively by the repositories.
+    private String key(String role, String subject) {
+        return role + ':' + ("admin".equals(role) ? subject : subject.toLowerCase(Locale.ROOT));
+    }
+
+    // Drops expired entries; if the map is still full, starts over rather than tracking recency.
+    private void purge(long now) {
+        entries.values().removeIf(e -> e.expiresAt <= now);
+        if (entries.size() >= maxEntries) entries.clear();
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final long expiresAt;
+
+        private Entry(Long id, long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
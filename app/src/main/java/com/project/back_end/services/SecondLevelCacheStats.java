@@ -0,0 +1,61 @@
+package com.project.back_end.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class SecondLevelCacheStats {
+
+    // 1. **Purpose**
+    // Doctors, their available times and slots are kept in Hibernate's second-level cache (regions in ehcache.xml),
+    // and the doctor directory/filter queries in the query cache. This reads Hibernate's statistics of those regions
+    // for the admin cache statistics endpoint. The counters are per instance, like the cache itself.
+
+    private EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheStats(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // 2. **stats Method**
+    // Hit/miss/put counters and in-memory size per region, then the query cache totals.
+    // Statistics are off unless cache.statistics.enabled (hibernate.generate_statistics) is set; the endpoint then
+    // only reports `enabled: false` instead of counters that never move.
+
+    public Map<String, Object> stats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("enabled", statistics.isStatisticsEnabled());
+        if (!statistics.isStatisticsEnabled()) return s;
+
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            // also covers the query result region, which getDomainDataRegionStatistics rejects
+            CacheRegionStatistics r = statistics.getCacheRegionStatistics(region);
+            if (r == null) continue;
+            Map<String, Object> rs = new LinkedHashMap<>();
+            rs.put("size", r.getElementCountInMemory());
+            rs.put("hits", r.getHitCount());
+            rs.put("misses", r.getMissCount());
+            rs.put("hitRatio", ratio(r.getHitCount(), r.getMissCount()));
+            rs.put("puts", r.getPutCount());
+            s.put(region, rs);
+        }
+        Map<String, Object> q = new LinkedHashMap<>();
+        q.put("hits", statistics.getQueryCacheHitCount());
+        q.put("misses", statistics.getQueryCacheMissCount());
+        q.put("hitRatio", ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        q.put("puts", statistics.getQueryCachePutCount());
+        s.put("queries", q);
+        return s;
+    }
+
+    private static double ratio(long hits, long misses) {
+        return (hits + misses) == 0 ? 0.0 : (double) hits / (hits + misses);
+    }
+}
@@ -0,0 +1,81 @@
+package com.project.back_end.services;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+public final class SlotTimes {
+
+    // Parsing helpers for the free-form strings stored in Doctor.availableTimes.
+    // The admin form, the seed data and the patient pages use different shapes for the same slot:
+    //   "09:00", "9:00", "09:00 AM", "09:00-10:00", "9:00 AM - 10:00 AM"
+    // All of them are reduced to the start time of the slot.
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final List<DateTimeFormatter> FORMATS = List.of(
+            formatter("H:mm"),
+            formatter("H:mm:ss"),
+            formatter("h:mm a"),
+            formatter("h:mma"),
+            formatter("h a"),
+            formatter("ha")
+    );
+
+    private SlotTimes() {
+    }
+
+    // Returns the start time of a slot string, or null when the string cannot be understood.
+    public static LocalTime parseStart(String slot) {
+        if (slot == null) return null;
+        String s = slot.trim();
+        int dash = s.indexOf('-');
+        if (dash > 0) s = s.substring(0, dash).trim();
+        if (s.isEmpty()) return null;
+        s = s.toUpperCase(Locale.ROOT).replace(".", "");
+        for (DateTimeFormatter f : FORMATS) {
+            try {
+                return LocalTime.parse(s, f);
+            } catch (DateTimeParseException ignored) {
+                // try the next shape
+            }
+        }
+        return null;
+    }
+
+    // End time of a "start-end" slot string, or null when there is no (parsable) end part.
+    public static LocalTime parseEnd(String slot) {
+        if (slot == null) return null;
+        int dash = slot.indexOf('-');
+        if (dash <= 0 || dash == slot.length() - 1) return null;
+        return parseStart(slot.substring(dash + 1));
+    }
+
+    // Length of the slot in minutes from its "start-end" form, or `defaultMinutes` when it has no usable end.
+    public static int durationMinutes(String slot, int defaultMinutes) {
+        LocalTime start = parseStart(slot);
+        LocalTime end = parseEnd(slot);
+        if (start == null || end == null || !end.isAfter(start)) return defaultMinutes;
+        return minuteOfDay(end) - minuteOfDay(start);
+    }
+
+    // Minute of day (0..1439) of the slot start, or -1 when the string cannot be parsed.
+    public static int startMinute(String slot) {
+        LocalTime t = parseStart(slot);
+        return t == null ? -1 : minuteOfDay(t);
+    }
+
+    public static int minuteOfDay(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+
+    private static DateTimeFormatter formatter(String pattern) {
+        return new DateTimeFormatterBuilder()
+                .parseCaseInsensitive()
+                .appendPattern(pattern)
+                .toFormatter(Locale.US);
+    }
+}
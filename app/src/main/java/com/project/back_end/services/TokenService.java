@@ -1,20 +1,22 @@
 package com.project.back_end.services;
 
-import com.project.back_end.repo.AdminRepository;
-import com.project.back_end.repo.DoctorRepository;
-import com.project.back_end.repo.PatientRepository;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
 
 @Component
 public class TokenService {
@@ -23,34 +25,37 @@ public class TokenService {
     // This allows the class to be injected into other Spring-managed components (like services or controllers) where it's needed.
 
     // 2. **Constructor Injection for Dependencies**
-    // The constructor injects dependencies for `AdminRepository`, `DoctorRepository`, and `PatientRepository`,
-    // allowing the service to interact with the database and validate users based on their role (admin, doctor, or patient).
+    // The constructor injects the `PrincipalRegistry`, which resolves a subject to an admin, doctor or patient id
+    // (backed by `AdminRepository`, `DoctorRepository`, and `PatientRepository`), and the `VerifiedTokenCache`.
     // Constructor injection ensures that the class is initialized with all required dependencies, promoting immutability and making the class testable.
 
-    private AdminRepository adminRepository;
-    private DoctorRepository doctorRepository;
-    private PatientRepository patientRepository;
+    private PrincipalRegistry principalRegistry;
     private String jwtSecret; // configured in application properties: jwt.secret
+    private VerifiedTokenCache tokenCache;
 
+    // The key and parser are immutable and thread-safe, so they are built once instead of per call.
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
 
-    public TokenService(AdminRepository adminRepository,
-                        DoctorRepository doctorRepository,
-                        PatientRepository patientRepository,
+
+    public TokenService(PrincipalRegistry principalRegistry,
+                        VerifiedTokenCache tokenCache,
                         @Value("${jwt.secret}") String jwtSecret) {
-        this.adminRepository = adminRepository;
-        this.doctorRepository = doctorRepository;
-        this.patientRepository = patientRepository;
+        this.principalRegistry = principalRegistry;
+        this.tokenCache = tokenCache;
         this.jwtSecret = jwtSecret;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
     }
 
     // 3. **getSigningKey Method**
     // This method retrieves the HMAC SHA key used to sign JWT tokens.
     // It uses the `jwt.secret` value, which is provided from an external source (like application properties).
     // The `Keys.hmacShaKeyFor()` method converts the secret key string into a valid `SecretKey` for signing and verification of JWTs.
+    // The key is derived once in the constructor; this accessor returns the shared instance.
 
     public SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     // 4. **generateToken Method**
@@ -77,57 +82,84 @@ public class TokenService {
     // - The token is first verified using the signing key to ensure it hasn’t been tampered with.
     // - After verification, the token is parsed, and the subject (which represents the email) is extracted.
     // This method allows the application to retrieve the user's identity (email) from the token for further use.
+    // Tokens that were already verified are served from `VerifiedTokenCache` without parsing them again.
 
     public String extractEmail(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.getSubject();
+        return verify(token, tokenCache.keyFor(token)).getSubject();
     }
 
     // 6. **validateToken Method**
     // This method validates whether a provided JWT token is valid for a specific user role (admin, doctor, or patient).
     // - It first extracts the email from the token using the `extractEmail()` method.
-    // - Depending on the role (`admin`, `doctor`, or `patient`), it checks the corresponding repository (AdminRepository, DoctorRepository, or PatientRepository)
-    //   to see if a user with the extracted email exists.
+    // - Depending on the role (`admin`, `doctor`, or `patient`), it asks the `PrincipalRegistry` whether a user with the
+    //   extracted subject exists (admins may be identified by username or email).
     // - If a match is found for the specified user role, it returns true, indicating the token is valid.
     // - If the role or user does not exist, it returns false, indicating the token is invalid.
     // - The method gracefully handles any errors by returning false if the token is invalid or an exception occurs.
     // This ensures secure access control based on the user's role and their existence in the system.
-
+    // Once a role has been confirmed for a token, the confirmation is kept in the cached entry,
+    // so later calls with the same token and role need neither a JWT parse nor a repository query.
 
     public boolean validateToken(String token, String role) {
         try {
-            String email = extractEmail(token);
-            if (email == null || email.isBlank() || role == null) return false;
-            switch (role.toLowerCase()) {
-                case "admin":   return existsAdminByEmail(email);
-                case "doctor":  return existsDoctorByEmail(email);
-                case "patient": return existsPatientByEmail(email);
-                default:        return false;
-            }
-        } catch (ExpiredJwtException | SecurityException | IllegalArgumentException e) {
+            if (token == null || role == null) return false;
+            String key = tokenCache.keyFor(token);
+            VerifiedTokenCache.VerifiedToken vt = verify(token, key);
+            String email = vt.getSubject();
+            if (email == null || email.isBlank()) return false;
+            String r = role.toLowerCase(Locale.ROOT);
+            if (vt.hasRole(r)) return true;
+            boolean exists = principalRegistry.exists(r, email);
+            if (exists) tokenCache.put(key, vt.withRole(r));
+            return exists;
+        } catch (JwtException | SecurityException | IllegalArgumentException e) {
             return false;
         }
     }
 
-    private boolean existsAdminByEmail(String email) {
-        try { return adminRepository.existsByEmail(email); } catch (Throwable ignored) {}
-        try { return adminRepository.findByEmail(email).isPresent(); } catch (Throwable ignored) {}
-        return false;
+    // 7. **resolvePrincipalId Method**
+    // Returns the id of the admin, doctor or patient identified by the subject, or null if there is none.
+
+    public Long resolvePrincipalId(String role, String subject) {
+        return principalRegistry.resolve(role, subject);
+    }
+
+    // 8. **invalidatePrincipal Method**
+    // Forgets every cached token and the cached id of the given subject.
+    // Called when the account behind the subject is created, changed or removed.
+
+    public void invalidatePrincipal(String role, String subject) {
+        if (subject == null) return;
+        tokenCache.invalidateSubject(subject);
+        principalRegistry.invalidate(role, subject);
     }
-    private boolean existsDoctorByEmail(String email) {
-        try { return doctorRepository.existsByEmail(email); } catch (Throwable ignored) {}
-        try { return doctorRepository.findByEmailIgnoreCase(email).isPresent(); } catch (Throwable ignored) {}
-        try { return doctorRepository.findByEmail(email).isPresent(); } catch (Throwable ignored) {}
-        return false;
+
+    // 8b. **invalidatePrincipalAfterCommit Method**
+    // The same once the surrounding transaction has committed (right away when there is none). Evicting before the
+    // commit lets a request in between cache the old account again, for the whole positive/negative TTL.
+
+    public void invalidatePrincipalAfterCommit(String role, String subject) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidatePrincipal(role, subject);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidatePrincipal(role, subject);
+            }
+        });
     }
-    private boolean existsPatientByEmail(String email) {
-        try { return patientRepository.existsByEmail(email); } catch (Throwable ignored) {}
-        try { return patientRepository.findByEmailIgnoreCase(email).isPresent(); } catch (Throwable ignored) {}
-        try { return patientRepository.findByEmail(email).isPresent(); } catch (Throwable ignored) {}
-        return false;
+
+    // Returns the cached verification of the token, or parses and verifies it and caches the result.
+    private VerifiedTokenCache.VerifiedToken verify(String token, String key) {
+        VerifiedTokenCache.VerifiedToken cached = tokenCache.get(key);
+        if (cached != null) return cached;
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        Date exp = claims.getExpiration();
+        VerifiedTokenCache.VerifiedToken vt =
+                new VerifiedTokenCache.VerifiedToken(claims.getSubject(), exp == null ? 0 : exp.getTime(), Set.of());
+        tokenCache.put(key, vt);
+        return vt;
     }
 }
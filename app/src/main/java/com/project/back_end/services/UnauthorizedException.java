@@ -0,0 +1,10 @@
+package com.project.back_end.services;
+
+// Thrown when a path token cannot be resolved to a caller of the required role.
+// Translated to a 401 response with a {"message": ...} body by the ValidationFailed advice.
+public class UnauthorizedException extends RuntimeException {
+
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+}
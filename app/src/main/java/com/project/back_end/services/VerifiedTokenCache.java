@@ -0,0 +1,163 @@
+package com.project.back_end.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class VerifiedTokenCache {
+
+    // 1. **Purpose**
+    // Every authenticated endpoint verifies the same JWT several times per request (CommonService.validateToken,
+    // TokenService.validateToken, then extractEmail in the controller). This cache remembers tokens whose signature
+    // has already been verified, so repeated calls skip the JJWT parse and HMAC check.
+
+    // 2. **Keys and Entries**
+    // - Entries are keyed by the SHA-256 digest of the token, so raw bearer tokens are never kept in memory as map keys.
+    // - Each entry holds the subject, the `exp` instant and the roles that have already been resolved for that subject.
+    // - Entries are immutable; resolving an extra role replaces the entry.
+
+    // 3. **Bounds and Expiry**
+    // - The map is an access-ordered LinkedHashMap, so the least recently used entry is dropped once `maxEntries` is exceeded.
+    // - An entry is evicted as soon as a lookup finds that its `exp` has passed.
+
+    private final Map<String, VerifiedToken> entries;
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${auth.token-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                if (size() > VerifiedTokenCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // 4. **keyFor Method**
+    // Computes the cache key (hex SHA-256 of the token). Callers compute it once per lookup/store pair.
+
+    public String keyFor(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // 5. **get Method**
+    // Returns the verified entry for the key, or null on a miss. Expired entries are removed and counted as misses.
+
+    public VerifiedToken get(String key) {
+        VerifiedToken vt;
+        synchronized (entries) {
+            vt = entries.get(key);
+            if (vt != null && vt.isExpired(System.currentTimeMillis())) {
+                entries.remove(key);
+                expirations.increment();
+                vt = null;
+            }
+        }
+        if (vt == null) misses.increment();
+        else hits.increment();
+        return vt;
+    }
+
+    // 6. **put Method**
+    // Stores a verified token. Tokens without an expiry are not cached, since they could never be evicted by time.
+
+    public void put(String key, VerifiedToken vt) {
+        if (vt == null || vt.getExpiresAt() <= 0 || vt.isExpired(System.currentTimeMillis())) return;
+        synchronized (entries) {
+            entries.put(key, vt);
+        }
+    }
+
+    // 7. **invalidateSubject Method**
+    // Drops every cached token of a subject, e.g. when a doctor is deleted or changes email,
+    // so previously resolved roles are checked against the database again.
+
+    public void invalidateSubject(String subject) {
+        if (subject == null) return;
+        synchronized (entries) {
+            entries.values().removeIf(vt -> subject.equalsIgnoreCase(vt.getSubject()));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // 8. **stats Method**
+    // Hit/miss counters exposed through the admin cache statistics endpoint.
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> s = new LinkedHashMap<>();
+        synchronized (entries) {
+            s.put("size", entries.size());
+        }
+        s.put("maxEntries", maxEntries);
+        s.put("hits", h);
+        s.put("misses", m);
+        s.put("hitRatio", (h + m) == 0 ? 0.0 : (double) h / (h + m));
+        s.put("expirations", expirations.sum());
+        s.put("evictions", evictions.sum());
+        return s;
+    }
+
+    // ============================= entry =============================
+
+    public static final class VerifiedToken {
+        private final String subject;
+        private final long expiresAt; // epoch millis of the JWT `exp` claim
+        private final Set<String> roles;
+
+        public VerifiedToken(String subject, long expiresAt, Set<String> roles) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+            this.roles = Set.copyOf(roles);
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public boolean hasRole(String role) {
+            return roles.contains(role);
+        }
+
+        public boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+
+        public VerifiedToken withRole(String role) {
+            if (roles.contains(role)) return this;
+            Set<String> r = new HashSet<>(roles);
+            r.add(role);
+            return new VerifiedToken(subject, expiresAt, r);
+        }
+    }
+}
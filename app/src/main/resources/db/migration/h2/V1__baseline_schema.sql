@@ -0,0 +1,58 @@
+-- Baseline for H2 (tests): same tables, columns and constraint names as db/migration/mysql/V1,
+-- with identity ids where MySQL has AUTO_INCREMENT.
+
+create table admin (
+    id bigint generated by default as identity,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id)
+);
+
+create table doctor (
+    id bigint generated by default as identity,
+    name varchar(100) not null,
+    specialty varchar(50) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(255) not null,
+    clinic_address varchar(200),
+    years_of_experience integer,
+    rating numeric(2,1),
+    primary key (id)
+);
+
+create table doctor_available_times (
+    doctor_id bigint not null,
+    available_times varchar(255)
+);
+
+create table patient (
+    id bigint generated by default as identity,
+    name varchar(100) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(255) not null,
+    address varchar(255) not null,
+    date_of_birth date,
+    emergency_contact_name varchar(100),
+    emergency_contact_phone varchar(20),
+    insurance_provider varchar(100),
+    internal_flag boolean,
+    primary key (id)
+);
+
+create table appointment (
+    id bigint generated by default as identity,
+    doctor_id bigint not null,
+    patient_id bigint not null,
+    start_time timestamp(6) not null,
+    status integer not null,
+    reason_for_visit varchar(200),
+    notes varchar(500),
+    primary key (id)
+);
+
+alter table appointment add constraint FKoeb98n82eph1dx43v3y2bcmsl foreign key (doctor_id) references doctor (id);
+alter table appointment add constraint FK4apif2ewfyf14077ichee8g06 foreign key (patient_id) references patient (id);
+alter table doctor_available_times add constraint FKdgs10srq75djpwnb9c22k3lmk foreign key (doctor_id) references doctor (id);
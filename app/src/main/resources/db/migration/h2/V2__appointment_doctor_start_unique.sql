@@ -0,0 +1,4 @@
+-- One booking per doctor and start time: behind the striped slot locks in AppointmentService, the database itself
+-- rejects a second booking of the same slot. Databases already holding such duplicates must resolve them first.
+
+alter table appointment add constraint uk_appointment_doctor_start unique (doctor_id, start_time);
@@ -0,0 +1,14 @@
+-- Pooled id generators for appointment, doctor and patient, as in db/migration/mysql/V3 but with native sequences.
+-- The first block handed out is nextval - 49 .. nextval, so each sequence restarts 51 above MAX(id); the identity
+-- is dropped afterwards.
+
+create sequence appointment_seq start with 1 increment by 50;
+alter sequence appointment_seq restart with (select coalesce(max(id), 0) + 51 from appointment);
+create sequence doctor_seq start with 1 increment by 50;
+alter sequence doctor_seq restart with (select coalesce(max(id), 0) + 51 from doctor);
+create sequence patient_seq start with 1 increment by 50;
+alter sequence patient_seq restart with (select coalesce(max(id), 0) + 51 from patient);
+
+alter table appointment alter column id drop identity;
+alter table doctor alter column id drop identity;
+alter table patient alter column id drop identity;
@@ -0,0 +1,4 @@
+-- (name, id) for the keyset-paginated doctor directory: `order by name, id` with `(name, id) > (?, ?)` reads one
+-- page straight off the index.
+
+create index idx_doctor_name_id on doctor (name, id);
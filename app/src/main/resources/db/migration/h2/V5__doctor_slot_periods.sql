@@ -0,0 +1,7 @@
+-- AM/PM flags of the doctor filter, as in db/migration/mysql/V5.
+
+alter table doctor add column has_am_slots boolean;
+alter table doctor add column has_pm_slots boolean;
+
+create index idx_doctor_specialty_am on doctor (specialty, has_am_slots);
+create index idx_doctor_specialty_pm on doctor (specialty, has_pm_slots);
@@ -0,0 +1,17 @@
+-- Typed weekly slots, as in db/migration/mysql/V6.
+
+create table doctor_slot (
+    id bigint not null,
+    doctor_id bigint not null,
+    weekday integer not null,
+    start_time time(6) not null,
+    duration_minutes integer not null,
+    label varchar(50),
+    primary key (id)
+);
+
+create sequence doctor_slot_seq start with 1 increment by 50;
+alter sequence doctor_slot_seq restart with (select coalesce(max(id), 0) + 51 from doctor_slot);
+
+alter table doctor_slot add constraint uk_doctor_slot_doctor_weekday_start unique (doctor_id, weekday, start_time);
+alter table doctor_slot add constraint FKpy1jtsodbnxcu38v0jm7hjy0x foreign key (doctor_id) references doctor (id);
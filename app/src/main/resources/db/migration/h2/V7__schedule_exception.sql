@@ -0,0 +1,17 @@
+-- Dated schedule exceptions, as in db/migration/mysql/V7.
+
+create table schedule_exception (
+    id bigint not null,
+    doctor_id bigint not null,
+    exception_date date not null,
+    start_time time(6),
+    end_time time(6),
+    reason varchar(100),
+    primary key (id)
+);
+
+create sequence schedule_exception_seq start with 1 increment by 50;
+alter sequence schedule_exception_seq restart with (select coalesce(max(id), 0) + 51 from schedule_exception);
+
+create index idx_schedule_exception_doctor_date on schedule_exception (doctor_id, exception_date);
+alter table schedule_exception add constraint FKm93vujjjxqhary0bf62qy50ht foreign key (doctor_id) references doctor (id);
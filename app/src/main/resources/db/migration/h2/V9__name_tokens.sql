@@ -0,0 +1,23 @@
+-- Word index for the doctor and patient name search (see NameTokens).
+-- One row per distinct word of the name, lower-cased and without accents. The search runs
+-- `token like 'term%'` on (token, owner_id), an index range scan, where it used to run
+-- `lower(name) like '%term%'` over every row of doctor / patient.
+-- Existing rows get their tokens from StartupMigrations on the next start.
+
+create table doctor_name_token (
+    doctor_id bigint not null,
+    token varchar(50) not null,
+    primary key (doctor_id, token)
+);
+
+create table patient_name_token (
+    patient_id bigint not null,
+    token varchar(50) not null,
+    primary key (patient_id, token)
+);
+
+create index idx_doctor_name_token on doctor_name_token (token, doctor_id);
+create index idx_patient_name_token on patient_name_token (token, patient_id);
+
+alter table doctor_name_token add constraint fk_doctor_name_token_doctor foreign key (doctor_id) references doctor (id);
+alter table patient_name_token add constraint fk_patient_name_token_patient foreign key (patient_id) references patient (id);
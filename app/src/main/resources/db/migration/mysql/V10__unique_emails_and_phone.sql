@@ -0,0 +1,11 @@
+-- Patients are unique by email and by phone, doctors by email. Emails are stored trimmed and lower-cased (the
+-- entities normalize them on the way in), so these unique indexes also serve the equality and IN lookups on the
+-- column and concurrent duplicate inserts are rejected by the database. Databases already holding duplicates
+-- (including ones differing only in case) must resolve them first.
+
+update patient set email = lower(trim(email));
+update doctor set email = lower(trim(email));
+
+create unique index uk_patient_email on patient (email);
+create unique index uk_patient_phone on patient (phone);
+create unique index uk_doctor_email on doctor (email);
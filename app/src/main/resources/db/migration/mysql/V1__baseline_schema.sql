@@ -0,0 +1,59 @@
+-- Baseline: the schema as Hibernate generated it with ddl-auto=update before migrations were introduced
+-- (AUTO_INCREMENT ids, no slot or schedule tables). Existing databases are baselined at this version and skip it,
+-- then pick up V2 onwards; constraint names are Hibernate's, so they match.
+
+create table admin (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table doctor (
+    id bigint not null auto_increment,
+    name varchar(100) not null,
+    specialty varchar(50) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(255) not null,
+    clinic_address varchar(200),
+    years_of_experience integer,
+    rating decimal(2,1),
+    primary key (id)
+) engine=InnoDB;
+
+create table doctor_available_times (
+    doctor_id bigint not null,
+    available_times varchar(255)
+) engine=InnoDB;
+
+create table patient (
+    id bigint not null auto_increment,
+    name varchar(100) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(255) not null,
+    address varchar(255) not null,
+    date_of_birth date,
+    emergency_contact_name varchar(100),
+    emergency_contact_phone varchar(20),
+    insurance_provider varchar(100),
+    internal_flag bit,
+    primary key (id)
+) engine=InnoDB;
+
+create table appointment (
+    id bigint not null auto_increment,
+    doctor_id bigint not null,
+    patient_id bigint not null,
+    start_time datetime(6) not null,
+    status integer not null,
+    reason_for_visit varchar(200),
+    notes varchar(500),
+    primary key (id)
+) engine=InnoDB;
+
+alter table appointment add constraint FKoeb98n82eph1dx43v3y2bcmsl foreign key (doctor_id) references doctor (id);
+alter table appointment add constraint FK4apif2ewfyf14077ichee8g06 foreign key (patient_id) references patient (id);
+alter table doctor_available_times add constraint FKdgs10srq75djpwnb9c22k3lmk foreign key (doctor_id) references doctor (id);
@@ -0,0 +1,18 @@
+-- Pooled id generators for appointment, doctor and patient, so Hibernate can batch inserts.
+-- MySQL has no sequences: each generator is a one-row table holding `next_val`. The first block handed out is
+-- next_val - 49 .. next_val, so it is seeded 51 above MAX(id) to stay clear of the AUTO_INCREMENT ids.
+-- AUTO_INCREMENT is dropped afterwards; every id now comes from a generator. The columns are referenced by
+-- foreign keys, which MySQL only lets the ALTER through with the checks off.
+
+create table appointment_seq (next_val bigint) engine=InnoDB;
+insert into appointment_seq select coalesce(max(id), 0) + 51 from appointment;
+create table doctor_seq (next_val bigint) engine=InnoDB;
+insert into doctor_seq select coalesce(max(id), 0) + 51 from doctor;
+create table patient_seq (next_val bigint) engine=InnoDB;
+insert into patient_seq select coalesce(max(id), 0) + 51 from patient;
+
+set foreign_key_checks = 0;
+alter table appointment modify id bigint not null;
+alter table doctor modify id bigint not null;
+alter table patient modify id bigint not null;
+set foreign_key_checks = 1;
@@ -0,0 +1,8 @@
+-- AM/PM flags of the doctor filter (Doctor.availableAm / availablePm), derived from the slots on every save.
+-- Existing doctors are left NULL here and get their flags from StartupMigrations on the next start.
+
+alter table doctor add column has_am_slots bit;
+alter table doctor add column has_pm_slots bit;
+
+create index idx_doctor_specialty_am on doctor (specialty, has_am_slots);
+create index idx_doctor_specialty_pm on doctor (specialty, has_pm_slots);
@@ -0,0 +1,18 @@
+-- Typed weekly slots (DoctorSlot), one row per doctor, weekday and start time. The id generator is seeded like
+-- the ones in V3. Existing doctors get their rows from StartupMigrations on the next start.
+
+create table doctor_slot (
+    id bigint not null,
+    doctor_id bigint not null,
+    weekday integer not null,
+    start_time time(6) not null,
+    duration_minutes integer not null,
+    label varchar(50),
+    primary key (id)
+) engine=InnoDB;
+
+create table doctor_slot_seq (next_val bigint) engine=InnoDB;
+insert into doctor_slot_seq select coalesce(max(id), 0) + 51 from doctor_slot;
+
+alter table doctor_slot add constraint uk_doctor_slot_doctor_weekday_start unique (doctor_id, weekday, start_time);
+alter table doctor_slot add constraint FKpy1jtsodbnxcu38v0jm7hjy0x foreign key (doctor_id) references doctor (id);
@@ -0,0 +1,18 @@
+-- Dated changes to a doctor's weekly schedule (ScheduleException): a day off, or hours blocked on one date.
+-- The id generator is seeded like the ones in V3.
+
+create table schedule_exception (
+    id bigint not null,
+    doctor_id bigint not null,
+    exception_date date not null,
+    start_time time(6),
+    end_time time(6),
+    reason varchar(100),
+    primary key (id)
+) engine=InnoDB;
+
+create table schedule_exception_seq (next_val bigint) engine=InnoDB;
+insert into schedule_exception_seq select coalesce(max(id), 0) + 51 from schedule_exception;
+
+create index idx_schedule_exception_doctor_date on schedule_exception (doctor_id, exception_date);
+alter table schedule_exception add constraint FKm93vujjjxqhary0bf62qy50ht foreign key (doctor_id) references doctor (id);
@@ -0,0 +1,8 @@
+-- Composite indexes for the hot appointment queries.
+-- (doctor_id, start_time): already the unique key uk_appointment_doctor_start (V2), which serves the doctor's day/range
+--   queries (findByDoctorIdAndAppointmentTimeBetween, findAppointmentTimesByDoctorId[s]) as an index range scan.
+-- (patient_id, status, start_time): findByPatient_IdAndStatusOrderByAppointmentTimeAsc and the patient's appointment
+--   lists; equality on the first two columns and the ORDER BY read straight off the index, no filesort.
+-- updateStatus is a primary-key update and needs nothing extra.
+
+create index idx_appointment_patient_status_start on appointment (patient_id, status, start_time);
@@ -0,0 +1,103 @@
+package com.project.back_end.config;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.services.CommonService;
+import com.project.back_end.services.UnauthorizedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Resolution of @Authenticated parameters: the role from the annotation or the {user} path variable, the token from
+// its path variable, and one CommonService.authenticate call per request and role.
+class AuthenticatedPrincipalResolverTests {
+
+    private static final AuthenticatedPrincipal PATIENT = new AuthenticatedPrincipal("patient", "p@example.com", 1L);
+    private static final AuthenticatedPrincipal DOCTOR = new AuthenticatedPrincipal("doctor", "d@example.com", 5L);
+
+    private final CommonService commonService = mock(CommonService.class);
+    private final AuthenticatedPrincipalResolver resolver = new AuthenticatedPrincipalResolver(commonService);
+
+    @SuppressWarnings("unused")
+    void handler(@Authenticated(role = "patient") AuthenticatedPrincipal patient,
+                 @Authenticated AuthenticatedPrincipal user,
+                 @Authenticated(role = "doctor", token = "doctorToken") AuthenticatedPrincipal doctor,
+                 AuthenticatedPrincipal plain) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(commonService.authenticate("t", "patient")).thenReturn(PATIENT);
+        when(commonService.authenticate("d", "doctor")).thenReturn(DOCTOR);
+    }
+
+    @Test
+    void supportsOnlyAnnotatedPrincipals() {
+        assertTrue(resolver.supportsParameter(parameter(0)));
+        assertFalse(resolver.supportsParameter(parameter(3)));
+    }
+
+    @Test
+    void roleComesFromTheAnnotationOrTheUserPathVariable() {
+        assertSame(PATIENT, resolve(0, Map.of("token", "t", "user", "doctor")));
+        assertSame(PATIENT, resolve(1, Map.of("token", "t", "user", "patient")));
+        assertSame(DOCTOR, resolve(2, Map.of("token", "t", "doctorToken", "d")));
+    }
+
+    @Test
+    void principalIsResolvedOncePerRequestAndRole() {
+        ServletWebRequest request = request(Map.of("token", "t", "user", "patient", "doctorToken", "d"));
+
+        assertSame(PATIENT, resolver.resolveArgument(parameter(0), null, request, null));
+        assertSame(PATIENT, resolver.resolveArgument(parameter(1), null, request, null));
+        assertSame(DOCTOR, resolver.resolveArgument(parameter(2), null, request, null));
+        verify(commonService, times(1)).authenticate("t", "patient");
+        verify(commonService, times(1)).authenticate("d", "doctor");
+
+        resolve(0, Map.of("token", "t"));
+        verify(commonService, times(2)).authenticate("t", "patient"); // a new request resolves again
+    }
+
+    @Test
+    void authenticationFailuresPropagate() {
+        when(commonService.authenticate("bad", "patient")).thenThrow(new UnauthorizedException("Invalid token."));
+
+        UnauthorizedException e = assertThrows(UnauthorizedException.class, () -> resolve(0, Map.of("token", "bad")));
+        assertEquals("Invalid token.", e.getMessage());
+    }
+
+    private Object resolve(int index, Map<String, String> vars) {
+        return resolver.resolveArgument(parameter(index), null, request(vars), null);
+    }
+
+    private static ServletWebRequest request(Map<String, String> vars) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, vars);
+        return new ServletWebRequest(request);
+    }
+
+    private static MethodParameter parameter(int index) {
+        try {
+            Method m = AuthenticatedPrincipalResolverTests.class.getDeclaredMethod("handler", AuthenticatedPrincipal.class,
+                    AuthenticatedPrincipal.class, AuthenticatedPrincipal.class, AuthenticatedPrincipal.class);
+            return new MethodParameter(m, index);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
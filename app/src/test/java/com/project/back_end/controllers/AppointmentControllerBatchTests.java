@@ -0,0 +1,86 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.CommonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Status of the batch booking response: 201 only when every item was booked, 207 with the per-item results otherwise.
+@WebMvcTest(value = AppointmentController.class, properties = "appointments.batch.max-items=3")
+class AppointmentControllerBatchTests {
+
+    private static final String TWO_ITEMS = """
+            [{"doctorId":1,"appointmentTime":"2030-01-07T09:00:00"},
+             {"doctorId":1,"appointmentTime":"2030-01-07T10:00:00"}]""";
+
+    @Autowired
+    private MockMvc mvc;
+    @MockitoBean
+    private AppointmentService appointmentService;
+    @MockitoBean
+    private CommonService commonService;
+
+    @BeforeEach
+    void setUp() {
+        when(commonService.authenticate("t", "patient")).thenReturn(new AuthenticatedPrincipal("patient", "p@example.com", 7L));
+    }
+
+    @Test
+    void everyItemBookedIsCreated() throws Exception {
+        when(appointmentService.bookAppointments(anyList(), eq(7L)))
+                .thenReturn(List.of(result(0, 201), result(1, 201)));
+
+        mvc.perform(post("/appointments/appointments/book/batch/t").contentType(MediaType.APPLICATION_JSON).content(TWO_ITEMS))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.booked").value(2))
+                .andExpect(jsonPath("$.failed").value(0));
+    }
+
+    @Test
+    void anyFailedItemMakesItMultiStatus() throws Exception {
+        when(appointmentService.bookAppointments(anyList(), eq(7L)))
+                .thenReturn(List.of(result(0, 201), result(1, 409)));
+
+        mvc.perform(post("/appointments/appointments/book/batch/t").contentType(MediaType.APPLICATION_JSON).content(TWO_ITEMS))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.booked").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].status").value(409));
+    }
+
+    @Test
+    void emptyOrOversizedBatchIsRejected() throws Exception {
+        mvc.perform(post("/appointments/appointments/book/batch/t").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/appointments/appointments/book/batch/t").contentType(MediaType.APPLICATION_JSON).content("""
+                        [{"doctorId":1,"appointmentTime":"2030-01-07T09:00:00"},
+                         {"doctorId":1,"appointmentTime":"2030-01-07T10:00:00"},
+                         {"doctorId":1,"appointmentTime":"2030-01-07T11:00:00"},
+                         {"doctorId":1,"appointmentTime":"2030-01-07T12:00:00"}]"""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At most 3 appointments can be booked at once."));
+        verify(appointmentService, never()).bookAppointments(anyList(), eq(7L));
+    }
+
+    private static Map<String, Object> result(int index, int status) {
+        return Map.of("index", index, "status", status, "message", "");
+    }
+}
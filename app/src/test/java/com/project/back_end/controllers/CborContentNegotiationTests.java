@@ -0,0 +1,188 @@
+package com.project.back_end.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.DTO.DoctorDirectoryPage;
+import com.project.back_end.services.AppointmentService;
+import com.project.back_end.services.CommonService;
+import com.project.back_end.services.DoctorDirectory;
+import com.project.back_end.services.DoctorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// CBOR as an alternative wire format: the same request answered as JSON and as CBOR decodes to the same content,
+// CBOR request bodies bind like JSON ones, and JSON stays the default.
+@WebMvcTest({DoctorController.class, AppointmentController.class})
+class CborContentNegotiationTests {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @MockitoBean
+    private DoctorService doctorService;
+    @MockitoBean
+    private DoctorDirectory doctorDirectory;
+    @MockitoBean
+    private AppointmentService appointmentService;
+    @MockitoBean
+    private CommonService commonService;
+
+    private ObjectMapper cbor;
+
+    @BeforeEach
+    void setUp() {
+        cbor = objectMapper.copyWith(new CBORFactory());
+        when(commonService.authenticate("t", "patient")).thenReturn(new AuthenticatedPrincipal("patient", "p@example.com", 1L));
+        when(commonService.authenticate("t", "doctor")).thenReturn(new AuthenticatedPrincipal("doctor", "d@example.com", 5L));
+    }
+
+    @Test
+    void availabilityRoundTrips() throws Exception {
+        when(doctorService.getAvailabilityVersion(5L, DAY)).thenReturn(7L);
+        when(doctorService.getDoctorAvailability(5L, DAY)).thenReturn(List.of("09:00-10:00", "14:00-15:00"));
+
+        assertSameContent(get("/doctor/availability/patient/5/" + DAY + "/t"));
+        mvc.perform(get("/doctor/availability/patient/5/" + DAY + "/t").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+    }
+
+    @Test
+    void appointmentsRoundTripWithDatesAsText() throws Exception {
+        AppointmentDTO dto = new AppointmentDTO(0, LocalDateTime.of(2030, 1, 7, 9, 0), "1 Main Street", "0123456789",
+                "p@example.com", "Pat Doe", 1L, "Ann Lee", 5L, 11L);
+        when(appointmentService.getAppointmentsForDoctorOnDate(5L, DAY, null)).thenReturn(List.of(dto));
+
+        JsonNode body = assertSameContent(get("/appointments/" + DAY + "/-/t"));
+        assertEquals("2030-01-07T09:00:00", body.get(0).get("appointmentTime").textValue());
+        AppointmentDTO[] decoded = cbor.readValue(
+                mvc.perform(get("/appointments/" + DAY + "/-/t").accept(MediaType.APPLICATION_CBOR))
+                        .andReturn().getResponse().getContentAsByteArray(), AppointmentDTO[].class);
+        assertEquals(dto.getAppointmentTime(), decoded[0].getAppointmentTime());
+        assertEquals(dto.getEndTime(), decoded[0].getEndTime());
+    }
+
+    @Test
+    void bookingAcceptsACborBody() throws Exception {
+        when(commonService.validateAppointment(any(), any())).thenReturn(1);
+        when(appointmentService.bookAppointment(any(AppointmentDTO.class))).thenReturn(1);
+        String request = "{\"doctorId\":5,\"appointmentTime\":\"2030-01-07T09:00:00\"}";
+
+        mvc.perform(post("/appointments/appointments/book/t")
+                        .contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isCreated());
+        MvcResult result = mvc.perform(post("/appointments/appointments/book/t")
+                        .contentType(MediaType.APPLICATION_CBOR).accept(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(objectMapper.readTree(request))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        assertEquals("Appointment booked successfully.",
+                cbor.readTree(result.getResponse().getContentAsByteArray()).get("message").textValue());
+
+        ArgumentCaptor<AppointmentDTO> booked = ArgumentCaptor.forClass(AppointmentDTO.class);
+        verify(appointmentService, times(2)).bookAppointment(booked.capture());
+        AppointmentDTO fromJson = booked.getAllValues().get(0);
+        AppointmentDTO fromCbor = booked.getAllValues().get(1);
+        assertEquals(fromJson.getDoctorId(), fromCbor.getDoctorId());
+        assertEquals(fromJson.getPatientId(), fromCbor.getPatientId());
+        assertEquals(LocalDateTime.of(2030, 1, 7, 9, 0), fromCbor.getAppointmentTime());
+    }
+
+    @Test
+    void directoryIsServedFromTheCborSnapshot() throws Exception {
+        byte[] json = "{\"doctors\":[]}".getBytes(StandardCharsets.UTF_8);
+        byte[] cborBody = {(byte) 0xa1, 0x67, 'd', 'o', 'c', 't', 'o', 'r', 's', (byte) 0x80};
+        when(doctorDirectory.version()).thenReturn(42L);
+        when(doctorDirectory.lastModified()).thenReturn(1_700_000_000_000L);
+        when(doctorDirectory.allJson()).thenReturn(json);
+        when(doctorDirectory.allCbor()).thenReturn(cborBody);
+        when(doctorDirectory.filterCbor("ann", "Cardiology", "AM")).thenReturn(cborBody);
+        when(doctorService.getDirectoryPage(null, 50)).thenReturn(new DoctorDirectoryPage(List.of(), null));
+
+        mvc.perform(get("/doctor").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(content().bytes(cborBody));
+        mvc.perform(get("/doctor/filter/ann/AM/Cardiology").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(content().bytes(cborBody));
+        mvc.perform(get("/doctor").header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, application/json"))
+                .andExpect(content().bytes(json));
+        mvc.perform(get("/doctor").header(HttpHeaders.ACCEPT, "text/html,application/xhtml+xml,*/*;q=0.8"))
+                .andExpect(content().bytes(json));
+        assertEquals(objectMapper.readTree(json), cbor.readTree(cborBody));
+
+        JsonNode page = objectMapper.readTree(streamed(get("/doctor/directory").accept(MediaType.APPLICATION_JSON)));
+        assertEquals("{\"doctors\":[],\"nextCursor\":null}", page.toString());
+        assertEquals(page, cbor.readTree(streamed(get("/doctor/directory").accept(MediaType.APPLICATION_CBOR))));
+        assertEquals("limit must be between 1 and 200.", cbor.readTree(streamed(get("/doctor/directory")
+                .param("limit", "0").accept(MediaType.APPLICATION_CBOR))).get("message").textValue());
+    }
+
+    @Test
+    void jsonWinsUnlessCborIsRankedHigher() {
+        assertFalse(DoctorController.prefersCbor(null));
+        assertFalse(DoctorController.prefersCbor("*/*"));
+        assertFalse(DoctorController.prefersCbor("application/cbor, application/json"));
+        assertFalse(DoctorController.prefersCbor("not a media type;;"));
+        assertTrue(DoctorController.prefersCbor("application/cbor"));
+        assertTrue(DoctorController.prefersCbor("application/cbor, */*;q=0.1"));
+        assertTrue(DoctorController.prefersCbor("application/json;q=0.2, application/*"));
+    }
+
+    // Body of a StreamingResponseBody endpoint, once the stream has been written.
+    private byte[] streamed(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        result.getAsyncResult();
+        return result.getResponse().getContentAsByteArray();
+    }
+
+    // Performs the request once as JSON and once as CBOR and returns the (equal) decoded bodies.
+    private JsonNode assertSameContent(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult asJson = mvc.perform(request.accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+        MvcResult asCbor = mvc.perform(request.accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        JsonNode expected = objectMapper.readTree(asJson.getResponse().getContentAsByteArray());
+        assertEquals(expected, cbor.readTree(asCbor.getResponse().getContentAsByteArray()));
+        return expected;
+    }
+}
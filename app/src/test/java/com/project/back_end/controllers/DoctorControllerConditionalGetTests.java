@@ -0,0 +1,141 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.services.CommonService;
+import com.project.back_end.services.DoctorDirectory;
+import com.project.back_end.services.DoctorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Conditional GET of the doctor directory and availability: a matching ETag is answered with 304 before the body
+// is built, and a new version is served in full.
+@WebMvcTest(DoctorController.class)
+class DoctorControllerConditionalGetTests {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+    private static final byte[] DIRECTORY = "{\"doctors\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MockMvc mvc;
+    @MockitoBean
+    private DoctorService doctorService;
+    @MockitoBean
+    private DoctorDirectory doctorDirectory;
+    @MockitoBean
+    private CommonService commonService;
+
+    @BeforeEach
+    void setUp() {
+        when(doctorDirectory.version()).thenReturn(42L);
+        when(doctorDirectory.lastModified()).thenReturn(1_700_000_000_000L);
+        when(doctorDirectory.allJson()).thenReturn(DIRECTORY);
+        when(commonService.authenticate("t", "patient")).thenReturn(new AuthenticatedPrincipal("patient", "p@example.com", 1L));
+    }
+
+    @Test
+    void directoryIsRevalidatedByETag() throws Exception {
+        String etag = mvc.perform(get("/doctor"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(DIRECTORY))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/doctor").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT_ENCODING))));
+        mvc.perform(get("/doctor/filter/ann/AM/Cardiology").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(doctorDirectory, never()).filterJson(any(), any(), any());
+
+        when(doctorDirectory.version()).thenReturn(43L);
+        mvc.perform(get("/doctor").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(DIRECTORY));
+    }
+
+    @Test
+    void staleETagWinsOverAMatchingIfModifiedSince() throws Exception {
+        MockHttpServletResponse first = mvc.perform(get("/doctor"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT_ENCODING))))
+                .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+        mvc.perform(get("/doctor").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        // rebuilt within the same second: Last-Modified is unchanged, the ETag is not
+        when(doctorDirectory.version()).thenReturn(43L);
+        when(doctorDirectory.lastModified()).thenReturn(1_700_000_000_500L);
+        mvc.perform(get("/doctor")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(DIRECTORY));
+    }
+
+    @Test
+    void gzipClientsGetThePreCompressedDirectory() throws Exception {
+        byte[] gz = {31, -117, 8, 0};
+        when(doctorDirectory.allJsonGzip()).thenReturn(gz);
+
+        mvc.perform(get("/doctor").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT_ENCODING))))
+                .andExpect(content().bytes(gz));
+        mvc.perform(get("/doctor").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(DIRECTORY));
+        assertFalse(DoctorController.acceptsGzip(null));
+        assertTrue(DoctorController.acceptsGzip("*"));
+        assertFalse(DoctorController.acceptsGzip("identity"));
+    }
+
+    @Test
+    void availabilityIsRevalidatedByTheDayVersion() throws Exception {
+        when(doctorService.getAvailabilityVersion(5L, DAY)).thenReturn(7L);
+        when(doctorService.getDoctorAvailability(5L, DAY)).thenReturn(List.of("09:00-10:00"));
+        String url = "/doctor/availability/patient/5/" + DAY + "/t";
+
+        String etag = mvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(doctorService, times(1)).getDoctorAvailability(5L, DAY);
+
+        when(doctorService.getAvailabilityVersion(5L, DAY)).thenReturn(8L);
+        mvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+}
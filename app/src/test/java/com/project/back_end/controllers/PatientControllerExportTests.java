@@ -0,0 +1,64 @@
+package com.project.back_end.controllers;
+
+import com.project.back_end.DTO.AuthenticatedPrincipal;
+import com.project.back_end.services.CommonService;
+import com.project.back_end.services.PatientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Who may stream a patient's appointment history: the patient themselves and admins, nobody else.
+@WebMvcTest(PatientController.class)
+class PatientControllerExportTests {
+
+    @Autowired
+    private MockMvc mvc;
+    @MockitoBean
+    private PatientService patientService;
+    @MockitoBean
+    private CommonService commonService;
+
+    @BeforeEach
+    void setUp() {
+        when(commonService.authenticate("own", "patient")).thenReturn(new AuthenticatedPrincipal("patient", "p@example.com", 1L));
+        when(commonService.authenticate("other", "patient")).thenReturn(new AuthenticatedPrincipal("patient", "q@example.com", 2L));
+        when(commonService.authenticate("doc", "doctor")).thenReturn(new AuthenticatedPrincipal("doctor", "d@example.com", 5L));
+        when(commonService.authenticate("adm", "admin")).thenReturn(new AuthenticatedPrincipal("admin", "a@example.com", 9L));
+    }
+
+    @Test
+    void patientExportsOwnHistory() throws Exception {
+        mvc.perform(get("/patient/appointments/export/patient/1/own")).andExpect(status().isOk());
+        verify(patientService).exportAppointments(eq(1L), any());
+    }
+
+    @Test
+    void foreignPatientTokenIsForbidden() throws Exception {
+        mvc.perform(get("/patient/appointments/export/patient/1/other"))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("You can only export your own appointments."));
+        verify(patientService, never()).exportAppointments(anyLong(), any());
+    }
+
+    @Test
+    void doctorIsForbiddenAndAdminMayAudit() throws Exception {
+        mvc.perform(get("/patient/appointments/export/doctor/1/doc")).andExpect(status().isForbidden());
+        verify(patientService, never()).exportAppointments(anyLong(), any());
+
+        mvc.perform(get("/patient/appointments/export/admin/1/adm")).andExpect(status().isOk());
+        verify(patientService).exportAppointments(eq(1L), any());
+    }
+}
@@ -0,0 +1,102 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The read-only appointment listings select AppointmentDTO directly: one statement, no entity loaded or managed.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class AppointmentProjectionTests {
+
+    private static final LocalDateTime NINE = LocalDate.now().plusDays(1).atTime(9, 0);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Doctor doctor;
+    private Patient patient;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        doctor = new Doctor();
+        doctor.setName("Projection Doctor");
+        doctor.setSpecialty("Cardiology");
+        doctor.setEmail("projection.doctor@example.com");
+        doctor.setPassword("secret123");
+        doctor.setPhone("0123456789");
+        doctorRepository.save(doctor);
+        patient = new Patient();
+        patient.setName("Projection Patient");
+        patient.setEmail("projection.patient@example.com");
+        patient.setPassword("secret123");
+        patient.setPhone("0123456789");
+        patient.setAddress("1 Main Street");
+        patientRepository.save(patient);
+        for (int i = 0; i < 30; i++) {
+            appointmentRepository.save(new Appointment(doctor, patient, NINE.plusDays(i), i % 2));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void patientListIsOneQueryWithoutEntities() {
+        List<AppointmentDTO> list = appointmentRepository.findDtosByPatientId(patient.getId());
+        assertEquals(30, list.size());
+        AppointmentDTO first = list.get(0);
+        assertEquals(doctor.getId(), first.getDoctorId());
+        assertEquals("Projection Doctor", first.getDoctorName());
+        assertEquals(patient.getId(), first.getPatientId());
+        assertEquals("Projection Patient", first.getPatientName());
+        assertEquals("projection.patient@example.com", first.getPatientEmail());
+        assertEquals("0123456789", first.getPatientPhone());
+        assertEquals("1 Main Street", first.getPatientAddress());
+        assertEquals(NINE, first.getAppointmentTime());
+        assertEquals(NINE.plusHours(1), first.getEndTime());
+        assertEquals(Appointment.STATUS_SCHEDULED, first.getStatus());
+        assertNoEntitiesInOneStatement();
+    }
+
+    @Test
+    void statusAndDoctorDayListsAreProjectedToo() {
+        assertEquals(15, appointmentRepository.findDtosByPatientIdAndStatus(patient.getId(), Appointment.STATUS_COMPLETED).size());
+        assertEquals(1, appointmentRepository.findDtosByDoctorIdAndAppointmentTimeBetween(
+                doctor.getId(), NINE.toLocalDate().atStartOfDay(), NINE.toLocalDate().plusDays(1).atStartOfDay()).size());
+        assertEquals(30, appointmentRepository.filterByDoctorNameAndPatientId("projection%", patient.getId()).size());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private void assertNoEntitiesInOneStatement() {
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
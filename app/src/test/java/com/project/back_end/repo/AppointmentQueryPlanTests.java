@@ -0,0 +1,156 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Query plan audit of the hot AppointmentRepository queries on H2 in MySQL mode, with the schema built by the
+// Flyway migrations. The SQL Hibernate actually sends is captured and run through EXPLAIN; a table scan of
+// appointment, or a plan that does not use the expected index, fails the test.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.project.back_end.repo.AppointmentQueryPlanTests$Recorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AppointmentQueryPlanTests {
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static int fixture; // ANALYZE commits the fixture, so each test's rows need their own emails and phones
+
+    private Long doctorId;
+    private Long patientId;
+
+    @BeforeEach
+    void setUp() {
+        int run = fixture++;
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Doctor d = new Doctor();
+            d.setName("Doctor " + i);
+            d.setSpecialty("Cardiology");
+            d.setEmail("plan" + run + "-" + i + "@example.com");
+            d.setPassword("secret123");
+            d.setPhone("0123456789");
+            d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00")));
+            doctors.add(d);
+        }
+        doctorRepository.saveAll(doctors);
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Patient p = new Patient();
+            p.setName("Patient " + i);
+            p.setEmail("plan-patient" + run + "-" + i + "@example.com");
+            p.setPassword("secret123");
+            p.setPhone(String.format("0%04d%05d", run, i));
+            p.setAddress("Street " + i);
+            patients.add(p);
+        }
+        patientRepository.saveAll(patients);
+        List<Appointment> appointments = new ArrayList<>();
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(9, 0);
+        for (int i = 0; i < 400; i++) {
+            appointments.add(new Appointment(doctors.get(i % 20), patients.get((i * 7) % 20),
+                    start.plusDays(i / 20), i % 2));
+        }
+        appointmentRepository.saveAll(appointments);
+        entityManager.flush();
+        entityManager.clear();
+        jdbcTemplate.execute("ANALYZE");
+        doctorId = doctors.get(0).getId();
+        patientId = patients.get(0).getId();
+        Recorder.SQL.clear();
+    }
+
+    @Test
+    void doctorDayQueryUsesTheDoctorStartKey() {
+        LocalDateTime from = LocalDate.now().plusDays(1).atStartOfDay();
+        appointmentRepository.findDtosByDoctorIdAndAppointmentTimeBetween(doctorId, from, from.plusDays(1));
+        assertPlan(lastSql(), "uk_appointment_doctor_start");
+    }
+
+    @Test
+    void doctorRangeTimesQueryUsesTheDoctorStartKey() {
+        LocalDateTime from = LocalDate.now().plusDays(1).atStartOfDay();
+        appointmentRepository.findAppointmentTimesByDoctorId(doctorId, from, from.plusDays(30));
+        assertPlan(lastSql(), "uk_appointment_doctor_start");
+    }
+
+    @Test
+    void patientStatusQueryUsesThePatientStatusStartIndex() {
+        appointmentRepository.findDtosByPatientIdAndStatus(patientId, Appointment.STATUS_SCHEDULED);
+        assertPlan(lastSql(), "idx_appointment_patient_status_start");
+    }
+
+    @Test
+    void patientNameSearchUsesTheNameTokenIndex() {
+        LocalDateTime from = LocalDate.now().plusDays(1).atStartOfDay();
+        appointmentRepository.findDtosByDoctorIdAndPatientNameTokenAndAppointmentTimeBetween(doctorId, "pat%", from, from.plusDays(1));
+        // a NULL pattern folds the LIKE away, so this plan is taken with the real values
+        assertPlan(lastSql(), "idx_patient_name_token", doctorId, from, from.plusDays(1), "pat%");
+    }
+
+    @Test
+    void updateStatusUsesThePrimaryKey() {
+        Long id = appointmentRepository.findAll().get(0).getId();
+        Recorder.SQL.clear();
+        appointmentRepository.updateStatus(Appointment.STATUS_COMPLETED, id);
+        assertPlan(lastSql(), "primary_key");
+    }
+
+    private String lastSql() {
+        assertFalse(Recorder.SQL.isEmpty(), "no SQL was captured");
+        return Recorder.SQL.get(Recorder.SQL.size() - 1);
+    }
+
+    // EXPLAIN with every parameter bound to NULL: H2 picks the access path from the predicates, not the values.
+    private void assertPlan(String sql, String expectedIndex) {
+        assertPlan(sql, expectedIndex, new Object[(int) sql.chars().filter(c -> c == '?').count()]);
+    }
+
+    private void assertPlan(String sql, String expectedIndex, Object... params) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, params)
+                .toLowerCase(Locale.ROOT);
+        assertFalse(plan.matches("(?s).*appointment\\.tablescan.*"), "full scan of appointment:\n" + plan);
+        assertTrue(plan.contains(expectedIndex), "expected " + expectedIndex + " in plan:\n" + plan);
+    }
+
+    // Records the SQL of every statement Hibernate prepares; registered through the session factory property above.
+    public static class Recorder implements StatementInspector {
+        static final List<String> SQL = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
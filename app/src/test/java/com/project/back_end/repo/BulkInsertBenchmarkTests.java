@@ -0,0 +1,117 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Rows/second of bulk patient import and bulk booking against in-memory H2, with the batching settings of
+// application.properties. Run with: mvn -Pbench test -Dtest=BulkInsertBenchmarkTests
+// H2 has native sequences (MySQL uses the emulation tables), so absolute numbers only compare runs of this test.
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class BulkInsertBenchmarkTests {
+
+    private static final int ROWS = 5000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void bulkPatientImport() {
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Patient> batch = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                batch.add(patient(round + "-" + i));
+            }
+            measure("patients", round, () -> patientRepository.saveAll(batch));
+        }
+    }
+
+    @Test
+    void bulkBooking() {
+        Doctor doctor = doctorRepository.saveAndFlush(doctor());
+        Patient patient = patientRepository.saveAndFlush(patient("booker"));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Appointment> batch = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                batch.add(new Appointment(doctor, patient, start.plusHours((long) round * ROWS + i), 0));
+            }
+            measure("appointments", round, () -> appointmentRepository.saveAll(batch));
+        }
+    }
+
+    private void measure(String label, int round, Runnable insert) {
+        entityManager.clear();
+        statistics.clear();
+        long t0 = System.nanoTime();
+        insert.run();
+        entityManager.flush();
+        long nanos = System.nanoTime() - t0;
+        entityManager.clear();
+
+        long inserts = statistics.getEntityInsertCount();
+        long statements = statistics.getPrepareStatementCount();
+        System.out.printf("[bench] %s round %d: %d rows in %d ms = %.0f rows/s, %d prepared statements%n",
+                label, round, inserts, nanos / 1_000_000, inserts * 1e9 / nanos, statements);
+
+        assertEquals(ROWS, inserts);
+        assertTrue(statements > 0);
+    }
+
+    private static Patient patient(String suffix) {
+        Patient p = new Patient();
+        p.setName("Patient " + suffix);
+        p.setEmail("patient" + suffix + "@example.com");
+        p.setPassword("secret123");
+        p.setPhone("0123456789");
+        p.setAddress("1 Main Street");
+        return p;
+    }
+
+    private static Doctor doctor() {
+        Doctor d = new Doctor();
+        d.setName("Doctor Bench");
+        d.setSpecialty("Cardiology");
+        d.setEmail("doctor.bench@example.com");
+        d.setPassword("secret123");
+        d.setPhone("0123456789");
+        return d;
+    }
+}
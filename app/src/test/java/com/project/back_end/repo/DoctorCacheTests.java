@@ -0,0 +1,120 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Doctor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Second-level and query cache of doctors: repeated reads in new transactions do not reach the database,
+// and a write through JPA is visible to the next read. Data is committed (the cache only sees committed
+// transactions) and removed again after each test.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DoctorCacheTests {
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Statistics statistics;
+    private Long doctorId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        entityManagerFactory.getCache().evictAll();
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Doctor d = new Doctor();
+            d.setName("Cached " + i);
+            d.setSpecialty("Cardiology");
+            d.setEmail("cached" + i + "@example.com");
+            d.setPassword("secret123");
+            d.setPhone("0123456789");
+            d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "14:00-15:00")));
+            doctors.add(d);
+        }
+        doctorId = tx.execute(s -> doctorRepository.saveAll(doctors)).get(0).getId();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(s -> doctorRepository.deleteAll(doctorRepository.findAll()));
+    }
+
+    @Test
+    void repeatedFindByIdIsServedFromTheCache() {
+        read(() -> doctorRepository.findById(doctorId).orElseThrow().getAvailableTimes().size());
+        statistics.clear();
+
+        assertEquals(2, read(() -> doctorRepository.findById(doctorId).orElseThrow().getAvailableTimes().size()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 2, "hits: " + statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void repeatedDirectoryReadIsServedFromTheCache() {
+        read(() -> countSlots(doctorRepository.findAll()));
+        statistics.clear();
+
+        assertEquals(40, read(() -> countSlots(doctorRepository.findAll())));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void updatesAreVisibleToTheNextRead() {
+        read(() -> countSlots(doctorRepository.findAll()));
+        tx.executeWithoutResult(s -> {
+            Doctor d = doctorRepository.findById(doctorId).orElseThrow();
+            d.setSpecialty("Neurology");
+            d.setAvailableTimes(new ArrayList<>(List.of("11:00-12:00")));
+        });
+
+        assertEquals("Neurology", read(() -> doctorRepository.findById(doctorId).orElseThrow().getSpecialty()));
+        assertEquals(List.of("11:00-12:00"),
+                read(() -> List.copyOf(doctorRepository.findById(doctorId).orElseThrow().getAvailableTimes())));
+        assertEquals(39, read(() -> countSlots(doctorRepository.findAll())));
+    }
+
+    @Test
+    void deletedDoctorsLeaveTheCachedDirectory() {
+        read(() -> doctorRepository.findAll().size());
+        tx.executeWithoutResult(s -> doctorRepository.deleteById(doctorId));
+
+        assertEquals(19, read(() -> doctorRepository.findAll().size()));
+    }
+
+    // Each read runs in its own transaction (and persistence context), as a request would.
+    private <T> T read(Supplier<T> work) {
+        return tx.execute(s -> work.get());
+    }
+
+    private static int countSlots(List<Doctor> doctors) {
+        return doctors.stream().mapToInt(d -> d.getAvailableTimes().size()).sum();
+    }
+}
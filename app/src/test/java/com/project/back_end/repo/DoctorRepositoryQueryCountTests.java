@@ -0,0 +1,104 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Doctor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Guards the doctor read paths against N+1 loads of Doctor.availableTimes:
+// listing 500 doctors and reading every doctor's slots must stay within two statements.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class DoctorRepositoryQueryCountTests {
+
+    private static final int DOCTORS = 500;
+    private static final long MAX_STATEMENTS = 2;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Doctor> doctors = new ArrayList<>(DOCTORS);
+        for (int i = 0; i < DOCTORS; i++) {
+            Doctor d = new Doctor();
+            d.setName("Doctor " + i);
+            d.setSpecialty(i % 2 == 0 ? "Cardiology" : "Dermatology");
+            d.setEmail("doctor" + i + "@example.com");
+            d.setPassword("secret123");
+            d.setPhone("0123456789");
+            d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "14:00-15:00")));
+            doctors.add(d);
+        }
+        doctorRepository.saveAll(doctors);
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllLoadsSlotsWithoutNPlusOne() {
+        assertSlotsLoadedWithinBudget(DOCTORS, () -> doctorRepository.findAll());
+    }
+
+    @Test
+    void findByNameLoadsSlotsWithoutNPlusOne() {
+        assertSlotsLoadedWithinBudget(DOCTORS,
+                () -> doctorRepository.findAll(DoctorSpecifications.nameMatches("Doctor"), Sort.by("name", "id")));
+    }
+
+    @Test
+    void findBySpecialtyLoadsSlotsWithoutNPlusOne() {
+        assertSlotsLoadedWithinBudget(DOCTORS / 2, () -> doctorRepository.findBySpecialtyIgnoreCase("cardiology"));
+    }
+
+    @Test
+    void findByNameAndSpecialtyLoadsSlotsWithoutNPlusOne() {
+        assertSlotsLoadedWithinBudget(DOCTORS / 2,
+                () -> doctorRepository.findAll(DoctorSpecifications.filter("doctor", "Dermatology", null), Sort.by("name", "id")));
+    }
+
+    @Test
+    void lazyLoadedSlotsAreBatched() {
+        // paths without the entity graph still load slots in batches (@BatchSize), not one query per doctor
+        assertSlotsLoadedWithinBudget(DOCTORS, () -> doctorRepository.findByNameLike("doctor%"), 1 + DOCTORS / 100);
+    }
+
+    private void assertSlotsLoadedWithinBudget(int expectedDoctors, Supplier<List<Doctor>> query) {
+        assertSlotsLoadedWithinBudget(expectedDoctors, query, MAX_STATEMENTS);
+    }
+
+    private void assertSlotsLoadedWithinBudget(int expectedDoctors, Supplier<List<Doctor>> query, long budget) {
+        List<Doctor> doctors = query.get();
+        int slots = 0;
+        for (Doctor d : doctors) {
+            slots += d.getAvailableTimes().size();
+        }
+        assertEquals(expectedDoctors, doctors.size());
+        assertEquals(expectedDoctors * 2, slots);
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= budget, "expected at most " + budget + " statements, got " + statements);
+    }
+}
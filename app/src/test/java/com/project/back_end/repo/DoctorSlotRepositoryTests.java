@@ -0,0 +1,83 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.models.Doctor;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks that the typed DoctorSlot rows follow Doctor.availableTimes, including label edits that keep a start time.
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+class DoctorSlotRepositoryTests {
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private DoctorSlotRepository doctorSlotRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void slotsAreDerivedForEveryWeekday() {
+        Long id = saveDoctor("14:00-15:30", "09:00 AM", "not a time").getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Object[]> rows = doctorSlotRepository.findScheduleByDoctorId(id);
+        assertEquals(14, rows.size());
+        assertEquals(1, ((Number) rows.get(0)[0]).intValue());
+        assertEquals(LocalTime.of(9, 0), rows.get(0)[1]);
+        assertEquals(60, ((Number) rows.get(0)[2]).intValue());
+        assertEquals("09:00 AM", rows.get(0)[3]);
+        assertEquals(LocalTime.of(14, 0), rows.get(1)[1]);
+        assertEquals(90, ((Number) rows.get(1)[2]).intValue());
+        assertEquals(7, ((Number) rows.get(13)[0]).intValue());
+
+        Doctor d = doctorRepository.findById(id).orElseThrow();
+        assertTrue(d.getAvailableAm());
+        assertTrue(d.getAvailablePm());
+    }
+
+    @Test
+    void changingAvailableTimesUpdatesTheSlotsInPlace() {
+        Long id = saveDoctor("09:00-10:00", "14:00-15:00").getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        Doctor d = doctorRepository.findById(id).orElseThrow();
+        d.setAvailableTimes(new ArrayList<>(List.of("09:00-09:30", "16:00-17:00")));
+        entityManager.flush(); // would violate uk_doctor_slot_doctor_weekday_start if 09:00 were re-inserted
+        entityManager.clear();
+
+        List<Object[]> rows = doctorSlotRepository.findScheduleByDoctorId(id);
+        assertEquals(14, rows.size());
+        assertEquals("09:00-09:30", rows.get(0)[3]);
+        assertEquals(30, ((Number) rows.get(0)[2]).intValue());
+        assertEquals(LocalTime.of(16, 0), rows.get(1)[1]);
+        assertTrue(doctorRepository.findIdsWithoutSlots().isEmpty());
+
+        Doctor reloaded = doctorRepository.findById(id).orElseThrow();
+        reloaded.setAvailableTimes(new ArrayList<>(List.of("10:00-11:00")));
+        entityManager.flush();
+        assertFalse(reloaded.getAvailablePm());
+    }
+
+    private Doctor saveDoctor(String... times) {
+        Doctor d = new Doctor();
+        d.setName("Slot Doctor");
+        d.setSpecialty("Cardiology");
+        d.setEmail("slots@example.com");
+        d.setPassword("secret123");
+        d.setPhone("0123456789");
+        d.setAvailableTimes(new ArrayList<>(List.of(times)));
+        return doctorRepository.save(d);
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.services.NameTokens;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Name search through the token tables: word-prefix, case- and accent-insensitive, and tokens following renames.
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+class NameTokenSearchTests {
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Doctor doctor;
+
+    @BeforeEach
+    void setUp() {
+        doctor = doctorRepository.save(doctor("José-María Núñez", "nunez@example.com"));
+        doctorRepository.save(doctor("Anna Smith", "smith@example.com"));
+        Patient zoe = patientRepository.save(patient("Zoë O'Brien", "0123400001"));
+        Patient bob = patientRepository.save(patient("Bob Brown", "0123400002"));
+        LocalDateTime nine = LocalDate.now().plusDays(1).atTime(9, 0);
+        appointmentRepository.save(new Appointment(doctor, zoe, nine, Appointment.STATUS_SCHEDULED));
+        appointmentRepository.save(new Appointment(doctor, bob, nine.plusHours(1), Appointment.STATUS_SCHEDULED));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void doctorsAreFoundByWordPrefixIgnoringCaseAndAccents() {
+        assertEquals(List.of("José-María Núñez"), names(DoctorSpecifications.nameMatches("NUÑ")));
+        assertEquals(List.of("José-María Núñez"), names(DoctorSpecifications.nameMatches("maria jose")));
+        assertTrue(names(DoctorSpecifications.nameMatches("unez")).isEmpty());
+        assertTrue(names(DoctorSpecifications.nameMatches("maria smith")).isEmpty());
+        assertTrue(names(DoctorSpecifications.nameMatches("--")).isEmpty());
+        assertEquals(1, doctorRepository.findByNameLike(NameTokens.prefixPattern(NameTokens.tokens("Ann"))).size());
+    }
+
+    @Test
+    void renamingReplacesTheTokens() {
+        Doctor d = doctorRepository.findById(doctor.getId()).orElseThrow();
+        d.setName("José Pérez");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(names(DoctorSpecifications.nameMatches("nunez")).isEmpty());
+        assertEquals(List.of("José Pérez"), names(DoctorSpecifications.nameMatches("perez")));
+    }
+
+    @Test
+    void patientNameOfTheDayIsMatchedOnTokens() {
+        LocalDateTime day = LocalDate.now().plusDays(1).atStartOfDay();
+        List<AppointmentDTO> found = appointmentRepository.findDtosByDoctorIdAndPatientNameTokenAndAppointmentTimeBetween(
+                doctor.getId(), "zoe%", day, day.plusDays(1));
+        assertEquals(1, found.size());
+        assertEquals("Zoë O'Brien", found.get(0).getPatientName());
+        assertEquals(1, appointmentRepository.findDtosByDoctorIdAndPatientNameTokenAndAppointmentTimeBetween(
+                doctor.getId(), "brien%", day, day.plusDays(1)).size());
+        assertEquals(2, appointmentRepository.findDtosByDoctorIdAndPatientNameTokenAndAppointmentTimeBetween(
+                doctor.getId(), "b%", day, day.plusDays(1)).size());
+    }
+
+    private List<String> names(Specification<Doctor> spec) {
+        return doctorRepository.findAll(spec, Sort.by("name", "id")).stream().map(Doctor::getName).toList();
+    }
+
+    private Doctor doctor(String name, String email) {
+        Doctor d = new Doctor();
+        d.setName(name);
+        d.setSpecialty("Cardiology");
+        d.setEmail(email);
+        d.setPassword("secret123");
+        d.setPhone("0123456789");
+        d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "10:00-11:00")));
+        return d;
+    }
+
+    private Patient patient(String name, String phone) {
+        Patient p = new Patient();
+        p.setName(name);
+        p.setEmail(phone + "@example.com");
+        p.setPassword("secret123");
+        p.setPhone(phone);
+        p.setAddress("Main Street 1");
+        return p;
+    }
+}
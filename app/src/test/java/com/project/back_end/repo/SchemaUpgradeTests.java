@@ -0,0 +1,122 @@
+package com.project.back_end.repo;
+
+import com.project.back_end.config.StartupMigrations;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.services.NameTokens;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Upgrade of a database created before the Flyway migrations: the baseline schema (IDENTITY ids, no slot, schedule
+// or generator tables) with rows in it is baselined at V1 and migrated, Hibernate validates the result, and
+// StartupMigrations completes the old rows. New ids must stay clear of the old ones.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(StartupMigrations.class)
+class SchemaUpgradeTests {
+
+    private static final String URL = "jdbc:h2:mem:upgrade;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private StartupMigrations startupMigrations;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    // Runs before the context starts, so Flyway finds a populated database without a history table.
+    @DynamicPropertySource
+    static void legacyDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection c = DriverManager.getConnection(URL, "sa", ""); Statement s = c.createStatement()) {
+            s.execute("RUNSCRIPT FROM 'classpath:db/migration/h2/V1__baseline_schema.sql'");
+            s.execute("""
+                    insert into doctor (id, name, specialty, email, password, phone)
+                    values (120, 'Ann Lee', 'Cardiology', 'ann@example.com', 'secret123', '0123456789')""");
+            s.execute("""
+                    insert into doctor_available_times (doctor_id, available_times)
+                    values (120, '09:00-10:00'), (120, '14:00-15:00')""");
+            s.execute("""
+                    insert into patient (id, name, email, password, phone, address)
+                    values (75, 'Bo Li', 'bo@example.com', 'secret123', '0123456780', '1 Main Street')""");
+            s.execute("""
+                    insert into appointment (id, doctor_id, patient_id, start_time, status)
+                    values (300, 120, 75, '2030-01-07 09:00:00', 0)""");
+        }
+        registry.add("spring.datasource.url", () -> URL);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @Test
+    void baselineDatabaseIsMigratedAndItsRowsCompleted() {
+        assertEquals("1", flyway.info().applied()[0].getVersion().getVersion());
+        assertEquals("10", flyway.info().current().getVersion().getVersion());
+
+        startupMigrations.run(null);
+
+        assertEquals(List.of(true, true), jdbcTemplate.queryForObject(
+                "select has_am_slots, has_pm_slots from doctor where id = 120",
+                (rs, i) -> List.of(rs.getBoolean(1), rs.getBoolean(2))));
+        assertEquals(2 * 7, jdbcTemplate.queryForObject(
+                "select count(*) from doctor_slot where doctor_id = 120", Integer.class)); // both labels, every weekday
+        assertEquals(1, doctorRepository.findByNameLike(NameTokens.prefixPattern(NameTokens.tokens("lee"))).size());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from patient_name_token where patient_id = 75 and token = 'bo'", Integer.class));
+    }
+
+    @Test
+    void newIdsStartAboveTheOldOnes() {
+        Doctor doctor = new Doctor();
+        doctor.setName("Cy Park");
+        doctor.setSpecialty("Dermatology");
+        doctor.setEmail("cy@example.com");
+        doctor.setPassword("secret123");
+        doctor.setPhone("0123456781");
+        doctor.setAvailableTimes(new ArrayList<>(List.of("10:00-11:00")));
+        doctor = doctorRepository.save(doctor);
+        Patient patient = new Patient();
+        patient.setName("Di Moss");
+        patient.setEmail("di@example.com");
+        patient.setPassword("secret123");
+        patient.setPhone("0123456782");
+        patient.setAddress("2 Side Road");
+        patient = patientRepository.save(patient);
+        Appointment appointment = appointmentRepository.save(new Appointment(doctor, patient,
+                LocalDate.now().plusDays(1).atTime(10, 0), Appointment.STATUS_SCHEDULED));
+
+        assertTrue(doctor.getId() > 120);
+        assertTrue(patient.getId() > 75);
+        assertTrue(appointment.getId() > 300);
+    }
+}
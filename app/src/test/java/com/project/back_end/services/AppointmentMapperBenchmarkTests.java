@@ -0,0 +1,80 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Time to map a 1k-row appointment list with BeanUtils.copyProperties (the old mapping) and with AppointmentMapper.
+// Run with: mvn -Pbench test -Dtest=AppointmentMapperBenchmarkTests
+// Warm-up rounds are discarded; the figure is the mean per list over the measured rounds.
+@Tag("benchmark")
+class AppointmentMapperBenchmarkTests {
+
+    private static final int ROWS = 1000;
+    private static final int WARMUP_ROUNDS = 2000;
+    private static final int ROUNDS = 5000;
+
+    private static volatile Object sink;
+
+    @Test
+    void mapThousandAppointments() {
+        List<Appointment> appointments = appointments();
+
+        double reflective = measure("BeanUtils.copyProperties", appointments, list -> {
+            List<AppointmentDTO> out = new ArrayList<>(list.size());
+            for (Appointment a : list) {
+                AppointmentDTO dto = new AppointmentDTO();
+                BeanUtils.copyProperties(a, dto);
+                out.add(dto);
+            }
+            return out;
+        });
+        double mapper = measure("AppointmentMapper", appointments, AppointmentMapper::toDtos);
+        System.out.printf("[bench] AppointmentMapper is %.1fx faster on %d rows%n", reflective / mapper, ROWS);
+
+        assertEquals("Doctor 7", AppointmentMapper.toDtos(appointments).get(7).getDoctorName());
+    }
+
+    private static double measure(String label, List<Appointment> appointments,
+                                  Function<List<Appointment>, List<AppointmentDTO>> mapping) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = mapping.apply(appointments);
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = mapping.apply(appointments);
+        }
+        double micros = (System.nanoTime() - t0) / 1e3 / ROUNDS;
+        System.out.printf("[bench] %s: %.1f us per %d-row list (%.0f ns/row)%n", label, micros, ROWS, micros * 1e3 / ROWS);
+        return micros;
+    }
+
+    private static List<Appointment> appointments() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        List<Appointment> out = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Doctor d = new Doctor();
+            d.setName("Doctor " + i);
+            Patient p = new Patient();
+            p.setId((long) i);
+            p.setName("Patient " + i);
+            p.setEmail("patient" + i + "@example.com");
+            p.setPhone("0123456789");
+            p.setAddress("1 Main Street");
+            Appointment a = new Appointment(d, p, start.plusHours(i), Appointment.STATUS_SCHEDULED);
+            out.add(a);
+        }
+        return out;
+    }
+}
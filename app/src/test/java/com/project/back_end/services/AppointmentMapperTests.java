@@ -0,0 +1,112 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// AppointmentMapper fills the flattened doctor/patient fields from fetched associations and never loads a proxy.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class AppointmentMapperTests {
+
+    private static final LocalDateTime NINE = LocalDate.now().plusDays(1).atTime(9, 0);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Doctor doctor;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        doctor = new Doctor();
+        doctor.setName("Mapper Doctor");
+        doctor.setSpecialty("Cardiology");
+        doctor.setEmail("mapper.doctor@example.com");
+        doctor.setPassword("secret123");
+        doctor.setPhone("0123456789");
+        doctorRepository.save(doctor);
+        patient = new Patient();
+        patient.setName("Mapper Patient");
+        patient.setEmail("mapper.patient@example.com");
+        patient.setPassword("secret123");
+        patient.setPhone("0123456789");
+        patient.setAddress("1 Main Street");
+        patientRepository.save(patient);
+        for (int i = 0; i < 20; i++) {
+            appointmentRepository.save(new Appointment(doctor, patient, NINE.plusDays(i), Appointment.STATUS_SCHEDULED));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void flattenedFieldsComeFromTheFetchedAssociationsInOneQuery() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Appointment> appointments = entityManager.createQuery("""
+                select a from Appointment a join fetch a.doctor join fetch a.patient
+                where a.patient.id = :patientId order by a.appointmentTime""", Appointment.class)
+                .setParameter("patientId", patient.getId())
+                .getResultList();
+        List<AppointmentDTO> dtos = AppointmentMapper.toDtos(appointments);
+        assertEquals(20, dtos.size());
+        AppointmentDTO first = dtos.get(0);
+        assertEquals(doctor.getId(), first.getDoctorId());
+        assertEquals("Mapper Doctor", first.getDoctorName());
+        assertEquals(patient.getId(), first.getPatientId());
+        assertEquals("Mapper Patient", first.getPatientName());
+        assertEquals("mapper.patient@example.com", first.getPatientEmail());
+        assertEquals("1 Main Street", first.getPatientAddress());
+        assertEquals(NINE, first.getAppointmentTime());
+        assertEquals(NINE.plusHours(1), first.getEndTime());
+        assertEquals(NINE.toLocalDate(), first.getAppointmentDate());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void uninitializedProxiesOnlyContributeTheirIds() {
+        Appointment a = new Appointment(doctorRepository.getReferenceById(doctor.getId()),
+                patientRepository.getReferenceById(patient.getId()), NINE, Appointment.STATUS_SCHEDULED);
+
+        AppointmentDTO dto = AppointmentMapper.toDto(a);
+        assertEquals(doctor.getId(), dto.getDoctorId());
+        assertEquals(patient.getId(), dto.getPatientId());
+        assertNull(dto.getDoctorName());
+        assertNull(dto.getPatientName());
+        assertFalse(Hibernate.isInitialized(a.getDoctor()));
+        assertFalse(Hibernate.isInitialized(a.getPatient()));
+    }
+}
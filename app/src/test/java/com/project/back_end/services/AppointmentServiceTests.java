@@ -0,0 +1,187 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Booking against H2 with the real availability index: reservations, the unique key on (doctor_id, start_time) as
+// the final guarantee, the index catching up with rows it did not see, and the batch path with its per-item results
+// and row-by-row fallback. Every insert commits on its own, so the
+// tests run outside a test transaction and remove their rows afterwards.
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AppointmentService.class, DoctorAvailabilityIndex.class})
+class AppointmentServiceTests {
+
+    private static final LocalDate MONDAY = LocalDate.now().plusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+    @MockitoBean
+    private CommonService commonService;
+    @MockitoBean
+    private TokenService tokenService;
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private DoctorAvailabilityIndex index;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Doctor doctor;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        Doctor d = new Doctor();
+        d.setName("Booking Doctor");
+        d.setSpecialty("Cardiology");
+        d.setEmail("booking@example.com");
+        d.setPassword("secret123");
+        d.setPhone("0123456789");
+        d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "10:00-11:00", "11:00-12:00")));
+        doctor = doctorRepository.save(d);
+        Patient p = new Patient();
+        p.setName("Booking Patient");
+        p.setEmail("booking-patient@example.com");
+        p.setPassword("secret123");
+        p.setPhone("0123456780");
+        p.setAddress("1 Main Street");
+        patient = patientRepository.save(p);
+        index.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+        index.clear();
+    }
+
+    @Test
+    void uniqueKeyConflictIsReportedAndTheDayReloaded() {
+        LocalDateTime nine = MONDAY.atTime(9, 0);
+        index.availableSlots(doctor.getId(), MONDAY); // day cached with 09:00 free
+        appointmentRepository.saveAndFlush(new Appointment(doctor, patient, nine, Appointment.STATUS_SCHEDULED)); // behind the index's back
+
+        assertEquals(-1, appointmentService.bookAppointment(new Appointment(doctor, patient, nine, Appointment.STATUS_SCHEDULED)));
+        assertEquals(List.of("10:00-11:00", "11:00-12:00"), index.availableSlots(doctor.getId(), MONDAY));
+        assertEquals(1, appointmentRepository.count());
+
+        assertEquals(1, appointmentService.bookAppointment(
+                new Appointment(doctor, patient, MONDAY.atTime(10, 0), Appointment.STATUS_SCHEDULED)));
+        assertEquals(List.of("11:00-12:00"), index.availableSlots(doctor.getId(), MONDAY));
+    }
+
+    @Test
+    void updatesAreLimitedToTheCallersOwnAppointments() {
+        Appointment booked = appointmentRepository.saveAndFlush(
+                new Appointment(doctor, patient, MONDAY.atTime(9, 0), Appointment.STATUS_SCHEDULED));
+        Patient other = new Patient();
+        other.setName("Other Patient");
+        other.setEmail("other-patient@example.com");
+        other.setPassword("secret123");
+        other.setPhone("0123456781");
+        other.setAddress("2 Side Road");
+        other = patientRepository.save(other);
+        Appointment change = new Appointment(doctor, other, MONDAY.atTime(10, 0), Appointment.STATUS_SCHEDULED);
+        ReflectionTestUtils.setField(change, "id", booked.getId()); // as bound from the request body
+
+        assertEquals(HttpStatus.FORBIDDEN, appointmentService.updateAppointment(change, other.getId()).getStatusCode());
+        assertEquals(MONDAY.atTime(9, 0), appointmentRepository.findById(booked.getId()).orElseThrow().getAppointmentTime());
+
+        assertEquals(HttpStatus.OK, appointmentService.updateAppointment(change, patient.getId()).getStatusCode());
+        assertEquals(List.of(patient.getId()), appointmentRepository.findDtosByPatientId(patient.getId()).stream()
+                .map(AppointmentDTO::getPatientId).toList()); // stays with its patient, whatever the body says
+        assertEquals(List.of("09:00-10:00", "11:00-12:00"), index.availableSlots(doctor.getId(), MONDAY));
+    }
+
+    @Test
+    void cancelledSlotCanBeBookedAgainEvenIfTheIndexMissedTheCancel() {
+        LocalDateTime nine = MONDAY.atTime(9, 0);
+        assertEquals(1, appointmentService.bookAppointment(new Appointment(doctor, patient, nine, Appointment.STATUS_SCHEDULED)));
+        appointmentRepository.deleteAll(); // cancelled elsewhere: the booked bit is still set here
+
+        assertEquals(1, appointmentService.bookAppointment(new Appointment(doctor, patient, nine, Appointment.STATUS_SCHEDULED)));
+        assertEquals(1, appointmentRepository.count());
+    }
+
+    @Test
+    void batchReportsOneResultPerItemInRequestOrder() {
+        List<Map<String, Object>> results = appointmentService.bookAppointments(List.of(
+                item(doctor.getId(), MONDAY.atTime(9, 0)),
+                item(doctor.getId(), MONDAY.atTime(10, 0)),
+                item(doctor.getId(), MONDAY.atTime(9, 0)),  // same slot as item 0: the later item loses
+                item(doctor.getId(), MONDAY.atTime(9, 30)), // not a slot of the doctor
+                item(doctor.getId(), null),
+                item(doctor.getId() + 1000, MONDAY.atTime(9, 0))), patient.getId());
+
+        assertEquals(List.of(201, 201, 409, 409, 400, 404), statuses(results));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), results.stream().map(r -> r.get("index")).toList());
+        assertEquals("Requested slot is unavailable.", results.get(2).get("message"));
+        assertEquals(2, appointmentRepository.count());
+        assertEquals(List.of("11:00-12:00"), index.availableSlots(doctor.getId(), MONDAY));
+    }
+
+    @Test
+    void batchFallsBackToSingleInsertsWhenASlotWasTakenBehindTheIndex() {
+        index.availableSlots(doctor.getId(), MONDAY); // day cached with every slot free
+        Appointment elsewhere = appointmentRepository.saveAndFlush(
+                new Appointment(doctor, patient, MONDAY.atTime(10, 0), Appointment.STATUS_SCHEDULED));
+
+        List<Map<String, Object>> results = appointmentService.bookAppointments(List.of(
+                item(doctor.getId(), MONDAY.atTime(9, 0)),
+                item(doctor.getId(), MONDAY.atTime(10, 0)),
+                item(doctor.getId(), MONDAY.atTime(11, 0))), patient.getId());
+
+        // the batch insert hit the unique key and rolled back; row by row only the taken slot fails
+        assertEquals(List.of(201, 409, 201), statuses(results));
+        assertEquals(3, appointmentRepository.count());
+        assertEquals(List.of(), index.availableSlots(doctor.getId(), MONDAY));
+
+        // the failed item holds no reservation: once the other booking is cancelled the slot can be booked again
+        appointmentRepository.delete(elsewhere);
+        assertEquals(1, appointmentService.bookAppointment(
+                new Appointment(doctor, patient, MONDAY.atTime(10, 0), Appointment.STATUS_SCHEDULED)));
+    }
+
+    private static AppointmentDTO item(Long doctorId, LocalDateTime time) {
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setDoctorId(doctorId);
+        dto.setAppointmentTime(time);
+        dto.setStatus(Appointment.STATUS_SCHEDULED);
+        return dto;
+    }
+
+    private static List<Object> statuses(List<Map<String, Object>> results) {
+        return results.stream().map(r -> r.get("status")).toList();
+    }
+}
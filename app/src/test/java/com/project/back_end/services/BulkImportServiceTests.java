@@ -0,0 +1,184 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+
+// The import pipeline against H2, in chunks of three: parsing, duplicates inside a chunk and against committed rows,
+// the row-by-row retry of a failed batch, and capped error samples. Chunks commit on their own, so the tests run
+// outside a test transaction and remove their patients afterwards.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "import.chunk-size=3",
+        "import.max-errors-per-chunk=2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@AutoConfigureJson
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@Import(BulkImportService.class)
+class BulkImportServiceTests {
+
+    private static final String HEADER = "name,email,password,phone,address\n";
+
+    @MockitoBean
+    private TokenService tokenService;
+    @Autowired
+    private BulkImportService importService;
+    @MockitoSpyBean
+    private PatientRepository patientRepository;
+
+    private final List<Map<String, Object>> progress = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void quotedAndMultiLineCsvFieldsAreImported() {
+        Map<String, Object> done = importCsv(HEADER
+                + "Ann Lee,ann@example.com,secret123,0123456789,\"1 Main Street, Springfield\"\n"
+                + "\n"
+                + "\"Bo \"\"Bobby\"\" Li\",bo@example.com,secret123,0123456780,\"Flat 2\n3 Side Road\"\n");
+
+        assertEquals(2L, done.get("imported"));
+        assertEquals(1L, done.get("chunks"));
+        assertEquals("1 Main Street, Springfield", patient("ann@example.com").getAddress());
+        assertEquals("Bo \"Bobby\" Li", patient("bo@example.com").getName());
+        assertEquals("Flat 2\n3 Side Road", patient("bo@example.com").getAddress());
+    }
+
+    @Test
+    void duplicatesInsideAChunkAndAgainstCommittedRowsAreSkipped() {
+        importCsv(HEADER + "Existing One,existing@example.com,secret123,0000000001,1 Main Street\n");
+        progress.clear();
+
+        Map<String, Object> done = importCsv(HEADER
+                // chunk 1
+                + "Same Email,Existing@Example.com,secret123,0000000002,1 Main Street\n"
+                + "Same Phone,new1@example.com,secret123,0000000001,1 Main Street\n"
+                + "New Two,new2@example.com,secret123,1111111111,1 Main Street\n"
+                // chunk 2: new4 twice in the chunk, new2 committed by chunk 1
+                + "New Four,new4@example.com,secret123,2222222222,1 Main Street\n"
+                + "New Four Again,NEW4@example.com,secret123,3333333333,1 Main Street\n"
+                + "New Two Again,new2@example.com,secret123,4444444444,1 Main Street\n"
+                // chunk 3: phone committed by chunk 1
+                + "Phone Again,new5@example.com,secret123,1111111111,1 Main Street\n");
+
+        assertEquals(3L, done.get("chunks"));
+        assertEquals(7L, done.get("processed"));
+        assertEquals(2L, done.get("imported"));
+        assertEquals(5L, done.get("duplicates"));
+        assertEquals(3, patientRepository.count());
+        assertEquals(List.of(Map.of("line", 2L, "message", "Duplicate email."),
+                Map.of("line", 3L, "message", "Duplicate phone.")), progress.get(0).get("errors"));
+        assertEquals(List.of(Map.of("line", 6L, "message", "Duplicate email."),
+                Map.of("line", 7L, "message", "Duplicate email.")), progress.get(1).get("errors"));
+        assertEquals(List.of(Map.of("line", 8L, "message", "Duplicate phone.")), progress.get(2).get("errors"));
+    }
+
+    @Test
+    void aFailedBatchIsRetriedRowByRow() {
+        // valid for @Email, but longer than the 255-character email column, so only the database rejects it
+        String tooLong = "a".repeat(60) + "@" + ("b".repeat(60) + ".").repeat(4) + "com";
+
+        Map<String, Object> done = importCsv(HEADER
+                + "Ann Lee,ann@example.com,secret123,0123456789,1 Main Street\n"
+                + "Too Long," + tooLong + ",secret123,0123456780,1 Main Street\n"
+                + "Cy Park,cy@example.com,secret123,0123456781,1 Main Street\n");
+
+        assertEquals(2L, done.get("imported"));
+        assertEquals(1L, done.get("failed"));
+        assertEquals(2, patientRepository.count());
+        assertEquals(List.of(Map.of("line", 3L,
+                        "message", "Could not be saved (already exists or invalid for the database).")),
+                progress.get(0).get("errors"));
+    }
+
+    @Test
+    void concurrentDuplicateHitsTheUniqueIndexAndFallsBackRowByRow() {
+        importCsv(HEADER + "Ann Lee,ann@example.com,secret123,0123456789,1 Main Street\n");
+        progress.clear();
+        // the duplicate check saw nothing, as if the row had been committed by a concurrent import in between
+        doReturn(List.of()).when(patientRepository).findExistingEmails(anyCollection());
+
+        Map<String, Object> done = importCsv(HEADER
+                + "Ann Again, ANN@Example.com ,secret123,0123456780,1 Main Street\n"
+                + "Cy Park,cy@example.com,secret123,0123456781,1 Main Street\n");
+
+        assertEquals(1L, done.get("imported"));
+        assertEquals(1L, done.get("failed"));
+        assertEquals(2, patientRepository.count());
+        assertEquals(List.of(Map.of("line", 2L,
+                        "message", "Could not be saved (already exists or invalid for the database).")),
+                progress.get(0).get("errors"));
+    }
+
+    @Test
+    void emailsAreStoredNormalizedAndUniqueRegardlessOfCase() {
+        importCsv(HEADER + "Ann Lee, Ann@Example.COM ,secret123,0123456789,1 Main Street\n");
+
+        assertEquals("Ann Lee", patient("ann@example.com").getName());
+        assertEquals(List.of("ann@example.com"), patientRepository.findExistingEmails(List.of("ann@example.com", "bo@example.com")));
+        assertEquals(patient("ann@example.com").getId(), patientRepository.findIdByEmailIgnoreCase("ANN@example.com").orElseThrow());
+
+        Patient sameEmail = new Patient();
+        sameEmail.setName("Ann Again");
+        sameEmail.setEmail("ANN@EXAMPLE.COM");
+        sameEmail.setPassword("secret123");
+        sameEmail.setPhone("0123456780");
+        sameEmail.setAddress("1 Main Street");
+        assertThrows(DataIntegrityViolationException.class, () -> patientRepository.saveAndFlush(sameEmail));
+    }
+
+    @Test
+    void errorSamplesAreCappedButCountsStayExact() {
+        Map<String, Object> done = importService.importPatients(new StringReader("""
+                {"name":
+
+                [1, 2]
+                {"name":"No Email","password":"secret123","phone":"0123456789","address":"1 Main Street"}
+                {"name":"Ann Lee","email":"ann@example.com","password":"secret123","phone":"0123456789","address":"1 Main Street"}
+                """), ImportRecordReader.NDJSON, progress::add);
+
+        assertEquals(4L, done.get("processed"));
+        assertEquals(3L, done.get("invalid"));
+        assertEquals(1L, done.get("imported"));
+        List<?> samples = (List<?>) progress.get(0).get("errors");
+        assertEquals(2, samples.size());
+        assertEquals(Map.of("line", 1L, "message", "Malformed JSON."), samples.get(0));
+        assertEquals(Map.of("line", 3L, "message", "Expected a JSON object."), samples.get(1));
+        assertFalse(progress.get(1).containsKey("errors"));
+    }
+
+    private Map<String, Object> importCsv(String csv) {
+        return importService.importPatients(new StringReader(csv), ImportRecordReader.CSV, progress::add);
+    }
+
+    private Patient patient(String email) {
+        return patientRepository.findAll().stream().filter(p -> p.getEmail().equals(email)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,232 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.ScheduleException;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.ScheduleExceptionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Weekly schedule + exceptions as seen through the availability index, slot reservation under contention and with
+// stale booked bits, and the query cost of a cold 30-day window.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(DoctorAvailabilityIndex.class)
+class DoctorAvailabilityIndexTests {
+
+    private static final LocalDate MONDAY = LocalDate.now().plusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+    @Autowired
+    private DoctorAvailabilityIndex index;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private ScheduleExceptionRepository scheduleExceptionRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long doctorId;
+
+    @BeforeEach
+    void setUp() {
+        Doctor d = new Doctor();
+        d.setName("Schedule Doctor");
+        d.setSpecialty("Cardiology");
+        d.setEmail("schedule@example.com");
+        d.setPassword("secret123");
+        d.setPhone("0123456789");
+        Map<DayOfWeek, List<String>> week = new EnumMap<>(DayOfWeek.class);
+        week.put(DayOfWeek.MONDAY, List.of("09:00-09:30", "09:30-10:30", "14:00-15:00"));
+        week.put(DayOfWeek.TUESDAY, List.of("13:00-14:00"));
+        d.setWeeklySchedule(week);
+        doctorId = doctorRepository.save(d).getId();
+
+        Doctor ref = doctorRepository.getReferenceById(doctorId);
+        scheduleExceptionRepository.save(new ScheduleException(ref, MONDAY.plusWeeks(1), null, null, "Vacation"));
+        scheduleExceptionRepository.save(new ScheduleException(ref, MONDAY.plusWeeks(2), LocalTime.NOON, null, "Half day"));
+        entityManager.flush();
+        entityManager.clear();
+        index.clear();
+    }
+
+    @Test
+    void templatesAreApplied() {
+        assertEquals(List.of("09:00-09:30", "09:30-10:30", "14:00-15:00"), index.availableSlots(doctorId, MONDAY));
+        assertEquals(List.of("13:00-14:00"), index.availableSlots(doctorId, MONDAY.plusDays(1)));
+        assertTrue(index.availableSlots(doctorId, MONDAY.plusDays(2)).isEmpty());
+        assertEquals(1, index.check(doctorId, MONDAY.atTime(9, 30)));
+        assertEquals(0, index.check(doctorId, MONDAY.plusDays(1).atTime(9, 30)));
+    }
+
+    @Test
+    void exceptionsRemoveOverlappingSlots() {
+        assertTrue(index.availableSlots(doctorId, MONDAY.plusWeeks(1)).isEmpty());
+        assertEquals(List.of("09:00-09:30", "09:30-10:30"), index.availableSlots(doctorId, MONDAY.plusWeeks(2)));
+        assertEquals(0, index.tryReserve(doctorId, MONDAY.plusWeeks(2).atTime(14, 0)));
+        assertEquals(1, index.tryReserve(doctorId, MONDAY.plusWeeks(2).atTime(9, 0)));
+        assertEquals(List.of("09:30-10:30"), index.availableSlots(doctorId, MONDAY.plusWeeks(2)));
+    }
+
+    @Test
+    void concurrentReservationsOfOneSlotHaveOneWinner() throws Exception {
+        LocalDateTime slot = MONDAY.atTime(9, 30);
+        index.availableSlots(doctorId, MONDAY); // warm: the threads below run outside the test transaction
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return index.tryReserve(doctorId, slot);
+                }));
+            }
+            start.countDown();
+            int winners = 0;
+            for (Future<Integer> r : results) winners += r.get(10, TimeUnit.SECONDS);
+            assertEquals(1, winners);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, index.check(doctorId, slot));
+        assertEquals(List.of("09:00-09:30", "14:00-15:00"), index.availableSlots(doctorId, MONDAY));
+
+        index.release(doctorId, slot);
+        assertEquals(1, index.tryReserve(doctorId, slot));
+    }
+
+    @Test
+    void bookedBitWithoutAnAppointmentRowDoesNotBlockTheSlot() {
+        LocalDateTime stale = MONDAY.atTime(9, 0);
+        LocalDateTime booked = MONDAY.atTime(14, 0);
+        index.availableSlots(doctorId, MONDAY);
+        index.markBooked(doctorId, stale); // e.g. cancelled on another instance, or loaded before a cancel committed
+        Patient p = new Patient();
+        p.setName("Index Patient");
+        p.setEmail("index-patient@example.com");
+        p.setPassword("secret123");
+        p.setPhone("0123456789");
+        p.setAddress("1 Main Street");
+        entityManager.persist(p);
+        entityManager.persist(new Appointment(doctorRepository.getReferenceById(doctorId), p, booked,
+                Appointment.STATUS_SCHEDULED));
+        entityManager.flush();
+        index.markBooked(doctorId, booked);
+
+        assertEquals(1, index.check(doctorId, stale));
+        assertEquals(1, index.tryReserve(doctorId, stale));
+        assertEquals(0, index.tryReserve(doctorId, stale)); // now reserved in memory
+        assertEquals(0, index.check(doctorId, booked));
+        assertEquals(0, index.tryReserve(doctorId, booked));
+        assertEquals(1L, index.stats().get("staleBits"));
+    }
+
+    @Test
+    void coldRangeCostsOneTemplateAndTwoDayQueries() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Map<LocalDate, List<String>> month = index.availableSlots(doctorId, MONDAY, MONDAY.plusDays(29));
+        assertEquals(30, month.size());
+        assertTrue(month.get(MONDAY.plusWeeks(1)).isEmpty());
+        assertEquals(3, month.get(MONDAY.plusWeeks(3)).size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+
+        index.availableSlots(doctorId, MONDAY, MONDAY.plusDays(29));
+        assertEquals(3, statistics.getPrepareStatementCount()); // warm: served from the cached days
+    }
+
+    @Test
+    void manyDoctorsOnOneDateCostAFixedNumberOfQueries() {
+        List<Long> ids = new ArrayList<>(List.of(doctorId));
+        for (int i = 0; i < 20; i++) {
+            Doctor d = new Doctor();
+            d.setName("Other Doctor " + i);
+            d.setSpecialty("Cardiology");
+            d.setEmail("other" + i + "@example.com");
+            d.setPassword("secret123");
+            d.setPhone("0123456789");
+            d.setAvailableTimes(new ArrayList<>(List.of("10:00-11:00", "15:00-16:00")));
+            ids.add(doctorRepository.save(d).getId());
+        }
+        ids.add(-1L);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Map<Long, List<String>> byDoctor = index.availableSlots(ids, MONDAY.plusWeeks(2));
+        assertEquals(21, byDoctor.size());
+        assertEquals(List.of("09:00-09:30", "09:30-10:30"), byDoctor.get(doctorId));
+        assertEquals(List.of("10:00-11:00", "15:00-16:00"), byDoctor.get(ids.get(1)));
+        // slot rows, the existence check for the unknown id, exceptions, appointments
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void changingTheScheduleInvalidatesTheCachedDays() {
+        assertEquals(3, index.availableSlots(doctorId, MONDAY).size());
+        Doctor d = doctorRepository.findById(doctorId).orElseThrow();
+        d.setAvailableTimes(new ArrayList<>(List.of("08:00-09:00")));
+        entityManager.flush();
+        index.invalidateDoctor(doctorId);
+        assertEquals(List.of("08:00-09:00"), index.availableSlots(doctorId, MONDAY));
+    }
+
+    @Test
+    void versionsChangeWithTheDaysTheyCover() {
+        long day = index.version(doctorId, MONDAY);
+        long range = index.version(doctorId, MONDAY, MONDAY.plusDays(6));
+        long many = index.version(List.of(doctorId), MONDAY.plusDays(1));
+        assertEquals(day, index.version(doctorId, MONDAY));
+        assertEquals(range, index.version(doctorId, MONDAY, MONDAY.plusDays(6)));
+
+        index.markBooked(doctorId, MONDAY.plusDays(1).atTime(13, 0));
+        assertEquals(day, index.version(doctorId, MONDAY));
+        assertNotEquals(range, index.version(doctorId, MONDAY, MONDAY.plusDays(6)));
+        assertNotEquals(many, index.version(List.of(doctorId), MONDAY.plusDays(1)));
+
+        index.markBooked(doctorId, MONDAY.atTime(9, 0));
+        long booked = index.version(doctorId, MONDAY);
+        assertNotEquals(day, booked);
+        index.markBooked(doctorId, MONDAY.atTime(9, 0)); // already booked: nothing changes
+        assertEquals(booked, index.version(doctorId, MONDAY));
+
+        index.invalidateDay(doctorId, MONDAY);
+        assertNotEquals(booked, index.version(doctorId, MONDAY));
+        assertEquals(-1, index.version(-1L, MONDAY));
+    }
+}
@@ -0,0 +1,145 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorSpecifications;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+// Bytes on the wire and serialization time of the 2k-doctor directory (GET /doctor):
+// the old HashMap wrapper, a typed record wrapper, and the pre-serialized DoctorDirectory snapshot; then gzip per
+// response against the snapshot's pre-compressed copy.
+// Run with: mvn -Pbench test -Dtest=DoctorDirectoryBenchmarkTests
+// Warm-up rounds are discarded; the figure is the mean per response over the measured rounds.
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureJson
+@Import(DoctorDirectory.class)
+class DoctorDirectoryBenchmarkTests {
+
+    private static final int DOCTORS = 2000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 500;
+
+    private static volatile Object sink;
+
+    @Autowired
+    private DoctorDirectory directory;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManager entityManager;
+
+    record DoctorList(List<Doctor> doctors) {
+    }
+
+    @Test
+    void serializeTwoThousandDoctors() {
+        List<Doctor> doctors = seed();
+        Map<String, Object> map = new HashMap<>();
+        map.put("doctors", doctors);
+        DoctorList record = new DoctorList(doctors);
+
+        double mapped = measure("HashMap wrapper", () -> write(map));
+        double typed = measure("record wrapper", () -> write(record));
+        double snapshot = measure("DoctorDirectory snapshot", directory::allJson);
+        System.out.printf("[bench] record wrapper is %.2fx as fast as the HashMap wrapper; the snapshot saves %.0f us per response%n",
+                mapped / typed, typed - snapshot);
+
+        byte[] json = directory.allJson();
+        double zipped = measure("gzip per response", () -> gzip(json));
+        double prezipped = measure("pre-gzipped snapshot", directory::allJsonGzip);
+        byte[] gz = directory.allJsonGzip();
+        System.out.printf("[bench] %d doctors: %d bytes as JSON, %d bytes gzipped (%.1f%%); %.0f us to compress, %.1f us pre-compressed%n",
+                DOCTORS, json.length, gz.length, 100.0 * gz.length / json.length, zipped, prezipped);
+
+        assertArrayEquals(json, gunzip(gz));
+        assertArrayEquals(write(map), json);
+        assertArrayEquals(write(record), json);
+    }
+
+    private List<Doctor> seed() {
+        String[] specialties = {"Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics"};
+        List<Doctor> doctors = new ArrayList<>(DOCTORS);
+        for (int i = 0; i < DOCTORS; i++) {
+            Doctor d = new Doctor();
+            d.setName("Doctor " + i);
+            d.setSpecialty(specialties[i % specialties.length]);
+            d.setEmail("bench" + i + "@example.com");
+            d.setPassword("secret123");
+            d.setPhone("0123456789");
+            d.setClinicAddress(i + " Main Street");
+            d.setYearsOfExperience(i % 40);
+            d.setRating(BigDecimal.valueOf(i % 50, 1));
+            d.setAvailableTimes(new ArrayList<>(List.of("09:00-10:00", "10:00-11:00", "14:00-15:00", "15:00-16:00")));
+            doctors.add(d);
+        }
+        doctorRepository.saveAll(doctors);
+        entityManager.flush();
+        entityManager.clear();
+        return doctorRepository.findAll(DoctorSpecifications.filter(null, null, null), Sort.by("name", "id"));
+    }
+
+    private byte[] write(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double measure(String label, Supplier<Object> work) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = work.get();
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink = work.get();
+        }
+        double micros = (System.nanoTime() - t0) / 1e3 / ROUNDS;
+        System.out.printf("[bench] %s: %.1f us per %d-doctor response%n", label, micros, DOCTORS);
+        return micros;
+    }
+}
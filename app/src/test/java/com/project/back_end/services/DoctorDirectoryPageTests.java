@@ -0,0 +1,127 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.DoctorDirectoryPage;
+import com.project.back_end.DTO.DoctorSummary;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Keyset pages of the doctor directory over names that repeat: (name, id) order across page boundaries, no row
+// skipped or repeated, no cursor after the last page, and cursors that round-trip or are rejected.
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({DoctorService.class, DoctorAvailabilityIndex.class})
+class DoctorDirectoryPageTests {
+
+    private static final String[] NAMES = {"Bo Li", "Ann Lee", "Bo Li", "Cy Park", "Ann Lee", "Bo Li", "Ann Lee"};
+
+    @MockitoBean
+    private TokenService tokenService;
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private List<Doctor> doctors;
+    private final Map<Long, List<String>> times = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        doctors = new ArrayList<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            Doctor d = new Doctor();
+            d.setName(NAMES[i]);
+            d.setSpecialty("Cardiology");
+            d.setEmail("page" + i + "@example.com");
+            d.setPassword("secret123");
+            d.setPhone("0123456789");
+            d.setAvailableTimes(new ArrayList<>(List.of(String.format("%02d:00-%02d:00", 8 + i, 9 + i))));
+            doctors.add(d);
+        }
+        doctorRepository.saveAll(doctors);
+        for (Doctor d : doctors) times.put(d.getId(), List.copyOf(d.getAvailableTimes()));
+        entityManager.flush();
+        entityManager.clear();
+        doctors.sort(Comparator.comparing(Doctor::getName).thenComparing(Doctor::getId));
+    }
+
+    @Test
+    void pagesFollowNameThenIdAcrossEqualNames() {
+        List<Long> seen = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            DoctorDirectoryPage page = doctorService.getDirectoryPage(cursor, 2);
+            sizes.add(page.getDoctors().size());
+            for (DoctorSummary d : page.getDoctors()) {
+                seen.add(d.getId());
+                assertEquals(times.get(d.getId()), d.getAvailableTimes());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // the Ann Lee and Bo Li runs are split between pages, ties broken by id
+        assertEquals(doctors.stream().map(Doctor::getId).toList(), seen);
+        assertEquals(List.of(2, 2, 2, 1), sizes);
+    }
+
+    @Test
+    void cursorPointsAtTheLastRowAndTheLastPageHasNone() {
+        DoctorDirectoryPage first = doctorService.getDirectoryPage(null, 2);
+        DirectoryCursor after = DirectoryCursor.decode(first.getNextCursor());
+        assertEquals("Ann Lee", after.getName());
+        assertEquals(doctors.get(1).getId(), after.getId());
+
+        DoctorDirectoryPage rest = doctorService.getDirectoryPage(first.getNextCursor(), NAMES.length - 2);
+        assertEquals(doctors.subList(2, NAMES.length).stream().map(Doctor::getId).toList(),
+                rest.getDoctors().stream().map(DoctorSummary::getId).toList());
+        assertNull(rest.getNextCursor()); // exactly filled: the extra row is what signals more pages
+
+        Doctor lastDoctor = doctors.get(NAMES.length - 1);
+        String afterLast = new DirectoryCursor(lastDoctor.getName(), lastDoctor.getId()).encode();
+        DoctorDirectoryPage empty = doctorService.getDirectoryPage(afterLast, 2);
+        assertEquals(List.of(), empty.getDoctors());
+        assertNull(empty.getNextCursor());
+    }
+
+    @Test
+    void cursorRoundTripsNamesWithSeparatorsAndAccents() {
+        DirectoryCursor decoded = DirectoryCursor.decode(new DirectoryCursor("José: Álvarez-Ruiz", 42L).encode());
+        assertNotNull(decoded);
+        assertEquals("José: Álvarez-Ruiz", decoded.getName());
+        assertEquals(42L, decoded.getId());
+        assertNull(DirectoryCursor.decode(null));
+        assertNull(DirectoryCursor.decode(" "));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        for (String cursor : List.of("not base64!", encoded("no separator"), encoded("x:Ann Lee"), encoded(":Ann Lee"))) {
+            assertThrows(IllegalArgumentException.class, () -> doctorService.getDirectoryPage(cursor, 2), cursor);
+        }
+    }
+
+    private static String encoded(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
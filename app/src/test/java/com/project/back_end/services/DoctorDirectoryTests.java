@@ -0,0 +1,146 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The in-memory doctor directory answers like the database filter (DoctorService.searchDoctors), byte for byte,
+// serves reads without statements, and only shows changes once refreshed. Its CBOR bodies hold the same content.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureJson
+@Import({DoctorDirectory.class, DoctorService.class, DoctorAvailabilityIndex.class})
+class DoctorDirectoryTests {
+
+    private static final String[] NAMES = {"Ann Lee", "Anna Berg", "José Álvarez", "Jose Alvarez-Ruiz",
+            "Lee Annison", "Zoë Park", "Mark O'Neil", "Bo Li"};
+    private static final String[] SPECIALTIES = {"Cardiology", "Dermatology", "Neurology"};
+    private static final String[] TIMES = {"09:00-10:00", "14:00-15:00"};
+
+    @MockitoBean
+    private TokenService tokenService;
+    @Autowired
+    private DoctorDirectory directory;
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            Doctor d = new Doctor();
+            d.setName(NAMES[i % NAMES.length]);
+            d.setSpecialty(SPECIALTIES[i % SPECIALTIES.length]);
+            d.setEmail("directory" + i + "@example.com");
+            d.setPassword("secret123");
+            d.setPhone("0123456789");
+            d.setRating(BigDecimal.valueOf(i * 2 % 51, 1));
+            d.setAvailableTimes(new ArrayList<>(i % 4 == 3 ? List.of(TIMES) : List.of(TIMES[i % 4 % 2])));
+            doctors.add(d);
+        }
+        doctorRepository.saveAll(doctors);
+        entityManager.flush();
+        entityManager.clear();
+        directory.refresh();
+    }
+
+    @Test
+    void filterMatchesTheDatabaseFilter() throws Exception {
+        String[] names = {null, "ann", "Ann lee", "jose", "ÁLV", "lee an", "o'neil", "zz", "--"};
+        String[] specialties = {null, "Cardiology", "Neurology", "Pediatrics"};
+        String[] periods = {null, "AM", "PM"};
+        for (String name : names) {
+            for (String specialty : specialties) {
+                for (String period : periods) {
+                    byte[] expected = objectMapper.writeValueAsBytes(
+                            Map.of("doctors", doctorService.searchDoctors(name, specialty, period)));
+                    assertEquals(new String(expected, StandardCharsets.UTF_8),
+                            new String(directory.filterJson(name, specialty, period), StandardCharsets.UTF_8),
+                            name + " / " + specialty + " / " + period);
+                }
+            }
+        }
+    }
+
+    @Test
+    void cborCarriesTheSameContentAsTheMessageConverter() throws Exception {
+        ObjectMapper cbor = objectMapper.copyWith(new CBORFactory());
+        assertEquals(cbor.readTree(cbor.writeValueAsBytes(Map.of("doctors", doctorService.searchDoctors(null, null, null)))),
+                cbor.readTree(directory.allCbor()));
+        assertEquals(cbor.readTree(cbor.writeValueAsBytes(Map.of("doctors", doctorService.searchDoctors("ann", null, "PM")))),
+                cbor.readTree(directory.filterCbor("ann", null, "PM")));
+        // Against the JSON body, numbers compare by value (JSON 1.0 and the CBOR decimal 1.0 read back as 1.0 and 1).
+        assertTrue(objectMapper.readTree(directory.allJson()).equals((a, b) -> a.isNumber() && b.isNumber()
+                ? a.decimalValue().compareTo(b.decimalValue()) : a.equals(b) ? 0 : 1, cbor.readTree(directory.allCbor())));
+    }
+
+    @Test
+    void unfilteredListIsTheWholeDirectory() {
+        assertTrue(Arrays.equals(directory.filterJson(null, null, null), directory.allJson()));
+        assertTrue(new String(directory.allJson(), StandardCharsets.UTF_8).startsWith("{\"doctors\":[{"));
+    }
+
+    @Test
+    void specialtyIgnoresCase() {
+        assertTrue(Arrays.equals(directory.filterJson(null, "Cardiology", null),
+                directory.filterJson(null, " cardiology ", null)));
+    }
+
+    @Test
+    void readsDoNotQuery() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        directory.allJson();
+        directory.filterJson("ann", "Cardiology", "AM");
+        directory.filterJson(null, null, "PM");
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void changesAppearAfterRefresh() {
+        byte[] before = directory.allJson();
+        Doctor d = doctorRepository.findAll().get(0);
+        d.setName("Quentin Newname");
+        entityManager.flush();
+        assertFalse(new String(directory.filterJson("quentin", null, null), StandardCharsets.UTF_8).contains("Quentin"));
+
+        directory.refresh();
+        assertTrue(new String(directory.filterJson("quentin", null, null), StandardCharsets.UTF_8).contains("Quentin"));
+        assertFalse(Arrays.equals(before, directory.allJson()));
+        assertFalse(new String(before, StandardCharsets.UTF_8).contains("Quentin"));
+    }
+}
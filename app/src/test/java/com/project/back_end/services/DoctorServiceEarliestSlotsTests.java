@@ -0,0 +1,114 @@
+package com.project.back_end.services;
+
+import com.project.back_end.DTO.EarliestSlot;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Earliest-slot search over a specialty: ordering, per-doctor cap, and the query cost with hundreds of doctors.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({DoctorService.class, DoctorAvailabilityIndex.class})
+class DoctorServiceEarliestSlotsTests {
+
+    private static final LocalDate MONDAY = LocalDate.now().plusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+    @MockitoBean
+    private TokenService tokenService;
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void returnsTheEarliestSlotsAcrossDoctors() {
+        Long late = save("Late", "Cardiology", Map.of(DayOfWeek.MONDAY, List.of("15:00-16:00", "16:00-17:00")));
+        Long early = save("Early", "Cardiology", Map.of(DayOfWeek.TUESDAY, List.of("08:00-09:00")));
+        save("Other", "Dermatology", Map.of(DayOfWeek.MONDAY, List.of("07:00-08:00")));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<EarliestSlot> slots =
+                doctorService.findEarliestSlots("Cardiology", MONDAY.atTime(15, 30), 14, 3, 2);
+        assertEquals(3, slots.size());
+        assertEquals(late, slots.get(0).doctorId());
+        assertEquals(MONDAY.atTime(16, 0).toString(), slots.get(0).appointmentTime());
+        assertEquals(early, slots.get(1).doctorId());
+        assertEquals(MONDAY.plusDays(1).atTime(8, 0).toString(), slots.get(1).appointmentTime());
+        assertEquals(late, slots.get(2).doctorId());
+        assertEquals(MONDAY.plusWeeks(1).atTime(15, 0).toString(), slots.get(2).appointmentTime());
+    }
+
+    @Test
+    void perDoctorCapsTheSlotsOfEachDoctor() {
+        save("Only", "Cardiology", Map.of(DayOfWeek.MONDAY, List.of("09:00-10:00", "10:00-11:00")));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, doctorService.findEarliestSlots("Cardiology", MONDAY.atStartOfDay(), 14, 10, 1).size());
+        assertEquals(4, doctorService.findEarliestSlots("Cardiology", MONDAY.atStartOfDay(), 14, 10, 10).size());
+    }
+
+    @Test
+    void hundredsOfDoctorsCostAFewBatchesOfQueries() {
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Doctor d = doctor("Doctor " + i, "Cardiology");
+            d.setAvailableTimes(new ArrayList<>(List.of((9 + i % 8) + ":00")));
+            doctors.add(d);
+        }
+        doctorRepository.saveAll(doctors);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<EarliestSlot> slots =
+                doctorService.findEarliestSlots("Cardiology", MONDAY.atTime(23, 0), 28, 10, 1);
+        assertEquals(10, slots.size());
+        assertTrue(slots.get(0).appointmentTime().toString().startsWith(MONDAY.plusDays(1) + "T09:00"));
+        // doctors of the specialty, slot rows, then exceptions + appointments for the two dates walked
+        assertTrue(statistics.getPrepareStatementCount() <= 6, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    private Long save(String name, String specialty, Map<DayOfWeek, List<String>> week) {
+        Doctor d = doctor(name, specialty);
+        d.setWeeklySchedule(new EnumMap<>(week));
+        return doctorRepository.save(d).getId();
+    }
+
+    private Doctor doctor(String name, String specialty) {
+        Doctor d = new Doctor();
+        d.setName(name);
+        d.setSpecialty(specialty);
+        d.setEmail(name.toLowerCase().replace(' ', '.') + "@example.com");
+        d.setPassword("secret123");
+        d.setPhone("0123456789");
+        return d;
+    }
+}
@@ -0,0 +1,115 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// CSV and NDJSON parsing of the import uploads: quoting, line numbers, blank and malformed lines, the byte order
+// mark, and recovery from a quote that is never closed.
+class ImportRecordReaderTests {
+
+    @Test
+    void csvFieldsMayBeQuotedAndSpanLines() {
+        List<ImportRecordReader.Record> records = csv("""
+                Name,Email,Address
+                Ann Lee,ann@example.com,"1 Main Street, Springfield"
+                "Bo ""Bobby"" Li",bo@example.com,"Line one
+                line two"
+                Cy Park,cy@example.com,3 Side Road
+                """);
+
+        assertEquals(3, records.size());
+        assertEquals("1 Main Street, Springfield", records.get(0).get("address"));
+        assertEquals("Bo \"Bobby\" Li", records.get(1).get("name"));
+        assertEquals("Line one\nline two", records.get(1).get("address"));
+        assertEquals(List.of(2L, 3L, 5L), records.stream().map(ImportRecordReader.Record::getLine).toList());
+    }
+
+    @Test
+    void csvSkipsBlankLinesAndMatchesLooseColumnNames() {
+        List<ImportRecordReader.Record> records = csv("Available Times,EMAIL\n\n09:00-10:00,a@example.com\n   \n");
+
+        assertEquals(1, records.size());
+        assertEquals("09:00-10:00", records.get(0).get("availabletimes"));
+        assertEquals(3, records.get(0).getLine());
+    }
+
+    @Test
+    void byteOrderMarkIsNotPartOfTheFirstColumn() {
+        assertEquals("Ann Lee", csv("\uFEFFname,email\nAnn Lee,ann@example.com\n").get(0).get("name"));
+        assertEquals("Ann Lee", ndjson("\uFEFF{\"name\":\"Ann Lee\"}\n").get(0).get("name"));
+    }
+
+    @Test
+    void unterminatedQuoteIsOneErrorAndReadingResumesOnTheNextLine() {
+        List<ImportRecordReader.Record> records = csv("""
+                name,email
+                Ann Lee,ann@example.com
+                "Bo Li,bo@example.com
+                Cy Park,cy@example.com
+                """);
+
+        assertEquals(3, records.size());
+        assertNull(records.get(0).getError());
+        assertEquals("Unterminated quoted field.", records.get(1).getError());
+        assertEquals(3, records.get(1).getLine());
+        assertEquals("Cy Park", records.get(2).get("name"));
+        assertEquals(4, records.get(2).getLine());
+    }
+
+    @Test
+    void strayQuoteDoesNotSwallowTheRestOfALargeFile() {
+        StringBuilder file = new StringBuilder("name,email\n\"Stray,stray@example.com\n");
+        int rows = 5000; // ~150 KB after the stray quote, well over MAX_ROW_CHARS
+        for (int i = 0; i < rows; i++) {
+            file.append("Patient ").append(i).append(",p").append(i).append("@example.com\n");
+        }
+
+        List<ImportRecordReader.Record> records = csv(file.toString());
+
+        assertEquals(rows + 1, records.size());
+        assertEquals("Unterminated quoted field.", records.get(0).getError());
+        assertEquals("Patient 0", records.get(1).get("name"));
+        assertEquals("p4999@example.com", records.get(rows).get("email"));
+        assertEquals(rows + 2, records.get(rows).getLine());
+    }
+
+    @Test
+    void ndjsonReportsMalformedLinesAndSkipsBlankOnes() {
+        List<ImportRecordReader.Record> records = ndjson("""
+                {"name":"Ann Lee","available_times":["09:00-10:00","14:00-15:00"]}
+
+                {"name":
+                [1,2]
+                {"name":"Bo Li","rating":4.5}
+                """);
+
+        assertEquals(4, records.size());
+        assertEquals("09:00-10:00;14:00-15:00", records.get(0).get("availabletimes"));
+        assertEquals("Malformed JSON.", records.get(1).getError());
+        assertEquals(3, records.get(1).getLine());
+        assertEquals("Expected a JSON object.", records.get(2).getError());
+        assertEquals("4.5", records.get(3).get("rating"));
+        assertEquals(5, records.get(3).getLine());
+    }
+
+    private static List<ImportRecordReader.Record> csv(String text) {
+        return drain(ImportRecordReader.csv(new StringReader(text)));
+    }
+
+    private static List<ImportRecordReader.Record> ndjson(String text) {
+        return drain(ImportRecordReader.ndjson(new StringReader(text), new ObjectMapper()));
+    }
+
+    private static List<ImportRecordReader.Record> drain(ImportRecordReader reader) {
+        List<ImportRecordReader.Record> records = new ArrayList<>();
+        reader.forEachRemaining(records::add);
+        return records;
+    }
+}
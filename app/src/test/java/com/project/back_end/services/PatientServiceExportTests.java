@@ -0,0 +1,108 @@
+package com.project.back_end.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The streamed export writes the same JSON as the list endpoint, from one cursor query.
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureJson
+@Import(PatientService.class)
+class PatientServiceExportTests {
+
+    @MockitoBean
+    private TokenService tokenService;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void exportMatchesTheListEndpoint() throws Exception {
+        Long patientId = saveHistory(1200);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1200, patientService.exportAppointments(patientId, out));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        List<AppointmentDTO> listed = patientService.getPatientAppointment(patientId).getBody();
+        TypeReference<List<Map<String, Object>>> rows = new TypeReference<>() {
+        };
+        assertEquals(objectMapper.readValue(objectMapper.writeValueAsBytes(listed), rows),
+                objectMapper.readValue(out.toByteArray(), rows));
+    }
+
+    @Test
+    void emptyHistoryIsAnEmptyArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, patientService.exportAppointments(-1L, out));
+        assertEquals("[]", out.toString());
+    }
+
+    private Long saveHistory(int rows) {
+        Doctor doctor = new Doctor();
+        doctor.setName("Export Doctor");
+        doctor.setSpecialty("Cardiology");
+        doctor.setEmail("export.doctor@example.com");
+        doctor.setPassword("secret123");
+        doctor.setPhone("0123456789");
+        doctorRepository.save(doctor);
+        Patient patient = new Patient();
+        patient.setName("Export Patient");
+        patient.setEmail("export.patient@example.com");
+        patient.setPassword("secret123");
+        patient.setPhone("0123456789");
+        patient.setAddress("1 Main Street");
+        patientRepository.save(patient);
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(9, 0);
+        List<Appointment> appointments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            appointments.add(new Appointment(doctor, patient, start.plusHours(i), i % 2));
+        }
+        appointmentRepository.saveAll(appointments);
+        entityManager.flush();
+        entityManager.clear();
+        return patient.getId();
+    }
+}
@@ -0,0 +1,149 @@
+package com.project.back_end.services;
+
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Subject-to-id lookups against H2: "not found" and found ids are cached for their own TTLs, a full registry is
+// purged, and a signup clears a cached miss only once its transaction has committed. The transactions must really
+// commit or roll back, so the tests run outside a test transaction and remove their patients afterwards.
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PrincipalRegistry.class, TokenService.class, VerifiedTokenCache.class})
+class PrincipalRegistryTests {
+
+    @Autowired
+    private PrincipalRegistry registry;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private AdminRepository adminRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        registry.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        patientRepository.deleteAll();
+        registry.clear();
+    }
+
+    @Test
+    void cachedMissIsClearedByACommittedSignup() {
+        assertNull(registry.resolve("patient", "ann@example.com"));
+        patientRepository.save(patient("Ann Lee", "ann@example.com", "0123456789")); // no invalidation
+        long negativeHits = negativeHits();
+        assertNull(registry.resolve("patient", "ann@example.com")); // the miss is served from the cache
+        assertEquals(negativeHits + 1, negativeHits());
+
+        Patient bo = tx.execute(s -> {
+            Patient p = patientRepository.save(patient("Bo Li", "bo@example.com", "0123456780"));
+            tokenService.invalidatePrincipalAfterCommit("patient", "ann@example.com");
+            // still inside the transaction: nothing is evicted yet
+            assertEquals(1, registry.stats().get("size"));
+            return p;
+        });
+
+        assertEquals(0, registry.stats().get("size"));
+        assertEquals(patientRepository.findIdByEmailIgnoreCase("ann@example.com").orElseThrow(),
+                registry.resolve("patient", "Ann@Example.com"));
+        assertEquals(bo.getId(), registry.resolve("patient", "bo@example.com"));
+    }
+
+    @Test
+    void rolledBackChangeDoesNotInvalidate() {
+        assertNull(registry.resolve("patient", "ann@example.com"));
+        patientRepository.save(patient("Ann Lee", "ann@example.com", "0123456789")); // no invalidation
+
+        tx.executeWithoutResult(s -> {
+            tokenService.invalidatePrincipalAfterCommit("patient", "ann@example.com");
+            s.setRollbackOnly();
+        });
+
+        long negativeHits = negativeHits();
+        assertNull(registry.resolve("patient", "ann@example.com")); // the cached miss survived the rollback
+        assertEquals(negativeHits + 1, negativeHits());
+    }
+
+    @Test
+    void negativeAndPositiveEntriesExpire() throws InterruptedException {
+        PrincipalRegistry shortLived = registry(1, 1, 100);
+
+        assertNull(shortLived.resolve("patient", "ann@example.com"));
+        Patient ann = patientRepository.save(patient("Ann Lee", "ann@example.com", "0123456789"));
+        assertNull(shortLived.resolve("patient", "ann@example.com"));
+        Thread.sleep(1100);
+        assertEquals(ann.getId(), shortLived.resolve("patient", "ann@example.com"));
+
+        patientRepository.delete(ann);
+        assertEquals(ann.getId(), shortLived.resolve("patient", "ann@example.com"));
+        Thread.sleep(1100);
+        assertNull(shortLived.resolve("patient", "ann@example.com"));
+        assertEquals(3L, shortLived.stats().get("misses"));
+    }
+
+    @Test
+    void fullRegistryDropsExpiredEntriesFirstAndOtherwiseStartsOver() {
+        Long ann = patientRepository.save(patient("Ann Lee", "ann@example.com", "0123456789")).getId();
+
+        PrincipalRegistry instantMisses = registry(600, 0, 2);
+        instantMisses.resolve("patient", "nobody@example.com"); // expires at once
+        instantMisses.resolve("patient", "ann@example.com");
+        instantMisses.resolve("patient", "other@example.com"); // full: only the expired miss is dropped
+        assertEquals(2, instantMisses.stats().get("size"));
+        assertEquals(ann, instantMisses.resolve("patient", "ann@example.com"));
+        assertEquals(1L, instantMisses.stats().get("hits"));
+
+        PrincipalRegistry small = registry(600, 600, 2);
+        small.resolve("patient", "ann@example.com");
+        small.resolve("patient", "nobody@example.com");
+        small.resolve("patient", "other@example.com"); // full and nothing expired: cleared
+        assertEquals(1, small.stats().get("size"));
+        assertEquals(ann, small.resolve("patient", "ann@example.com"));
+        assertEquals(4L, small.stats().get("misses"));
+    }
+
+    private long negativeHits() {
+        return (Long) registry.stats().get("negativeHits");
+    }
+
+    private PrincipalRegistry registry(long positiveTtlSeconds, long negativeTtlSeconds, int maxEntries) {
+        return new PrincipalRegistry(adminRepository, doctorRepository, patientRepository,
+                positiveTtlSeconds, negativeTtlSeconds, maxEntries);
+    }
+
+    private static Patient patient(String name, String email, String phone) {
+        Patient p = new Patient();
+        p.setName(name);
+        p.setEmail(email);
+        p.setPassword("secret123");
+        p.setPhone(phone);
+        p.setAddress("1 Main Street");
+        return p;
+    }
+}
@@ -0,0 +1,42 @@
+package com.project.back_end.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Hibernate statistics are off by default: the admin cache statistics then say so instead of failing or reporting
+// counters that never move, and report the regions once statistics are switched on.
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import(SecondLevelCacheStats.class)
+class SecondLevelCacheStatsTests {
+
+    @Autowired
+    private SecondLevelCacheStats cacheStats;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statisticsAreOffByDefaultAndReportedAsSuch() {
+        assertEquals(Map.of("enabled", false), cacheStats.stats());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            Map<String, Object> stats = cacheStats.stats();
+            assertEquals(true, stats.get("enabled"));
+            assertTrue(stats.containsKey("com.project.back_end.models.Doctor"), stats.keySet().toString());
+            assertTrue(stats.containsKey("queries"));
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.project.back_end.services;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The verified-token cache must never outlive the JWT: entries expire on lookup, tokens without (or past) their
+// expiry are not stored, and the LRU bound and counters behave as reported by the admin statistics.
+class VerifiedTokenCacheTests {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    @Test
+    void entryExpiresOnLookupOnceItsExpHasPassed() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("k", token("ann@example.com", System.currentTimeMillis() + 100));
+
+        assertNotNull(cache.get("k"));
+        Thread.sleep(150);
+        assertNull(cache.get("k"));
+
+        Map<String, Object> stats = cache.stats();
+        assertEquals(0, stats.get("size"));
+        assertEquals(1L, stats.get("expirations"));
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void tokensWithoutOrPastTheirExpiryAreNotStored() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("none", token("ann@example.com", 0));
+        cache.put("past", token("ann@example.com", System.currentTimeMillis() - 1));
+
+        assertNull(cache.get("none"));
+        assertNull(cache.get("past"));
+        assertEquals(0, cache.stats().get("size"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedBeyondTheBound() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        long exp = System.currentTimeMillis() + 60_000;
+        cache.put("a", token("a@example.com", exp));
+        cache.put("b", token("b@example.com", exp));
+        cache.get("a"); // b is now the eldest
+        cache.put("c", token("c@example.com", exp));
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        Map<String, Object> stats = cache.stats();
+        assertEquals(2, stats.get("size"));
+        assertEquals(2, stats.get("maxEntries"));
+        assertEquals(1L, stats.get("evictions"));
+        assertEquals(3L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0.75, stats.get("hitRatio"));
+    }
+
+    @Test
+    void invalidateSubjectDropsEveryTokenOfTheSubject() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        long exp = System.currentTimeMillis() + 60_000;
+        cache.put("a1", token("ann@example.com", exp));
+        cache.put("a2", token("ann@example.com", exp).withRole("patient"));
+        cache.put("b", token("bo@example.com", exp));
+
+        cache.invalidateSubject("Ann@Example.com");
+
+        assertNull(cache.get("a1"));
+        assertNull(cache.get("a2"));
+        assertNotNull(cache.get("b"));
+    }
+
+    @Test
+    void expiredJwtIsRejectedEvenAfterItsRoleWasCached() throws InterruptedException {
+        PrincipalRegistry registry = mock(PrincipalRegistry.class);
+        when(registry.exists("patient", "ann@example.com")).thenReturn(true);
+        TokenService tokenService = new TokenService(registry, new VerifiedTokenCache(10), SECRET);
+        // `exp` has second precision: a full second boundary at least one second ahead
+        long exp = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String jwt = Jwts.builder()
+                .subject("ann@example.com")
+                .expiration(new Date(exp))
+                .signWith(tokenService.getSigningKey())
+                .compact();
+
+        assertTrue(tokenService.validateToken(jwt, "patient"));
+        assertTrue(tokenService.validateToken(jwt, "patient")); // served from the cache
+        verify(registry, times(1)).exists("patient", "ann@example.com");
+
+        Thread.sleep(Math.max(0, exp - System.currentTimeMillis()) + 50);
+        assertFalse(tokenService.validateToken(jwt, "patient"));
+    }
+
+    private static VerifiedTokenCache.VerifiedToken token(String subject, long expiresAt) {
+        return new VerifiedTokenCache.VerifiedToken(subject, expiresAt, Set.of());
+    }
+}